@@ -0,0 +1,95 @@
+package benchmark;
+
+import engine.Evaluator;
+import engine.NnueEvaluator;
+import engine.NnueNetwork;
+import engine.TaperedEvaluator;
+import model.MoveGenerator;
+import model.MoveList;
+import model.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks static evaluation: the tapered evaluator against the NNUE
+ * evaluator with plain and with Vector API loops. One invocation evaluates
+ * every position of one phase, or makes, evaluates and unmakes every legal
+ * move of them, which includes the incremental accumulator updates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class EvaluatorBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    @Param({"tapered", "nnue-scalar", "nnue-vector"})
+    public String evaluatorName;
+
+    private Evaluator evaluator;
+    private Position[] positions;
+    private MoveList[] moves;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (evaluatorName) {
+            case "tapered":
+                evaluator = new TaperedEvaluator();
+                break;
+            case "nnue-scalar":
+                evaluator = new NnueEvaluator(NnueNetwork.fromPieceSquareTables(), false);
+                break;
+            default:
+                evaluator = new NnueEvaluator(NnueNetwork.fromPieceSquareTables(), true);
+                break;
+        }
+
+        String[] fens = PositionCorpus.get(phase);
+        positions = new Position[fens.length];
+        moves = new MoveList[fens.length];
+        MoveGenerator generator = new MoveGenerator();
+        for (int i = 0; i < fens.length; i++) {
+            positions[i] = Position.fromFen(fens[i]);
+            moves[i] = new MoveList();
+            generator.generateMoves(positions[i], moves[i]);
+            // Attaches the accumulator, so only the incremental updates are measured
+            evaluator.evaluate(positions[i]);
+        }
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole bh) {
+        for (Position position : positions) {
+            bh.consume(evaluator.evaluate(position));
+        }
+    }
+
+    @Benchmark
+    public void makeEvaluateUnmake(Blackhole bh) {
+        for (int i = 0; i < positions.length; i++) {
+            Position position = positions[i];
+            MoveList list = moves[i];
+            for (int j = 0; j < list.size(); j++) {
+                position.makeMove(list.get(j));
+                bh.consume(evaluator.evaluate(position));
+                position.unmakeMove();
+            }
+        }
+    }
+}
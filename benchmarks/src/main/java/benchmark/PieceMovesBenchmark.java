@@ -0,0 +1,86 @@
+package benchmark;
+
+import controller.GameController;
+import model.Board;
+import model.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks move lists per piece type: the piece's own movement rules from
+ * Piece.getLegalMoves, and the fully legal moves the controller hands the UI.
+ * Each invocation covers every piece of the type in every position of one phase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    @Param({"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"})
+    public String pieceType;
+
+    private Piece[] pieces;
+    private Board[] boards;
+    private GameController[] controllers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Piece> pieceList = new ArrayList<Piece>();
+        List<GameController> controllerList = new ArrayList<GameController>();
+
+        for (String fen : PositionCorpus.get(phase)) {
+            GameController controller = PositionCorpus.load(fen);
+            Board board = controller.getGameState().getBoard();
+
+            List<Piece> all = new ArrayList<Piece>(board.Wpieces);
+            all.addAll(board.Bpieces);
+            for (Piece piece : all) {
+                if (piece.getClass().getSimpleName().equals(pieceType)) {
+                    pieceList.add(piece);
+                    controllerList.add(controller);
+                }
+            }
+        }
+
+        pieces = pieceList.toArray(new Piece[0]);
+        controllers = controllerList.toArray(new GameController[0]);
+        boards = new Board[pieces.length];
+        for (int i = 0; i < pieces.length; i++) {
+            boards[i] = controllers[i].getGameState().getBoard();
+        }
+    }
+
+    @Benchmark
+    public void pieceGetLegalMoves(Blackhole bh) {
+        for (int i = 0; i < pieces.length; i++) {
+            bh.consume(pieces[i].getLegalMoves(boards[i]));
+        }
+    }
+
+    @Benchmark
+    public void controllerGetLegalMoves(Blackhole bh) {
+        for (int i = 0; i < pieces.length; i++) {
+            bh.consume(controllers[i].getLegalMoves(pieces[i]));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import controller.GameController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Positions the benchmarks run over, grouped by game phase.
+ */
+public final class PositionCorpus {
+    private static final Map<String, String[]> POSITIONS = new HashMap<String, String[]>();
+
+    static {
+        POSITIONS.put("opening", new String[] {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3",
+                "rnbqkb1r/pp2pppp/3p1n2/8/3NP3/8/PPP2PPP/RNBQKB1R w KQkq - 1 5",
+                "rnbqkb1r/ppp1pppp/5n2/3p4/2PP4/8/PP2PPPP/RNBQKBNR w KQkq - 1 3"
+        });
+        POSITIONS.put("middlegame", new String[] {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                "r1b2rk1/2q1bppp/p2ppn2/1p6/3BPP2/2N2B2/PPP3PP/R2Q1R1K w - - 0 14",
+                "2rq1rk1/pp1bppbp/3p1np1/8/3NP3/1BN1BP2/PPPQ2PP/2KR3R b - - 6 12"
+        });
+        POSITIONS.put("endgame", new String[] {
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "8/8/4k3/3p4/3K4/4P3/8/8 w - - 0 1",
+                "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1",
+                "8/5pk1/6p1/8/2B5/6P1/5PK1/3r4 b - - 0 40"
+        });
+    }
+
+    private PositionCorpus() {
+    }
+
+    /**
+     * Gets the FEN strings of a phase.
+     *
+     * @param phase "opening", "middlegame" or "endgame"
+     * @return The positions of that phase
+     */
+    public static String[] get(String phase) {
+        String[] fens = POSITIONS.get(phase);
+        if (fens == null) {
+            throw new IllegalArgumentException("Unknown phase: " + phase);
+        }
+        return fens;
+    }
+
+    /**
+     * Creates a game without a window and sets it up from a FEN.
+     *
+     * @param fen The position
+     * @return The controller owning the board
+     */
+    public static GameController load(String fen) {
+        GameController controller = new GameController("White", "Black", 0, 10, 0);
+        controller.loadPosition(fen);
+        return controller;
+    }
+}
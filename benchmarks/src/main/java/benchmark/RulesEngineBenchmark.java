@@ -0,0 +1,129 @@
+package benchmark;
+
+import controller.GameController;
+import model.Board;
+import model.GameRulesEngine;
+import model.Move;
+import model.Piece;
+import model.Square;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the rules engine: move map updates, checkmate detection and move
+ * legality tests. Each invocation covers every position of one phase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesEngineBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private GameRulesEngine[] engines;
+    private GameRulesEngine[] rebuildingEngines;
+
+    // A quiet move per position, played and taken back to make update() do work
+    private Piece[] editPieces;
+    private Square[] editFrom;
+    private Square[] editTo;
+
+    // Every legal move of the side to move, over all positions
+    private GameRulesEngine[] moveEngines;
+    private Piece[] movePieces;
+    private Square[] moveTargets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] fens = PositionCorpus.get(phase);
+        engines = new GameRulesEngine[fens.length];
+        rebuildingEngines = new GameRulesEngine[fens.length];
+        editPieces = new Piece[fens.length];
+        editFrom = new Square[fens.length];
+        editTo = new Square[fens.length];
+
+        List<GameRulesEngine> engineList = new ArrayList<GameRulesEngine>();
+        List<Move> moveList = new ArrayList<Move>();
+
+        for (int i = 0; i < fens.length; i++) {
+            GameController controller = PositionCorpus.load(fens[i]);
+            model.State state = controller.getGameState();
+            Board board = state.getBoard();
+
+            engines[i] = new GameRulesEngine(board, state.getWhiteKing(), state.getBlackKing());
+            rebuildingEngines[i] = new GameRulesEngine(board, state.getWhiteKing(), state.getBlackKing());
+            rebuildingEngines[i].setIncremental(false);
+
+            for (Move move : engines[i].getAllLegalMoves()) {
+                engineList.add(engines[i]);
+                moveList.add(move);
+
+                if (editPieces[i] == null && !move.isCapture() && !move.isSpecialMove()) {
+                    editPieces[i] = move.getMovingPiece();
+                    editFrom[i] = move.getFromSquare();
+                    editTo[i] = move.getToSquare();
+                }
+            }
+        }
+
+        moveEngines = engineList.toArray(new GameRulesEngine[0]);
+        movePieces = new Piece[moveList.size()];
+        moveTargets = new Square[moveList.size()];
+        for (int i = 0; i < moveList.size(); i++) {
+            movePieces[i] = moveList.get(i).getMovingPiece();
+            moveTargets[i] = moveList.get(i).getToSquare();
+        }
+    }
+
+    @Benchmark
+    public void updateIncremental() {
+        for (int i = 0; i < engines.length; i++) {
+            editFrom[i].removePiece();
+            editTo[i].put(editPieces[i]);
+            engines[i].update();
+
+            editTo[i].removePiece();
+            editFrom[i].put(editPieces[i]);
+            engines[i].update();
+        }
+    }
+
+    @Benchmark
+    public void updateRebuild() {
+        for (GameRulesEngine engine : rebuildingEngines) {
+            engine.update();
+        }
+    }
+
+    @Benchmark
+    public void isWhiteCheckmated(Blackhole bh) {
+        for (GameRulesEngine engine : engines) {
+            bh.consume(engine.isWhiteCheckmated());
+        }
+    }
+
+    @Benchmark
+    public void testMove(Blackhole bh) {
+        for (int i = 0; i < movePieces.length; i++) {
+            bh.consume(moveEngines[i].testMove(movePieces[i], moveTargets[i]));
+        }
+    }
+}
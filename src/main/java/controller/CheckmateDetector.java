@@ -1,5 +1,6 @@
 package controller;
 
+import model.Move;
 import model.Piece;
 import model.Board;
 import model.Square;
@@ -23,14 +24,11 @@ public class CheckmateDetector {
      * Constructs a new instance of Controller.CheckmateDetector on a given board.
      *
      * @param board The board which the detector monitors
-     * @param whitePieces White pieces on the board
-     * @param blackPieces Black pieces on the board
      * @param whiteKing Model.Piece object representing the white king
      * @param blackKing Model.Piece object representing the black king
      */
-    public CheckmateDetector(Board board, LinkedList<Piece> whitePieces,
-                             LinkedList<Piece> blackPieces, King whiteKing, King blackKing) {
-        this.rulesEngine = new GameRulesEngine(board, whitePieces, blackPieces, whiteKing, blackKing);
+    public CheckmateDetector(Board board, King whiteKing, King blackKing) {
+        this.rulesEngine = new GameRulesEngine(board, whiteKing, blackKing);
         this.movableSquares = new LinkedList<Square>();
     }
 
@@ -94,6 +92,23 @@ public class CheckmateDetector {
         return movableSquares;
     }
 
+    /**
+     * Gets the fully legal destinations of a piece, including castling and en passant.
+     * @param p Model.Piece whose moves are wanted
+     * @return List of squares p can legally move to
+     */
+    public List<Square> getLegalMoves(Piece p) {
+        return rulesEngine.getLegalMoves(p);
+    }
+
+    /**
+     * Gets every legal move of the side to move.
+     * @return List of legal moves
+     */
+    public List<Move> getAllLegalMoves() {
+        return rulesEngine.getAllLegalMoves();
+    }
+
     /**
      * Tests a move a player is about to make to prevent making an illegal move
      * that puts the player in check.
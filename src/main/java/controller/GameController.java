@@ -1,19 +1,38 @@
 package controller;
 
+import engine.Engine;
+import engine.SearchLimits;
+import engine.SearchResult;
 import view.GameWindow;
 import model.*;
 import model.pieces.*;
 
 import javax.swing.*;
+import java.awt.GraphicsEnvironment;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main controller for the chess game, coordinating model and view.
  */
 public class GameController {
+    // Engine time per move in games without a clock
+    public static final long UNTIMED_MOVE_TIME_MILLIS = 1000;
+
     private State state;
     private GameWindow view;
     private CheckmateDetector checkmateDetector;
+    private final Engine engine = new Engine();
+    private final boolean timed;
+    private long turnStartNanos;
+
+    // Pondering: the search on the opponent's time, the reply it expects and whether that reply came
+    private boolean ponderEnabled;
+    private CompletableFuture<SearchResult> ponderSearch;
+    private int ponderMove = PackedMove.NONE;
+    private boolean ponderHit;
+    private int ponderHits;
+    private int ponderMisses;
 
     /**
      * Constructs a new GameController with the specified settings.
@@ -28,19 +47,23 @@ public class GameController {
     public GameController(String whiteName, String blackName, int hours, int minutes, int seconds) {
         // Initialize game state
         this.state = new State(whiteName, blackName, hours, minutes, seconds);
+        this.timed = hours != 0 || minutes != 0 || seconds != 0;
 
         // Create the board with a reference to this controller
         Board board = new Board(this);
         state.initialize(board);
 
-        // Initialize the view
-        this.view = new GameWindow(this, whiteName, blackName, hours, minutes, seconds);
+        // Initialize the view, unless there is no display (tests, benchmarks, servers)
+        if (!GraphicsEnvironment.isHeadless()) {
+            this.view = new GameWindow(this, whiteName, blackName, hours, minutes, seconds);
+        }
 
         // Set up checkmate detector
         setupCheckmateDetector();
 
         // Show the view
-        view.display();
+        if (view != null) view.display();
+        turnStartNanos = System.nanoTime();
     }
     private void setupCheckmateDetector() {
         try {
@@ -52,8 +75,6 @@ public class GameController {
                 System.out.println("Initializing CheckmateDetector");
                 this.checkmateDetector = new CheckmateDetector(
                         board,
-                        board.Wpieces,
-                        board.Bpieces,
                         whiteKing,
                         blackKing
                 );
@@ -78,14 +99,27 @@ public class GameController {
         if (board != null && state.getWhiteKing() != null && state.getBlackKing() != null) {
             this.checkmateDetector = new CheckmateDetector(
                     board,
-                    state.getWhitePlayer().getPieces(),
-                    state.getBlackPlayer().getPieces(),
                     state.getWhiteKing(),
                     state.getBlackKing()
             );
         }
     }
 
+    /**
+     * Sets up the board from a FEN string, replacing the current game position.
+     * The turn follows the FEN and the checkmate detector is rebuilt.
+     *
+     * @param fen The position in Forsyth-Edwards Notation
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public void loadPosition(String fen) {
+        cancelPonder();
+        Position position = Position.fromFen(fen);
+        state.getBoard().loadPosition(position);
+        state.setWhiteTurn(position.getSideToMove() == Position.WHITE);
+        initializeCheckmateDetector();
+    }
+
     /**
      * Handles the start of a piece movement (when a player selects a piece).
      *
@@ -115,50 +149,86 @@ public class GameController {
      * @return true if the move was successful, false otherwise
      */
     public boolean movePiece(Piece piece, Square destination) {
-        // First check if move is valid using checkmate detector
-        if (checkmateDetector != null && !checkmateDetector.testMove(piece, destination)) {
-            System.out.println("Move would leave king in check");
+        return movePiece(piece, destination, Position.QUEEN);
+    }
+
+    /**
+     * Handles a move given as a Move object, such as one converted from a packed
+     * move, including its choice of promotion piece.
+     *
+     * @param move The move to play
+     * @return true if the move was successful, false otherwise
+     */
+    public boolean movePiece(Move move) {
+        int promotion = move.getPromotionType();
+        return movePiece(move.getMovingPiece(), move.getToSquare(),
+                promotion == Position.EMPTY ? Position.QUEEN : promotion);
+    }
+
+    /**
+     * Handles a piece movement with a choice of promotion piece. The move is
+     * validated and played on the headless game core first, then mirrored onto
+     * the board's squares.
+     *
+     * @param piece The piece to move
+     * @param destination The destination square
+     * @param promotion The piece type a pawn reaching the last rank becomes
+     * @return true if the move was successful, false otherwise
+     */
+    public boolean movePiece(Piece piece, Square destination, int promotion) {
+        Board board = state.getBoard();
+        ChessGame game = board.getGame();
+        Position position = game.getPosition();
+        int from = piece.getPosition().getIndex();
+        int to = destination.getIndex();
+
+        // Only the piece actually standing on its square can move
+        boolean onSquare = piece.getPosition().getOccupyingPiece() == piece;
+        boolean promoting = piece.getType() == Position.PAWN
+                && (destination.getYNum() == 0 || destination.getYNum() == 7);
+        int move = PackedMove.of(position, from, to, promoting ? promotion : Position.EMPTY);
+
+        if (!onSquare || !game.play(move)) {
+            System.out.println("Illegal move or move would leave king in check");
             return false;
         }
+        board.applyMove(move);
+        resolvePonder(move);
+
+        // Update game state
+        chargeMoveTime();
+        state.toggleTurn();
+
+        if (checkmateDetector != null) {
+            checkmateDetector.update();
+
+            // Update check status
+            state.setWhiteInCheck(checkmateDetector.whiteInCheck());
+            state.setBlackInCheck(checkmateDetector.blackInCheck());
 
-        // Execute move
-        boolean moveSuccessful = piece.move(destination);
-
-        if (moveSuccessful) {
-            // Update game state
-            state.toggleTurn();
-
-            if (checkmateDetector != null) {
-                checkmateDetector.update();
-
-                // Update check status
-                state.setWhiteInCheck(checkmateDetector.whiteInCheck());
-                state.setBlackInCheck(checkmateDetector.blackInCheck());
-
-                // Check for checkmate
-                if (checkmateDetector.blackCheckMated()) {
-                    state.endGame("White wins by checkmate");
-                    view.notifyCheckmate(1); // White wins
-                    return true;
-                } else if (checkmateDetector.whiteCheckMated()) {
-                    state.endGame("Black wins by checkmate");
-                    view.notifyCheckmate(0); // Black wins
-                    return true;
-                }
-
-                // Announce check if applicable
-                if (state.isWhiteInCheck() || state.isBlackInCheck()) {
-                    SwingUtilities.invokeLater(() -> {
-                        JOptionPane.showMessageDialog(null,
-                                (state.isWhiteInCheck() ? "White" : "Black") + " king is in check!",
-                                "Check",
-                                JOptionPane.WARNING_MESSAGE);
-                    });
-                }
+            // Check for checkmate
+            if (checkmateDetector.blackCheckMated()) {
+                state.endGame("White wins by checkmate");
+                if (view != null) view.notifyCheckmate(1); // White wins
+                return true;
+            } else if (checkmateDetector.whiteCheckMated()) {
+                state.endGame("Black wins by checkmate");
+                if (view != null) view.notifyCheckmate(0); // Black wins
+                return true;
+            }
+
+            // Announce check if applicable
+            if (view != null && (state.isWhiteInCheck() || state.isBlackInCheck())) {
+                SwingUtilities.invokeLater(() -> {
+                    JOptionPane.showMessageDialog(null,
+                            (state.isWhiteInCheck() ? "White" : "Black") + " king is in check!",
+                            "Check",
+                            JOptionPane.WARNING_MESSAGE);
+                });
             }
         }
 
-        return moveSuccessful;
+        return true;
     }
 
     /**
@@ -202,7 +272,12 @@ public class GameController {
         if (state.getBoard() == null) {
             return java.util.Collections.emptyList();
         }
-        return piece.getLegalMoves(state.getBoard());
+
+        // Without a detector fall back to the piece's own movement rules
+        if (checkmateDetector == null) {
+            return piece.getLegalMoves(state.getBoard());
+        }
+        return checkmateDetector.getLegalMoves(piece);
     }
 
     /**
@@ -217,15 +292,242 @@ public class GameController {
         return checkmateDetector.getAllowableSquares(state.isWhiteTurn());
     }
 
+    /**
+     * Asks the engine for a move for either side, whether or not it is that
+     * side's turn. The board is not changed.
+     *
+     * @param color The side to find a move for (0 for black, 1 for white)
+     * @param limits The depth, node and time budget of the search
+     * @return The move, ready for {@link #movePiece(Move)}, or null if that side has no legal move
+     */
+    public Move findEngineMove(int color, SearchLimits limits) {
+        cancelPonder();
+        SearchResult result = search(color, limits);
+        return result == null ? null : Move.fromPacked(state.getBoard(), result.getBestMove());
+    }
+
+    /*
+     * Searches the board for either side, returning null if that side has no move.
+     */
+    private SearchResult search(int color, SearchLimits limits) {
+        Position position = new Position(state.getBoard().getPosition());
+        if (position.getSideToMove() != color) {
+            // An en passant capture is only available to the side that was to move
+            position.setSideToMove(color);
+            position.setEnPassantSquare(Position.NO_SQUARE);
+        }
+
+        SearchResult result = engine.search(position, limits);
+        if (result == null || result.getBestMove() == PackedMove.NONE) return null;
+        return result;
+    }
+
+    /**
+     * Lets the engine play a move for the side to move, budgeting its time
+     * from that side's clock.
+     *
+     * @return true if a move was played, false if the game is over or there is no legal move
+     */
+    public boolean playEngineMove() {
+        return playEngineMove(clockLimits(state.isWhiteTurn() ? Position.WHITE : Position.BLACK));
+    }
+
+    /**
+     * Gets search limits from a side's clock: the time left and the increment,
+     * for the engine's {@link engine.TimeManager} to divide. Without a clock the
+     * engine gets a fixed time per move.
+     *
+     * @param color The side to search for (0 for black, 1 for white)
+     * @return The limits
+     */
+    public SearchLimits clockLimits(int color) {
+        if (!timed) return SearchLimits.moveTime(UNTIMED_MOVE_TIME_MILLIS);
+
+        Player player = (color == Position.WHITE) ? state.getWhitePlayer() : state.getBlackPlayer();
+        long timeLeft = Math.max(1, getTimeRemaining(color == Position.WHITE));
+        return SearchLimits.clock(timeLeft, player.getIncrement());
+    }
+
+    /**
+     * Lets the engine play a move for the side to move.
+     *
+     * @param limits The depth, node and time budget of the search
+     * @return true if a move was played, false if the game is over or there is no legal move
+     */
+    public boolean playEngineMove(SearchLimits limits) {
+        if (state.isGameOver()) {
+            cancelPonder();
+            return false;
+        }
+
+        // After a ponder hit the search already under way gives the answer
+        SearchResult result = ponderHit ? takePonderResult() : null;
+        if (result == null) {
+            cancelPonder();
+            result = search(state.isWhiteTurn() ? Position.WHITE : Position.BLACK, limits);
+        }
+        if (result == null || !movePiece(Move.fromPacked(state.getBoard(), result.getBestMove()))) return false;
+
+        if (ponderEnabled && !state.isGameOver()) startPonder(result);
+        return true;
+    }
+
+    /**
+     * Turns pondering on or off. With pondering on, after each move it plays
+     * the engine goes on searching the position after the reply it expects,
+     * on the opponent's time. If the opponent plays that reply, the next
+     * {@link #playEngineMove} takes its move from the search already under way;
+     * if not, the search is stopped, keeping what the transposition table learned.
+     *
+     * @param enabled true to ponder
+     */
+    public void setPondering(boolean enabled) {
+        this.ponderEnabled = enabled;
+        if (!enabled) cancelPonder();
+    }
+
+    public boolean isPondering() {
+        return ponderEnabled;
+    }
+
+    /**
+     * Gets the reply the engine is pondering on.
+     *
+     * @return The packed move, or {@link PackedMove#NONE} if there is no ponder search
+     */
+    public int getPonderMove() {
+        return ponderSearch == null ? PackedMove.NONE : ponderMove;
+    }
+
+    public int getPonderHits() {
+        return ponderHits;
+    }
+
+    public int getPonderMisses() {
+        return ponderMisses;
+    }
+
+    /*
+     * Starts a search of the position after the expected reply, the second move
+     * of the principal variation, for the side that just moved.
+     */
+    private void startPonder(SearchResult result) {
+        int[] pv = result.getPv();
+        if (pv.length < 2) return;
+
+        Position position = new Position(state.getBoard().getPosition());
+        int engineColor = position.getSideToMove() ^ 1;
+        position.makeMove(pv[1]);
+
+        SearchLimits limits = clockLimits(engineColor);
+        limits.setPonder(true);
+        ponderMove = pv[1];
+        ponderHit = false;
+        ponderSearch = engine.searchAsync(position, limits, null);
+    }
+
+    /*
+     * Tells the ponder search whether the move just played was the expected one.
+     */
+    private void resolvePonder(int move) {
+        if (ponderSearch == null || ponderHit) return;
+
+        if (move == ponderMove) {
+            ponderHit = true;
+            ponderHits++;
+            engine.ponderHit();
+        } else {
+            ponderMisses++;
+            cancelPonder();
+        }
+    }
+
+    /*
+     * Waits for the ponder search to finish under its clock limits.
+     */
+    private SearchResult takePonderResult() {
+        SearchResult result = ponderSearch.join();
+        ponderSearch = null;
+        ponderHit = false;
+        if (result == null || result.getBestMove() == PackedMove.NONE) return null;
+        return result;
+    }
+
+    /*
+     * Stops any ponder search; the engine checks the stop flag every 128
+     * nodes, so this is cheap.
+     */
+    private void cancelPonder() {
+        if (ponderSearch == null) return;
+
+        engine.stop();
+        ponderSearch.join();
+        ponderSearch = null;
+        ponderHit = false;
+    }
+
+    /**
+     * Sets how many threads the engine searches with.
+     *
+     * @param threads The thread count, at least 1
+     */
+    public void setEngineThreads(int threads) {
+        engine.setThreads(threads);
+    }
+
+    /**
+     * Sets the time both players gain after each of their moves.
+     *
+     * @param seconds The increment in seconds
+     */
+    public void setIncrement(int seconds) {
+        state.getWhitePlayer().setIncrement(seconds * 1000L);
+        state.getBlackPlayer().setIncrement(seconds * 1000L);
+    }
+
+    /**
+     * Gets the time left on a player's clock, counting the time spent on the
+     * current move by the side to move.
+     *
+     * @param isWhite true for white, false for black
+     * @return The time left in milliseconds, 0 or less once it has run out
+     */
+    public long getTimeRemaining(boolean isWhite) {
+        Player player = isWhite ? state.getWhitePlayer() : state.getBlackPlayer();
+        long remaining = player.getTimeRemaining();
+        if (timed && isWhite == state.isWhiteTurn() && !state.isGameOver()) {
+            remaining -= (System.nanoTime() - turnStartNanos) / 1_000_000;
+        }
+        return remaining;
+    }
+
+    public boolean isTimed() {
+        return timed;
+    }
+
+    /*
+     * Charges the side that just moved for its thinking time and starts the
+     * other side's turn.
+     */
+    private void chargeMoveTime() {
+        long now = System.nanoTime();
+        if (timed) {
+            Player mover = state.isWhiteTurn() ? state.getWhitePlayer() : state.getBlackPlayer();
+            mover.completeMove((now - turnStartNanos) / 1_000_000);
+        }
+        turnStartNanos = now;
+    }
+
     /**
      * Notifies the controller that a player has run out of time.
      *
      * @param isWhite true if white ran out of time, false if black
      */
     public void timeOut(boolean isWhite) {
+        cancelPonder();
         String result = isWhite ? "Black wins on time" : "White wins on time";
         state.endGame(result);
-        view.notifyTimeout(!isWhite); // Pass the winner
+        if (view != null) view.notifyTimeout(!isWhite); // Pass the winner
     }
 
     // Getters
@@ -236,4 +538,8 @@ public class GameController {
     public CheckmateDetector getCheckmateDetector() {
         return checkmateDetector;
     }
+
+    public Engine getEngine() {
+        return engine;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,382 @@
+package controller;
+
+import engine.Engine;
+import engine.SearchLimits;
+import engine.SearchResult;
+import model.ChessGame;
+import model.PackedMove;
+import model.Position;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Universal Chess Interface front-end, so chess GUIs and tournament managers
+ * such as cutechess-cli can play the engine over standard input and output.
+ * <p>
+ * Commands are read on the calling thread and never wait for a search: {@code go}
+ * starts the search on a thread of its own, which streams an {@code info} line
+ * per iteration, with {@code hashfull}, and ends with {@code bestmove}, so {@code stop},
+ * {@code ponderhit} and {@code isready} are answered while it runs. {@code stop}
+ * sends {@code bestmove} at once, from the calling thread, with the engine's
+ * best result so far ({@link Engine#getCurrentResult}); the search thread
+ * winds down behind it and its own result is dropped.
+ * <p>
+ * Supported: {@code uci}, {@code isready}, {@code ucinewgame},
+ * {@code position [startpos | fen <fen>] [moves <move>...]},
+ * {@code go [depth | nodes | movetime | wtime | btime | winc | binc | movestogo <n>] [infinite] [ponder]},
+ * {@code stop}, {@code ponderhit}, {@code setoption name <name> value <value>}
+ * for Hash, Threads, Ponder and MultiPV, and {@code quit}. With MultiPV above 1
+ * each iteration sends one {@code info} line per principal variation.
+ * <pre>
+ *   java -cp target/classes controller.Uci
+ * </pre>
+ */
+public class Uci {
+    private static final String NAME = "ChessGameRefactor";
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 64;
+    private static final int MAX_MULTI_PV = 256;
+
+    private final Engine engine = new Engine();
+    private final PrintStream out;
+    private ChessGame game = new ChessGame();
+
+    // The running search, and for "go infinite" its result held back until "stop"
+    private CompletableFuture<SearchResult> search;
+    private boolean infinite;
+    private boolean stopped;
+    // Set under the output lock, so no info line follows the bestmove
+    private volatile boolean answered = true;
+    private SearchResult heldResult;
+
+    /**
+     * Creates a front-end writing to a stream.
+     *
+     * @param out Where responses are written
+     */
+    public Uci(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Entry point: talks UCI over standard input and output.
+     *
+     * @param args Command line arguments (not used)
+     * @throws IOException if standard input cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        new Uci(System.out).run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+
+    /**
+     * Reads and answers commands until {@code quit} or the end of the input.
+     *
+     * @param in The command source
+     * @throws IOException if the input cannot be read
+     */
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line)) return;
+        }
+        stopSearch();
+    }
+
+    /**
+     * Answers one command. Unknown commands are ignored, as the protocol asks.
+     *
+     * @param line The command line
+     * @return false once the command was {@code quit}
+     */
+    public boolean handle(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        try {
+            switch (tokens[0]) {
+                case "uci":
+                    send("id name " + NAME);
+                    send("id author " + NAME + " contributors");
+                    send("option name Hash type spin default " + Engine.DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                    send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                    send("option name Ponder type check default false");
+                    send("option name MultiPV type spin default 1 min 1 max " + MAX_MULTI_PV);
+                    send("uciok");
+                    break;
+                case "isready":
+                    send("readyok");
+                    break;
+                case "ucinewgame":
+                    stopSearch();
+                    engine.newGame();
+                    game = new ChessGame();
+                    break;
+                case "position":
+                    stopSearch();
+                    position(tokens);
+                    break;
+                case "go":
+                    stopSearch();
+                    go(tokens);
+                    break;
+                case "stop":
+                    stop();
+                    break;
+                case "ponderhit":
+                    engine.ponderHit();
+                    break;
+                case "setoption":
+                    stopSearch();
+                    setOption(line);
+                    break;
+                case "quit":
+                    stopSearch();
+                    return false;
+                default:
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException for a malformed number
+            send("info string " + e.getMessage());
+        }
+        return true;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public ChessGame getGame() {
+        return game;
+    }
+
+    /*
+     * position [startpos | fen <fen>] [moves <move>...]
+     */
+    private void position(String[] tokens) {
+        int index = 1;
+        ChessGame newGame;
+        if (tokens.length > 1 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (index = 2; index < tokens.length && !tokens[index].equals("moves"); index++) {
+                fen.append(tokens[index]).append(' ');
+            }
+            newGame = new ChessGame(fen.toString());
+        } else if (tokens.length > 1 && tokens[1].equals("startpos")) {
+            newGame = new ChessGame();
+            index = 2;
+        } else {
+            throw new IllegalArgumentException("Expected startpos or fen: " + String.join(" ", tokens));
+        }
+
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            for (index++; index < tokens.length; index++) {
+                if (!newGame.play(tokens[index])) {
+                    throw new IllegalArgumentException("Illegal move: " + tokens[index]);
+                }
+            }
+        }
+        game = newGame;
+    }
+
+    /*
+     * go [depth | nodes | movetime | wtime | btime | winc | binc | movestogo <n>] [infinite] [ponder]
+     */
+    private void go(String[] tokens) {
+        SearchLimits limits = new SearchLimits();
+        boolean white = game.getSideToMove() == Position.WHITE;
+        long time = 0;
+        long increment = 0;
+        boolean goInfinite = false;
+
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "depth":
+                    limits.setDepth(Math.min(Integer.parseInt(argument(tokens, ++i)), Engine.MAX_PLY));
+                    break;
+                case "nodes":
+                    limits.setNodes(Long.parseLong(argument(tokens, ++i)));
+                    break;
+                case "movetime":
+                    limits.setMoveTime(Long.parseLong(argument(tokens, ++i)));
+                    break;
+                case "wtime":
+                case "btime":
+                    long clock = Long.parseLong(argument(tokens, ++i));
+                    if (tokens[i - 1].equals("wtime") == white) time = Math.max(1, clock);
+                    break;
+                case "winc":
+                case "binc":
+                    long inc = Long.parseLong(argument(tokens, ++i));
+                    if (tokens[i - 1].equals("winc") == white) increment = Math.max(0, inc);
+                    break;
+                case "movestogo":
+                    limits.setMovesToGo(Integer.parseInt(argument(tokens, ++i)));
+                    break;
+                case "infinite":
+                    goInfinite = true;
+                    break;
+                case "ponder":
+                    limits.setPonder(true);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (time > 0) limits.setClock(time, increment);
+
+        synchronized (this) {
+            infinite = goInfinite;
+            stopped = false;
+            answered = false;
+            heldResult = null;
+            search = engine.searchAsync(game.getPosition(), limits, this::sendInfo)
+                    .thenApply(this::searchDone);
+        }
+    }
+
+    /*
+     * Called on the search thread when the search ends.
+     */
+    private synchronized SearchResult searchDone(SearchResult result) {
+        if (answered) return result;
+        if (infinite && !stopped) {
+            heldResult = result;
+        } else {
+            answer(result);
+        }
+        return result;
+    }
+
+    /*
+     * Answers a stop at once with the best result so far, rather than after
+     * the search thread has noticed the stop and unwound.
+     */
+    private synchronized void stop() {
+        stopped = true;
+        engine.stop();
+        if (answered) return;
+
+        answer(heldResult != null ? heldResult : engine.getCurrentResult());
+        heldResult = null;
+    }
+
+    private void answer(SearchResult result) {
+        synchronized (out) {
+            sendBestMove(result);
+            answered = true;
+        }
+    }
+
+    /*
+     * Stops any running search and waits for its bestmove, so the next
+     * command starts from a quiet engine.
+     */
+    private void stopSearch() {
+        CompletableFuture<SearchResult> running;
+        synchronized (this) {
+            running = search;
+            search = null;
+        }
+        if (running == null) return;
+
+        stop();
+        try {
+            running.join();
+        } catch (CompletionException e) {
+            send("info string search failed: " + e.getCause());
+        }
+    }
+
+    /*
+     * Gets the value following a keyword of a command.
+     */
+    private static String argument(String[] tokens, int index) {
+        if (index >= tokens.length) {
+            throw new IllegalArgumentException("Missing value after " + tokens[index - 1]);
+        }
+        return tokens[index];
+    }
+
+    /*
+     * Called on the search thread for each iteration. Nothing more is sent
+     * once a stop has been answered. The line is formatted before taking the
+     * output lock, so a stop never waits for more than a print.
+     */
+    private void sendInfo(SearchResult result) {
+        String line = info(result);
+        synchronized (out) {
+            if (!answered) send(line);
+        }
+        // On a busy core, a stop waiting for the output lock would otherwise wait for the time slice to end
+        Thread.yield();
+    }
+
+    /*
+     * Formats an iteration as an info line, with how full the hash table is.
+     * The principal variation stays last, as it runs to the end of the line.
+     */
+    private String info(SearchResult result) {
+        String line = result.toString();
+        int pv = line.indexOf(" pv");
+        return "info " + line.substring(0, pv) + " hashfull " + engine.getTranspositionTable().getHashfull()
+                + line.substring(pv);
+    }
+
+    private void sendBestMove(SearchResult result) {
+        if (result == null || result.getBestMove() == PackedMove.NONE) {
+            send("bestmove 0000");
+            return;
+        }
+
+        // A StringBuilder, as the first string concatenation at a site takes milliseconds to link
+        int[] pv = result.getPv();
+        StringBuilder sb = new StringBuilder("bestmove ").append(PackedMove.toString(result.getBestMove()));
+        if (pv.length > 1) sb.append(" ponder ").append(PackedMove.toString(pv[1]));
+        send(sb.toString());
+    }
+
+    /*
+     * setoption name <name> [value <value>]; names may contain spaces.
+     */
+    private void setOption(String line) {
+        int nameStart = line.indexOf(" name ");
+        if (nameStart < 0) throw new IllegalArgumentException("Expected an option name: " + line);
+        int valueStart = line.indexOf(" value ", nameStart);
+        String name = (valueStart < 0 ? line.substring(nameStart + 6) : line.substring(nameStart + 6, valueStart)).trim();
+        String value = valueStart < 0 ? "" : line.substring(valueStart + 7).trim();
+
+        switch (name.toLowerCase()) {
+            case "hash":
+                int sizeMB = Integer.parseInt(value);
+                if (sizeMB > MAX_HASH_MB) throw new IllegalArgumentException("Hash is at most " + MAX_HASH_MB + " MB");
+                engine.setHashSize(sizeMB);
+                break;
+            case "threads":
+                int threads = Integer.parseInt(value);
+                if (threads > MAX_THREADS) throw new IllegalArgumentException("Threads are at most " + MAX_THREADS);
+                engine.setThreads(threads);
+                break;
+            case "multipv":
+                int lines = Integer.parseInt(value);
+                if (lines > MAX_MULTI_PV) throw new IllegalArgumentException("MultiPV is at most " + MAX_MULTI_PV);
+                engine.setMultiPv(lines);
+                break;
+            case "ponder":
+                // The GUI decides when to ponder with "go ponder"
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + name);
+        }
+    }
+
+    private void send(String message) {
+        synchronized (out) {
+            out.println(message);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package engine;
+
+import model.MoveGenerator;
+import model.MoveList;
+import model.PackedMove;
+import model.Position;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computer opponent: finds a move for the side to move of a position by
+ * iterative deepening over a negamax alpha-beta search, within a depth, node
+ * and time budget. Every completed iteration reports its depth, score,
+ * principal variation, node count and speed.
+ * <p>
+ * A search runs on the calling thread; {@link #stop()} may be called from any
+ * other thread to end it early with the best move found so far. With more than
+ * one thread (Lazy SMP), helper threads search the same position alongside it
+ * and share the transposition table; results still come from the calling thread.
+ * {@link #searchAsync} runs the same search on a thread of its own.
+ * <p>
+ * A ponder search ({@link SearchLimits#setPonder}) runs on the opponent's time
+ * without a time budget until {@link #ponderHit()} says the expected move was
+ * played, and from then on under its limits, or until {@link #stop()} says it
+ * was not. Either way the transposition table keeps what it learned.
+ * <p>
+ * With {@link #setMultiPv} above 1 the search reports the best few lines
+ * instead of one, for analysis.
+ * <p>
+ * Run from the command line to see the iterations of one search:
+ * <pre>
+ *   java -cp target/classes engine.Engine 6 [fen]
+ *   java -cp target/classes engine.Engine --movetime 1000 [fen]
+ *   java -cp target/classes engine.Engine --multipv 3 8 [fen]
+ * </pre>
+ */
+public class Engine {
+    public static final int MAX_PLY = 128;
+    public static final int MATE = 32000;
+    public static final int INFINITY = 32001;
+    public static final int DRAW = 0;
+    public static final int DEFAULT_HASH_MB = 16;
+
+    // Passed down branches that are not on the previous principal variation
+    static final int[] NO_PV = new int[0];
+
+    private final Evaluator evaluator;
+    private TranspositionTable transpositionTable = new TranspositionTable(DEFAULT_HASH_MB);
+    private volatile boolean stopRequested;
+    private volatile boolean helpersStopped;
+    private volatile boolean pondering;
+    private volatile long ponderHitNanos;
+    private volatile SearchResult currentResult;
+    private final Object ponderLock = new Object();
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong cutoffs = new AtomicLong();
+    private final AtomicLong firstMoveCutoffs = new AtomicLong();
+    private int threads = 1;
+    private int multiPv = 1;
+    private final SearchOptions options = new SearchOptions();
+    private SearchResult lastResult;
+    private List<SearchResult> lastLines = List.of();
+
+    /**
+     * Creates an engine with the tapered material and piece-square evaluation.
+     */
+    public Engine() {
+        this(new TaperedEvaluator());
+    }
+
+    /**
+     * Creates an engine with a given evaluation.
+     *
+     * @param evaluator The static evaluation used at the leaves
+     */
+    public Engine(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Searches a position for the side to move.
+     *
+     * @param position The position; it is copied and left untouched
+     * @param limits The depth, node and time budget
+     * @return The result of the deepest completed iteration
+     */
+    public SearchResult search(Position position, SearchLimits limits) {
+        return search(position, limits, null);
+    }
+
+    /**
+     * Searches a position for the side to move, reporting every iteration.
+     *
+     * @param position The position; it is copied and left untouched
+     * @param limits The depth, node and time budget
+     * @param listener Told about each completed iteration, or null
+     * @return The result of the deepest completed iteration
+     */
+    public SearchResult search(Position position, SearchLimits limits, SearchListener listener) {
+        Position root = new Position(position);
+        prepare(root, limits);
+        return run(root, limits, listener);
+    }
+
+    /**
+     * Starts a search on a new thread and returns at once. A {@link #stop()} or
+     * {@link #ponderHit()} called after this returns is never lost, even if
+     * the search thread has not got going yet. Only one search may run at a time.
+     *
+     * @param position The position; it is copied and left untouched
+     * @param limits The depth, node and time budget
+     * @param listener Told about each completed iteration on the search thread, or null
+     * @return The result of the deepest completed iteration, once the search ends
+     */
+    public CompletableFuture<SearchResult> searchAsync(Position position, SearchLimits limits,
+                                                      SearchListener listener) {
+        Position root = new Position(position);
+        prepare(root, limits);
+
+        CompletableFuture<SearchResult> future = new CompletableFuture<SearchResult>();
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(run(root, limits, listener));
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        }, "search-main");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /*
+     * Resets the flags and counters of the previous search.
+     */
+    private void prepare(Position root, SearchLimits limits) {
+        stopRequested = false;
+        helpersStopped = false;
+        pondering = limits.isPonder();
+        nodes.set(0);
+        cutoffs.set(0);
+        firstMoveCutoffs.set(0);
+        transpositionTable.newSearch();
+        currentResult = fallbackResult(root);
+    }
+
+    /*
+     * The answer before the first iteration completes: the move stored for the
+     * root if it is legal, else the first legal move, at depth 0. Null when
+     * there is no legal move.
+     */
+    private SearchResult fallbackResult(Position root) {
+        MoveList moves = new MoveList();
+        if (new MoveGenerator().generateMoves(root, moves) == 0) return null;
+
+        long entry = transpositionTable.probe(root.getKey());
+        if (entry != 0 && moves.contains(TranspositionTable.move(entry))) {
+            return new SearchResult(TranspositionTable.score(entry, 0), 0, 0, 0, new int[]{TranspositionTable.move(entry)});
+        }
+        return new SearchResult(0, 0, 0, 0, new int[]{moves.get(0)});
+    }
+
+    private SearchResult run(Position root, SearchLimits limits, SearchListener listener) {
+        Thread[] helpers = new Thread[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            Searcher helper = new Searcher(this, evaluator, i + 1);
+            helpers[i] = new Thread(() -> helper.iterate(root, limits, null), "search-helper-" + (i + 1));
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+
+        try {
+            Searcher main = new Searcher(this, evaluator, 0);
+            lastResult = main.iterate(root, limits, listener);
+            lastLines = List.of(main.getLines());
+        } finally {
+            helpersStopped = true;
+            for (Thread helper : helpers) {
+                try {
+                    helper.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        return lastResult;
+    }
+
+    /**
+     * Asks a running search to stop. It returns the best move of the last
+     * completed iteration shortly after.
+     */
+    public void stop() {
+        synchronized (ponderLock) {
+            stopRequested = true;
+            ponderLock.notifyAll();
+        }
+    }
+
+    /**
+     * Tells a ponder search that the opponent played the expected move: the
+     * search goes on, now under its limits, with the time counted from here.
+     */
+    public void ponderHit() {
+        synchronized (ponderLock) {
+            ponderHitNanos = System.nanoTime();
+            pondering = false;
+            ponderLock.notifyAll();
+        }
+    }
+
+    /**
+     * Checks whether the current search is still pondering, waiting for
+     * {@link #ponderHit()} or {@link #stop()}.
+     *
+     * @return true while pondering
+     */
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    long getPonderHitNanos() {
+        return ponderHitNanos;
+    }
+
+    /*
+     * Holds a ponder search that has nothing left to search until the ponder
+     * hit or the stop, so its result never arrives while the opponent is to move.
+     */
+    void awaitPonderEnd() {
+        synchronized (ponderLock) {
+            while (pondering && !stopRequested) {
+                try {
+                    ponderLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets how many threads search: the calling thread plus helpers.
+     *
+     * @param threads The thread count, at least 1
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets how many principal variations to search, for analysis. Each
+     * iteration then reports the best lines, each with its own first move,
+     * ranked by score; only as many as there are legal moves. The move to
+     * play is still the first line's.
+     *
+     * @param lines The number of lines, at least 1; 1 is a normal search
+     */
+    public void setMultiPv(int lines) {
+        if (lines < 1) {
+            throw new IllegalArgumentException("Multi-PV line count must be at least 1: " + lines);
+        }
+        this.multiPv = lines;
+    }
+
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    /**
+     * Gets the switches for the pruning and reduction techniques, to change
+     * them before a search.
+     *
+     * @return The options of this engine
+     */
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Replaces the transposition table with an empty one of a new size.
+     * Must not be called during a search.
+     *
+     * @param sizeMB The memory budget in megabytes, at least 1
+     */
+    public void setHashSize(int sizeMB) {
+        transpositionTable = new TranspositionTable(sizeMB);
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * Forgets everything learned in earlier searches, for a new game.
+     */
+    public void newGame() {
+        transpositionTable.clear();
+    }
+
+    /**
+     * Gets the best answer of the running or last search so far: its deepest
+     * completed iteration, or a legal move at depth 0 before the first one
+     * completes. Safe to call from any thread, so a stop can be answered
+     * without waiting for the search to wind down.
+     *
+     * @return The result, or null before the first search and while a position
+     *         without a legal move waits for its first iteration
+     */
+    public SearchResult getCurrentResult() {
+        return currentResult;
+    }
+
+    void setCurrentResult(SearchResult result) {
+        currentResult = result;
+    }
+
+    boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    boolean isHelpersStopped() {
+        return helpersStopped;
+    }
+
+    /**
+     * Gets the nodes searched by all threads in the current or last search.
+     *
+     * @return The node count
+     */
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    void addCounters(long nodeCount, long cutoffCount, long firstMoveCutoffCount) {
+        nodes.addAndGet(nodeCount);
+        cutoffs.addAndGet(cutoffCount);
+        firstMoveCutoffs.addAndGet(firstMoveCutoffCount);
+    }
+
+    /**
+     * Gets the number of beta cutoffs in the current or last search.
+     *
+     * @return The cutoff count
+     */
+    public long getCutoffs() {
+        return cutoffs.get();
+    }
+
+    /**
+     * Gets the number of beta cutoffs caused by the first move searched at a node.
+     *
+     * @return The first-move cutoff count
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs.get();
+    }
+
+    /**
+     * Gets the fraction of cutoffs caused by the first move searched, the
+     * usual measure of move ordering quality.
+     *
+     * @return The rate between 0 and 1
+     */
+    public double getFirstMoveCutoffRate() {
+        long cutoffCount = cutoffs.get();
+        return cutoffCount == 0 ? 0.0 : (double) firstMoveCutoffs.get() / cutoffCount;
+    }
+
+    /**
+     * Gets the result of the most recent search.
+     *
+     * @return The result, or null before the first search
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Gets every line of the last completed iteration of the most recent
+     * search, best first; a single line outside multi-PV mode.
+     *
+     * @return An unmodifiable list, empty before the first search
+     */
+    public List<SearchResult> getLastLines() {
+        return lastLines;
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * Checks whether a score announces a forced mate for either side.
+     *
+     * @param score A search score
+     * @return true for a mate score
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    /**
+     * Command line entry point: searches a position and prints every iteration.
+     *
+     * @param args An optional --multipv and line count, a depth or --movetime and
+     *             milliseconds, then an optional FEN
+     */
+    public static void main(String[] args) {
+        try {
+            Engine engine = new Engine();
+            if (args.length > 1 && args[0].equals("--multipv")) {
+                engine.setMultiPv(Integer.parseInt(args[1]));
+                args = Arrays.copyOfRange(args, 2, args.length);
+            }
+            if (args.length < 1) {
+                System.err.println("Usage: Engine [--multipv <lines>] <depth> [fen] | Engine [--multipv <lines>] --movetime <ms> [fen]");
+                System.exit(2);
+            }
+
+            SearchLimits limits;
+            int fenIndex = 1;
+            if (args[0].equals("--movetime") && args.length > 1) {
+                limits = SearchLimits.moveTime(Long.parseLong(args[1]));
+                fenIndex = 2;
+            } else {
+                limits = SearchLimits.depth(Integer.parseInt(args[0]));
+            }
+            Position position = (args.length > fenIndex) ? Position.fromFen(args[fenIndex]) : Position.startPosition();
+
+            SearchResult result = engine.search(position, limits, r -> System.out.println("info " + r));
+            System.out.println(engine.getTranspositionTable());
+            if (engine.getEvaluator() instanceof TaperedEvaluator) {
+                System.out.println(((TaperedEvaluator) engine.getEvaluator()).getPawnHashTable());
+            }
+            System.out.printf("Cutoffs: %d, %.1f%% on the first move%n", engine.getCutoffs(),
+                    100 * engine.getFirstMoveCutoffRate());
+            System.out.println("bestmove " + (result == null ? "0000" : PackedMove.toString(result.getBestMove())));
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException for a malformed number
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package engine;
+
+import model.Position;
+
+/**
+ * Static evaluation used at the leaves of the search.
+ */
+public interface Evaluator {
+    /**
+     * Scores a position without searching it.
+     *
+     * @param position The position to score
+     * @return The score in centipawns from the point of view of the side to move
+     */
+    int evaluate(Position position);
+}
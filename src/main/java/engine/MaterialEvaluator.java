@@ -0,0 +1,21 @@
+package engine;
+
+import model.Position;
+
+/**
+ * Evaluates positions by counting material, using the piece values of
+ * {@link Position#pieceValue} scaled to centipawns.
+ */
+public class MaterialEvaluator implements Evaluator {
+    @Override
+    public int evaluate(Position position) {
+        int score = 0;
+        // The king is not counted
+        for (int type = Position.PAWN; type < Position.KING; type++) {
+            int count = Long.bitCount(position.pieces(Position.WHITE, type))
+                    - Long.bitCount(position.pieces(Position.BLACK, type));
+            score += count * 100 * Position.pieceValue(type);
+        }
+        return position.getSideToMove() == Position.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,224 @@
+package engine;
+
+import model.MoveList;
+import model.PackedMove;
+import model.Position;
+import model.StaticExchange;
+
+/**
+ * Hands out the legal moves of one node in stages, best guesses first, so a
+ * node that is cut off early never scores the moves it did not need:
+ * <ol>
+ *   <li>the hash move (or the previous principal variation move)</li>
+ *   <li>captures and promotions that do not lose material by static exchange,
+ *       most valuable victim first, then least valuable attacker</li>
+ *   <li>the two killer moves of this ply</li>
+ *   <li>the remaining quiet moves, by history score, then the losing captures</li>
+ * </ol>
+ * Within a stage the best remaining move is selected on demand rather than
+ * sorting the whole stage up front. For quiescence search the picker can stop
+ * after the winning and even captures.
+ */
+class MovePicker {
+    private static final int STAGE_HASH = 0;
+    private static final int STAGE_CAPTURES_INIT = 1;
+    private static final int STAGE_CAPTURES = 2;
+    private static final int STAGE_KILLERS = 3;
+    private static final int STAGE_QUIETS_INIT = 4;
+    private static final int STAGE_QUIETS = 5;
+    private static final int STAGE_DONE = 6;
+
+    // Losing captures sort below every history score
+    private static final int BAD_CAPTURE_SCORE = Integer.MIN_VALUE / 2;
+
+    private final int[] scores = new int[MoveList.MAX_MOVES];
+    private final int[] exchange = new int[StaticExchange.MAX_CAPTURES];
+
+    private MoveList moves;
+    private Position position;
+    private int[] history;
+    private int hashMove;
+    private int killer1;
+    private int killer2;
+    private boolean noisyOnly;
+    private int stage;
+    // Moves before next have been handed out; [next, stageEnd) is the current stage
+    private int next;
+    private int stageEnd;
+
+    /**
+     * Starts picking from a list of legal moves.
+     *
+     * @param position The position the moves are for
+     * @param moves The legal moves; they are reordered in place
+     * @param hashMove The move to try first, or NONE
+     * @param killers The killer moves of this ply, two entries
+     * @param history The history scores of the side to move, indexed by from * 64 + to
+     */
+    void init(Position position, MoveList moves, int hashMove, int[] killers, int[] history) {
+        this.position = position;
+        this.moves = moves;
+        this.hashMove = hashMove;
+        this.killer1 = killers[0];
+        this.killer2 = killers[1];
+        this.history = history;
+        this.noisyOnly = false;
+        this.stage = STAGE_HASH;
+        this.next = 0;
+        this.stageEnd = 0;
+    }
+
+    /**
+     * Starts picking only the captures and promotions of a list of legal moves
+     * that do not lose material, for quiescence search.
+     *
+     * @param position The position the moves are for
+     * @param moves The legal moves; they are reordered in place
+     */
+    void initNoisy(Position position, MoveList moves) {
+        this.position = position;
+        this.moves = moves;
+        this.hashMove = PackedMove.NONE;
+        this.killer1 = PackedMove.NONE;
+        this.killer2 = PackedMove.NONE;
+        this.noisyOnly = true;
+        this.stage = STAGE_CAPTURES_INIT;
+        this.next = 0;
+        this.stageEnd = 0;
+    }
+
+    /**
+     * Gets the next move to search.
+     *
+     * @return The move, or NONE when every move has been handed out
+     */
+    int next() {
+        switch (stage) {
+            case STAGE_HASH:
+                stage = STAGE_CAPTURES_INIT;
+                if (hashMove != PackedMove.NONE && swapToNext(hashMove)) return moves.get(next++);
+                // fall through
+            case STAGE_CAPTURES_INIT:
+                stageEnd = next;
+                for (int i = next; i < moves.size(); i++) {
+                    int move = moves.get(i);
+                    if (isNoisy(move) && !isLosing(move)) {
+                        swap(i, stageEnd);
+                        scores[stageEnd++] = mvvLva(move);
+                    }
+                }
+                stage = STAGE_CAPTURES;
+                // fall through
+            case STAGE_CAPTURES:
+                if (next < stageEnd) return pickBest();
+                if (noisyOnly) {
+                    stage = STAGE_DONE;
+                    return PackedMove.NONE;
+                }
+                stage = STAGE_KILLERS;
+                // fall through
+            case STAGE_KILLERS:
+                // Killers are quiet by construction, so they are only found among the quiet moves left
+                if (killer1 != PackedMove.NONE && swapToNext(killer1)) {
+                    killer1 = PackedMove.NONE;
+                    return moves.get(next++);
+                }
+                if (killer2 != PackedMove.NONE && swapToNext(killer2)) {
+                    killer2 = PackedMove.NONE;
+                    return moves.get(next++);
+                }
+                stage = STAGE_QUIETS_INIT;
+                // fall through
+            case STAGE_QUIETS_INIT:
+                stageEnd = moves.size();
+                for (int i = next; i < stageEnd; i++) {
+                    int move = moves.get(i);
+                    // Only the losing captures are still noisy here
+                    scores[i] = isNoisy(move) ? BAD_CAPTURE_SCORE + mvvLva(move)
+                            : history[PackedMove.from(move) * 64 + PackedMove.to(move)];
+                }
+                stage = STAGE_QUIETS;
+                // fall through
+            case STAGE_QUIETS:
+                if (next < stageEnd) return pickBest();
+                stage = STAGE_DONE;
+                // fall through
+            default:
+                return PackedMove.NONE;
+        }
+    }
+
+    /**
+     * Checks whether a move changes material: a capture or a promotion.
+     *
+     * @param move The packed move
+     * @return true for captures, en passant and promotions
+     */
+    static boolean isNoisy(int move) {
+        return PackedMove.isCapture(move) || PackedMove.isPromotion(move);
+    }
+
+    /*
+     * Checks whether a capture or promotion loses material once the exchange is
+     * played out. Taking a piece worth at least the attacker never does, so the
+     * exchange is only evaluated for the others.
+     */
+    private boolean isLosing(int move) {
+        int attacker = Position.pieceValue(position.typeAt(PackedMove.from(move)));
+        int victim = !PackedMove.isCapture(move) ? 0
+                : PackedMove.isEnPassant(move) ? Position.pieceValue(Position.PAWN)
+                : Position.pieceValue(position.typeAt(PackedMove.to(move)));
+        return attacker > victim && StaticExchange.evaluate(position, move, exchange) < 0;
+    }
+
+    /*
+     * Scores a capture or promotion: the victim dominates, the attacker breaks
+     * ties, and a promotion counts the piece gained.
+     */
+    private int mvvLva(int move) {
+        int to = PackedMove.to(move);
+        int score = 0;
+        if (PackedMove.isCapture(move)) {
+            int victim = PackedMove.isEnPassant(move) ? Position.PAWN : position.typeAt(to);
+            score += Position.pieceValue(victim) * 16;
+        }
+        if (PackedMove.isPromotion(move)) {
+            score += Position.pieceValue(PackedMove.promotion(move)) * 16;
+        }
+        return score - Position.pieceValue(position.typeAt(PackedMove.from(move)));
+    }
+
+    /*
+     * Hands out the best scored move left in the current stage.
+     */
+    private int pickBest() {
+        int best = next;
+        for (int i = next + 1; i < stageEnd; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        swap(best, next);
+        return moves.get(next++);
+    }
+
+    /*
+     * Moves a move that has not been handed out yet to the next slot.
+     */
+    private boolean swapToNext(int move) {
+        for (int i = next; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                swap(i, next);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void swap(int i, int j) {
+        int move = moves.get(i);
+        moves.set(i, moves.get(j));
+        moves.set(j, move);
+        int score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
@@ -0,0 +1,167 @@
+package engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import model.PieceListener;
+import model.Position;
+
+/**
+ * The hidden layer of an {@link NnueNetwork} for one position, one accumulator
+ * per side. Attached to a {@link Position} as its {@link PieceListener}, it
+ * adds or subtracts a weight column for every piece the position places or
+ * removes, so making or unmaking a move costs a few vector additions instead
+ * of summing the columns of every piece on the board.
+ * <p>
+ * Every loop has a scalar version, used when vectorization is turned off and
+ * for the lanes left over at the end of a vectorized loop.
+ */
+class NnueAccumulator implements PieceListener {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    // Widening a short vector yields half its lanes as ints in a vector of the same size
+    private static final VectorSpecies<Integer> INT_SPECIES = VectorSpecies.of(int.class, SPECIES.vectorShape());
+
+    private final NnueNetwork network;
+    private final boolean vectorized;
+    private final int hidden;
+    private final short[] weights;
+    private final short[][] accumulators;
+
+    NnueAccumulator(NnueNetwork network, boolean vectorized) {
+        this.network = network;
+        this.vectorized = vectorized;
+        this.hidden = network.getHidden();
+        this.weights = network.getFeatureWeights();
+        this.accumulators = new short[2][hidden];
+    }
+
+    /**
+     * Recomputes both accumulators from the pieces of a position.
+     *
+     * @param position The position
+     */
+    void refresh(Position position) {
+        for (int perspective = Position.BLACK; perspective <= Position.WHITE; perspective++) {
+            System.arraycopy(network.getFeatureBias(), 0, accumulators[perspective], 0, hidden);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = position.pieceAt(sq);
+            if (piece != Position.EMPTY) pieceAdded(piece, sq);
+        }
+    }
+
+    @Override
+    public void pieceAdded(int piece, int sq) {
+        for (int perspective = Position.BLACK; perspective <= Position.WHITE; perspective++) {
+            int offset = NnueNetwork.feature(perspective, piece, sq) * hidden;
+            if (vectorized) {
+                addVector(accumulators[perspective], offset);
+            } else {
+                addScalar(accumulators[perspective], offset, 0);
+            }
+        }
+    }
+
+    @Override
+    public void pieceRemoved(int piece, int sq) {
+        for (int perspective = Position.BLACK; perspective <= Position.WHITE; perspective++) {
+            int offset = NnueNetwork.feature(perspective, piece, sq) * hidden;
+            if (vectorized) {
+                subtractVector(accumulators[perspective], offset);
+            } else {
+                subtractScalar(accumulators[perspective], offset, 0);
+            }
+        }
+    }
+
+    /**
+     * Computes the output of the network: both accumulators through a clipped
+     * ReLU, weighted and summed, side to move first.
+     *
+     * @param sideToMove The side to move
+     * @return The output sum, before the bias and scale
+     */
+    int output(int sideToMove) {
+        short[] outputWeights = network.getOutputWeights();
+        if (vectorized) {
+            return outputVector(accumulators[sideToMove], outputWeights, 0)
+                    + outputVector(accumulators[sideToMove ^ 1], outputWeights, hidden);
+        }
+        return outputScalar(accumulators[sideToMove], outputWeights, 0, 0)
+                + outputScalar(accumulators[sideToMove ^ 1], outputWeights, hidden, 0);
+    }
+
+    NnueNetwork getNetwork() {
+        return network;
+    }
+
+    boolean isVectorized() {
+        return vectorized;
+    }
+
+    short[] getAccumulator(int perspective) {
+        return accumulators[perspective];
+    }
+
+    private void addVector(short[] accumulator, int offset) {
+        int bound = SPECIES.loopBound(hidden);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ShortVector.fromArray(SPECIES, accumulator, i)
+                    .add(ShortVector.fromArray(SPECIES, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        addScalar(accumulator, offset, i);
+    }
+
+    private void addScalar(short[] accumulator, int offset, int from) {
+        for (int i = from; i < hidden; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    private void subtractVector(short[] accumulator, int offset) {
+        int bound = SPECIES.loopBound(hidden);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ShortVector.fromArray(SPECIES, accumulator, i)
+                    .sub(ShortVector.fromArray(SPECIES, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        subtractScalar(accumulator, offset, i);
+    }
+
+    private void subtractScalar(short[] accumulator, int offset, int from) {
+        for (int i = from; i < hidden; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    /*
+     * Clipped neurons times weights of at most 127 fit in a short, so the
+     * products are formed in short lanes and only widened to int for the sum.
+     */
+    private int outputVector(short[] accumulator, short[] outputWeights, int offset) {
+        int bound = SPECIES.loopBound(hidden);
+        IntVector sum = IntVector.zero(INT_SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            ShortVector product = ShortVector.fromArray(SPECIES, accumulator, i)
+                    .max((short) 0).min((short) NnueNetwork.CLIP)
+                    .mul(ShortVector.fromArray(SPECIES, outputWeights, offset + i));
+            sum = sum.add((IntVector) product.convert(VectorOperators.S2I, 0))
+                    .add((IntVector) product.convert(VectorOperators.S2I, 1));
+        }
+        return sum.reduceLanes(VectorOperators.ADD) + outputScalar(accumulator, outputWeights, offset, i);
+    }
+
+    private int outputScalar(short[] accumulator, short[] outputWeights, int offset, int from) {
+        int sum = 0;
+        for (int i = from; i < hidden; i++) {
+            int neuron = Math.max(0, Math.min(NnueNetwork.CLIP, accumulator[i]));
+            sum += neuron * outputWeights[offset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,72 @@
+package engine;
+
+import model.Position;
+
+/**
+ * Evaluates positions with an {@link NnueNetwork}.
+ * <p>
+ * The first evaluation of a position attaches an {@link NnueAccumulator} to it,
+ * which from then on follows every make and unmake incrementally. Each search
+ * thread works on its own copy of the root position, so each gets its own
+ * accumulator and the evaluator can be shared between threads.
+ * <p>
+ * The accumulator loops use the incubating Vector API, so the JVM must be
+ * started with {@code --add-modules jdk.incubator.vector}; the scalar loops
+ * are kept for comparison and for debugging.
+ */
+public class NnueEvaluator implements Evaluator {
+    private final NnueNetwork network;
+    private final boolean vectorized;
+
+    /**
+     * Creates a vectorized evaluator.
+     *
+     * @param network The network
+     */
+    public NnueEvaluator(NnueNetwork network) {
+        this(network, true);
+    }
+
+    /**
+     * Creates an evaluator.
+     *
+     * @param network The network
+     * @param vectorized true to use the Vector API, false for plain loops
+     */
+    public NnueEvaluator(NnueNetwork network, boolean vectorized) {
+        this.network = network;
+        this.vectorized = vectorized;
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        int output = accumulator(position).output(position.getSideToMove()) + network.getOutputBias();
+        return (int) (((long) output * network.getOutputScale()) >> 10);
+    }
+
+    /*
+     * Gets the accumulator following a position, attaching a fresh one the
+     * first time this evaluator sees the position.
+     */
+    NnueAccumulator accumulator(Position position) {
+        if (position.getPieceListener() instanceof NnueAccumulator) {
+            NnueAccumulator accumulator = (NnueAccumulator) position.getPieceListener();
+            if (accumulator.getNetwork() == network && accumulator.isVectorized() == vectorized) {
+                return accumulator;
+            }
+        }
+
+        NnueAccumulator accumulator = new NnueAccumulator(network, vectorized);
+        accumulator.refresh(position);
+        position.setPieceListener(accumulator);
+        return accumulator;
+    }
+
+    public NnueNetwork getNetwork() {
+        return network;
+    }
+
+    public boolean isVectorized() {
+        return vectorized;
+    }
+}
@@ -0,0 +1,208 @@
+package engine;
+
+import model.PieceSquareTables;
+import model.Position;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Quantized weights of an efficiently updatable neural network (NNUE) for
+ * {@link NnueEvaluator}.
+ * <p>
+ * The inputs are 768 features, one per piece (ours or theirs, by type) on a
+ * square, seen from one side: for black the board is flipped, so both sides
+ * share the weights. Each side has an accumulator of {@code hidden} 16-bit
+ * neurons: the feature bias plus the weight column of every piece on the
+ * board. The output is a weighted sum of both accumulators, clipped to
+ * [0, {@link #CLIP}], side to move first, plus a bias, scaled to centipawns by
+ * {@code outputScale / 1024}.
+ * <p>
+ * File format, little-endian: the magic "NNUE", a version int, the hidden size
+ * int and the output scale int, then the feature weights (768 &times; hidden
+ * shorts, feature-major), the feature biases (hidden shorts), the output weights
+ * (2 &times; hidden shorts, each within &plusmn;{@link #MAX_OUTPUT_WEIGHT}) and
+ * the output bias int.
+ */
+public class NnueNetwork {
+    public static final int INPUTS = 768;
+    public static final int CLIP = 255;
+    public static final int MAX_OUTPUT_WEIGHT = 127;
+
+    private static final int MAGIC = 0x45554E4E; // "NNUE" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    // Offset that keeps the king's feature weights positive; it cancels out between the sides
+    private static final int KING_OFFSET = 100;
+
+    private final int hidden;
+    private final int outputScale;
+    private final short[] featureWeights;
+    private final short[] featureBias;
+    private final short[] outputWeights;
+    private final int outputBias;
+
+    /**
+     * Creates a network from its weights. The arrays are used directly, not copied.
+     *
+     * @param hidden The number of neurons per side
+     * @param outputScale The factor, over 1024, from the output sum to centipawns
+     * @param featureWeights INPUTS &times; hidden weights, feature-major
+     * @param featureBias hidden biases
+     * @param outputWeights 2 &times; hidden weights, side to move first
+     * @param outputBias The output bias
+     */
+    public NnueNetwork(int hidden, int outputScale, short[] featureWeights, short[] featureBias,
+                       short[] outputWeights, int outputBias) {
+        if (hidden < 1 || featureWeights.length != INPUTS * hidden || featureBias.length != hidden
+                || outputWeights.length != 2 * hidden) {
+            throw new IllegalArgumentException("Network weights do not match a hidden size of " + hidden);
+        }
+        for (short weight : outputWeights) {
+            if (Math.abs(weight) > MAX_OUTPUT_WEIGHT) {
+                throw new IllegalArgumentException("Output weight out of range: " + weight);
+            }
+        }
+
+        this.hidden = hidden;
+        this.outputScale = outputScale;
+        this.featureWeights = featureWeights;
+        this.featureBias = featureBias;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Loads a network from a file, reading it through a memory-mapped buffer.
+     *
+     * @param path The network file
+     * @return The network
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a network or is truncated
+     */
+    public static NnueNetwork load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a network file: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported network version " + version + ": " + path);
+            }
+            int hidden = buffer.getInt();
+            int outputScale = buffer.getInt();
+            if (hidden < 1 || buffer.remaining() != (long) (INPUTS + 3) * hidden * Short.BYTES + Integer.BYTES) {
+                throw new IllegalArgumentException("Truncated or oversized network file: " + path);
+            }
+
+            short[] featureWeights = new short[INPUTS * hidden];
+            short[] featureBias = new short[hidden];
+            short[] outputWeights = new short[2 * hidden];
+            buffer.asShortBuffer().get(featureWeights);
+            buffer.position(buffer.position() + featureWeights.length * Short.BYTES);
+            buffer.asShortBuffer().get(featureBias);
+            buffer.position(buffer.position() + featureBias.length * Short.BYTES);
+            buffer.asShortBuffer().get(outputWeights);
+            buffer.position(buffer.position() + outputWeights.length * Short.BYTES);
+
+            return new NnueNetwork(hidden, outputScale, featureWeights, featureBias, outputWeights, buffer.getInt());
+        }
+    }
+
+    /**
+     * Writes the network in the format {@link #load} reads.
+     *
+     * @param path The file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (INPUTS + 3) * hidden * Short.BYTES + Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hidden).putInt(outputScale);
+        for (short weight : featureWeights) buffer.putShort(weight);
+        for (short bias : featureBias) buffer.putShort(bias);
+        for (short weight : outputWeights) buffer.putShort(weight);
+        buffer.putInt(outputBias);
+        Files.write(path, buffer.array());
+    }
+
+    /**
+     * Builds a network that reproduces the middlegame material and piece-square
+     * values of {@link PieceSquareTables}, as a stand-in until a trained network
+     * is available. Every piece of the own side lights one neuron by its value
+     * in units of 5 centipawns; no two pieces share a neuron, so nothing is clipped.
+     *
+     * @return The network, with 256 neurons per side
+     */
+    public static NnueNetwork fromPieceSquareTables() {
+        int hidden = 256;
+        int unit = 5;
+        short[] featureWeights = new short[INPUTS * hidden];
+
+        // Features 0 to 383 are the own pieces; features 256 apart share a neuron but never a square
+        for (int type = Position.PAWN; type <= Position.KING; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                int feature = type * 64 + sq;
+                int value = PieceSquareTables.midgame(PieceSquareTables.score((Position.WHITE << 3) | type, sq));
+                if (type == Position.KING) value += KING_OFFSET;
+                featureWeights[feature * hidden + feature % hidden] = (short) Math.round(value / (double) unit);
+            }
+        }
+
+        short[] outputWeights = new short[2 * hidden];
+        for (int i = 0; i < hidden; i++) {
+            outputWeights[i] = 1;
+            outputWeights[hidden + i] = -1;
+        }
+        return new NnueNetwork(hidden, unit * 1024, featureWeights, new short[hidden], outputWeights, 0);
+    }
+
+    /**
+     * Gets the input feature of a piece on a square, seen from one side.
+     *
+     * @param perspective The side whose view is taken
+     * @param piece The mailbox code of the piece
+     * @param sq The square index
+     * @return The feature index, from 0 to 767
+     */
+    public static int feature(int perspective, int piece, int sq) {
+        int color = piece >>> 3;
+        int relative = (color == perspective) ? 0 : 1;
+        int square = (perspective == Position.WHITE) ? sq : sq ^ 56;
+        return ((relative * 6) + (piece & 7)) * 64 + square;
+    }
+
+    public int getHidden() {
+        return hidden;
+    }
+
+    public int getOutputScale() {
+        return outputScale;
+    }
+
+    short[] getFeatureWeights() {
+        return featureWeights;
+    }
+
+    short[] getFeatureBias() {
+        return featureBias;
+    }
+
+    short[] getOutputWeights() {
+        return outputWeights;
+    }
+
+    public int getOutputBias() {
+        return outputBias;
+    }
+}
@@ -0,0 +1,118 @@
+package engine;
+
+import model.Position;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of {@link PawnStructure} scores by pawn key, shared by all search
+ * threads without locks. Pawn structures repeat far more often than positions,
+ * so even a small table answers most lookups.
+ * <p>
+ * Each entry is two longs like those of {@link TranspositionTable}: the data,
+ * and the data XORed with the pawn key, so an entry torn by two threads reads
+ * as a miss. The table is direct-mapped: a new structure replaces whatever
+ * shares its slot.
+ */
+public class PawnHashTable {
+    public static final int DEFAULT_SIZE_MB = 2;
+
+    // Keeps the data of a stored entry nonzero, so empty slots never match
+    private static final long PRESENT = 1L << 32;
+
+    // Keeps the table array within Java's array size limit
+    private static final int MAX_ENTRIES = 1 << 29;
+
+    private final long[] table;
+    private final long indexMask;
+    private final int sizeMB;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Creates a table within a memory budget. The number of entries is rounded
+     * down to a power of two.
+     *
+     * @param sizeMB The memory budget in megabytes, at least 1
+     */
+    public PawnHashTable(int sizeMB) {
+        if (sizeMB < 1) {
+            throw new IllegalArgumentException("Pawn hash size must be at least 1 MB: " + sizeMB);
+        }
+
+        long entries = ((long) sizeMB << 20) / (2 * Long.BYTES);
+        entries = Math.min(Long.highestOneBit(entries), MAX_ENTRIES);
+
+        this.table = new long[(int) entries * 2];
+        this.indexMask = entries - 1;
+        this.sizeMB = sizeMB;
+    }
+
+    /**
+     * Gets the pawn structure score of a position, from the table or, on a
+     * miss, by evaluating and storing it.
+     *
+     * @param position The position
+     * @return The packed score from white's side
+     */
+    public int probe(Position position) {
+        probes.increment();
+        long key = position.getPawnKey();
+        int slot = (int) (key & indexMask) * 2;
+
+        long data = table[slot + 1];
+        if (data != 0 && (table[slot] ^ data) == key) {
+            hits.increment();
+            return (int) data;
+        }
+
+        int score = PawnStructure.evaluate(position);
+        data = (score & 0xFFFFFFFFL) | PRESENT;
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+        return score;
+    }
+
+    /**
+     * Empties the table and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        probes.reset();
+        hits.reset();
+    }
+
+    public int getSizeMB() {
+        return sizeMB;
+    }
+
+    public long getCapacity() {
+        return table.length / 2;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the fraction of lookups answered from the table.
+     *
+     * @return The hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long probeCount = probes.sum();
+        return probeCount == 0 ? 0.0 : (double) hits.sum() / probeCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pawn hash: %d MB, %d entries, %d probes, %d hits (%.1f%%)",
+                sizeMB, getCapacity(), getProbes(), getHits(), 100 * getHitRate());
+    }
+}
@@ -0,0 +1,108 @@
+package engine;
+
+import model.Bitboards;
+import model.PieceSquareTables;
+import model.Position;
+
+/**
+ * Evaluation terms that depend only on where the pawns stand: passed,
+ * isolated, doubled and backward pawns. Since pawns rarely move compared to
+ * other pieces, the result is cached by pawn key in a {@link PawnHashTable}.
+ * <p>
+ * Scores are middlegame and endgame values packed as by
+ * {@link PieceSquareTables#pack}, from white's side.
+ */
+public final class PawnStructure {
+    static final int DOUBLED = PieceSquareTables.pack(-10, -20);
+    static final int ISOLATED = PieceSquareTables.pack(-10, -15);
+    static final int BACKWARD = PieceSquareTables.pack(-8, -10);
+
+    // Bonus for a passed pawn by rank from its own side, 1 being its starting rank
+    static final int[] PASSED = {
+            0,
+            PieceSquareTables.pack(5, 10),
+            PieceSquareTables.pack(10, 20),
+            PieceSquareTables.pack(20, 35),
+            PieceSquareTables.pack(35, 60),
+            PieceSquareTables.pack(60, 100),
+            PieceSquareTables.pack(100, 150),
+            0
+    };
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // Squares in front of a pawn on its file and the adjacent files, by color and square
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    // Squares beside and behind a pawn on the adjacent files, where a supporting pawn can stand
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = Bitboards.FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0L) | (file < 7 ? FILES[file + 1] : 0L);
+        }
+
+        for (int sq = 0; sq < 64; sq++) {
+            int file = Bitboards.fileOf(sq);
+            int rank = Bitboards.rankOf(sq);
+            // Rows are numbered from the eighth rank, so white moves toward row 0
+            long above = (1L << (rank * 8)) - 1;
+            long below = (rank == 7) ? 0L : -1L << ((rank + 1) * 8);
+            long neighbours = FILES[file] | ADJACENT_FILES[file];
+
+            PASSED_SPAN[Position.WHITE][sq] = above & neighbours;
+            PASSED_SPAN[Position.BLACK][sq] = below & neighbours;
+            SUPPORT_SPAN[Position.WHITE][sq] = ~above & ADJACENT_FILES[file];
+            SUPPORT_SPAN[Position.BLACK][sq] = ~below & ADJACENT_FILES[file];
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    /**
+     * Evaluates the pawn structure of both sides.
+     *
+     * @param position The position
+     * @return The packed score from white's side
+     */
+    public static int evaluate(Position position) {
+        return evaluate(position, Position.WHITE) - evaluate(position, Position.BLACK);
+    }
+
+    /*
+     * Sums the terms of one side's pawns.
+     */
+    private static int evaluate(Position position, int color) {
+        long ours = position.pieces(color, Position.PAWN);
+        long theirs = position.pieces(color ^ 1, Position.PAWN);
+        int forward = (color == Position.WHITE) ? -8 : 8;
+        int score = 0;
+
+        for (long bb = ours; bb != 0; bb &= bb - 1) {
+            int sq = Bitboards.lowest(bb);
+            int file = Bitboards.fileOf(sq);
+
+            boolean isolated = (ours & ADJACENT_FILES[file]) == 0;
+            if (isolated) score += ISOLATED;
+
+            // Only the rearmost pawn of a file counts as doubled, once per extra pawn
+            if ((ours & FILES[file] & PASSED_SPAN[color][sq]) != 0) score += DOUBLED;
+
+            if ((theirs & PASSED_SPAN[color][sq]) == 0 && (ours & FILES[file] & PASSED_SPAN[color][sq]) == 0) {
+                int rank = (color == Position.WHITE) ? 7 - Bitboards.rankOf(sq) : Bitboards.rankOf(sq);
+                score += PASSED[rank];
+            }
+
+            // Backward: no pawn can come alongside, and an enemy pawn guards the square in front
+            int stop = sq + forward;
+            if (!isolated && (ours & SUPPORT_SPAN[color][sq]) == 0
+                    && (Bitboards.pawnAttacks(color, stop) & theirs) != 0) {
+                score += BACKWARD;
+            }
+        }
+        return score;
+    }
+}
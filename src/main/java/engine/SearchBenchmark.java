@@ -0,0 +1,130 @@
+package engine;
+
+import model.Position;
+
+/**
+ * Fixed set of positions for measuring the search. Run from the command line
+ * to compare the time to reach a depth on one thread and on several, or the
+ * nodes each pruning technique of {@link SearchOptions} saves:
+ * <pre>
+ *   java -cp target/classes engine.SearchBenchmark 8 4            depth 8, 1 thread against 4
+ *   java -cp target/classes engine.SearchBenchmark --options 8    each technique on against off
+ * </pre>
+ * Every run starts from an empty transposition table, so the positions do not
+ * help each other.
+ */
+public class SearchBenchmark {
+    public static final String[] POSITIONS = {
+            Position.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4",
+            "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1"
+    };
+
+    /**
+     * Searches every benchmark position to a depth.
+     *
+     * @param engine The engine to use; its table is cleared before each position
+     * @param depth The depth to reach
+     * @return The total nodes and the total time in nanoseconds
+     */
+    public static long[] run(Engine engine, int depth) {
+        long nodes = 0;
+        long nanos = 0;
+        for (String fen : POSITIONS) {
+            engine.newGame();
+            SearchResult result = engine.search(Position.fromFen(fen), SearchLimits.depth(depth));
+            nodes += engine.getNodes();
+            nanos += result.getNanos();
+        }
+        return new long[] {nodes, nanos};
+    }
+
+    /**
+     * Command line entry point: prints the time to depth per position on one
+     * thread and on several and the speedup, or with --options the nodes saved
+     * by each pruning technique.
+     *
+     * @param args A depth and an optional thread count, or --options and a depth
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length < 1 || args.length > 2) {
+                System.err.println("Usage: SearchBenchmark <depth> [threads] | SearchBenchmark --options <depth>");
+                System.exit(2);
+            }
+            if (args[0].equals("--options")) {
+                compareOptions(Integer.parseInt(args[1]));
+                return;
+            }
+
+            int depth = Integer.parseInt(args[0]);
+            int threads = (args.length > 1) ? Integer.parseInt(args[1])
+                    : Runtime.getRuntime().availableProcessors();
+
+            Engine serial = new Engine();
+            Engine parallel = new Engine();
+            parallel.setThreads(threads);
+
+            long serialTotal = 0;
+            long parallelTotal = 0;
+            for (String fen : POSITIONS) {
+                serial.newGame();
+                long serialNanos = serial.search(Position.fromFen(fen), SearchLimits.depth(depth)).getNanos();
+                long serialNodes = serial.getNodes();
+
+                parallel.newGame();
+                long parallelNanos = parallel.search(Position.fromFen(fen), SearchLimits.depth(depth)).getNanos();
+                long parallelNodes = parallel.getNodes();
+
+                serialTotal += serialNanos;
+                parallelTotal += parallelNanos;
+                System.out.printf("%-72s %6d ms %10d nodes | %6d ms %10d nodes | %.2fx%n", fen,
+                        serialNanos / 1_000_000, serialNodes, parallelNanos / 1_000_000, parallelNodes,
+                        (double) serialNanos / Math.max(1, parallelNanos));
+            }
+
+            System.out.printf("Time to depth %d: 1 thread %d ms, %d threads %d ms, speedup %.2fx%n", depth,
+                    serialTotal / 1_000_000, threads, parallelTotal / 1_000_000,
+                    (double) serialTotal / Math.max(1, parallelTotal));
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException for a malformed number
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            System.err.println("Missing depth after --options");
+            System.exit(2);
+        }
+    }
+
+    /*
+     * Runs the suite with every technique on, then with each one off on its own
+     * and with all of them off, and prints what each saves.
+     */
+    private static void compareOptions(int depth) {
+        Engine engine = new Engine();
+        SearchOptions options = engine.getOptions();
+        long[] all = run(engine, depth);
+        System.out.printf("%-24s %12d nodes %8d ms%n", "all on", all[0], all[1] / 1_000_000);
+
+        String[] names = {"null move off", "LMR off", "futility off", "razoring off", "all off"};
+        for (int i = 0; i < names.length; i++) {
+            options.setAll(true);
+            switch (i) {
+                case 0: options.setNullMovePruning(false); break;
+                case 1: options.setLateMoveReductions(false); break;
+                case 2: options.setFutilityPruning(false); break;
+                case 3: options.setRazoring(false); break;
+                default: options.setAll(false); break;
+            }
+
+            long[] off = run(engine, depth);
+            System.out.printf("%-24s %12d nodes %8d ms   saved by it: %.1f%% of nodes%n", names[i], off[0],
+                    off[1] / 1_000_000, 100.0 * (off[0] - all[0]) / Math.max(1, off[0]));
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package engine;
+
+/**
+ * Bounds on a search: a maximum depth, a node budget, a time budget and the
+ * game clock of the side to move, which a {@link TimeManager} turns into a
+ * budget for the move. The search stops at whichever is reached first; unset
+ * limits do not apply.
+ */
+public class SearchLimits {
+    private int depth = Engine.MAX_PLY;
+    private long nodes = Long.MAX_VALUE;
+    private long moveTimeMillis;
+    private long timeLeftMillis;
+    private long incrementMillis;
+    private int movesToGo;
+    private boolean ponder;
+
+    /**
+     * Creates limits that only bound the depth.
+     *
+     * @param depth The maximum depth in plies
+     * @return The limits
+     */
+    public static SearchLimits depth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(depth);
+        return limits;
+    }
+
+    /**
+     * Creates limits that only bound the number of nodes.
+     *
+     * @param nodes The node budget
+     * @return The limits
+     */
+    public static SearchLimits nodes(long nodes) {
+        SearchLimits limits = new SearchLimits();
+        limits.setNodes(nodes);
+        return limits;
+    }
+
+    /**
+     * Creates limits that only bound the time per move.
+     *
+     * @param millis The time budget in milliseconds
+     * @return The limits
+     */
+    public static SearchLimits moveTime(long millis) {
+        SearchLimits limits = new SearchLimits();
+        limits.setMoveTime(millis);
+        return limits;
+    }
+
+    /**
+     * Creates limits from the game clock of the side to move.
+     *
+     * @param timeLeftMillis The time left on the clock in milliseconds, at least 1
+     * @param incrementMillis The time added to the clock after each move
+     * @return The limits
+     */
+    public static SearchLimits clock(long timeLeftMillis, long incrementMillis) {
+        SearchLimits limits = new SearchLimits();
+        limits.setClock(timeLeftMillis, incrementMillis);
+        return limits;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Sets the deepest iteration to search.
+     *
+     * @param depth The depth in plies, from 1 to {@link Engine#MAX_PLY}
+     */
+    public void setDepth(int depth) {
+        if (depth < 1 || depth > Engine.MAX_PLY) {
+            throw new IllegalArgumentException("Search depth must be between 1 and " + Engine.MAX_PLY + ": " + depth);
+        }
+        this.depth = depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Sets the number of nodes after which the search stops.
+     *
+     * @param nodes The node budget, at least 1
+     */
+    public void setNodes(long nodes) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("Node budget must be at least 1: " + nodes);
+        }
+        this.nodes = nodes;
+    }
+
+    /**
+     * Gets the time budget.
+     *
+     * @return The time in milliseconds, or 0 for no time limit
+     */
+    public long getMoveTime() {
+        return moveTimeMillis;
+    }
+
+    /**
+     * Sets the time after which the search stops.
+     *
+     * @param millis The time in milliseconds, or 0 for no time limit
+     */
+    public void setMoveTime(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Move time cannot be negative: " + millis);
+        }
+        this.moveTimeMillis = millis;
+    }
+
+    /**
+     * Gets the time left on the clock of the side to move.
+     *
+     * @return The time in milliseconds, or 0 for no clock
+     */
+    public long getTimeLeft() {
+        return timeLeftMillis;
+    }
+
+    public long getIncrement() {
+        return incrementMillis;
+    }
+
+    /**
+     * Sets the game clock of the side to move.
+     *
+     * @param timeLeftMillis The time left in milliseconds, or 0 for no clock
+     * @param incrementMillis The time added to the clock after each move
+     */
+    public void setClock(long timeLeftMillis, long incrementMillis) {
+        if (timeLeftMillis < 0 || incrementMillis < 0) {
+            throw new IllegalArgumentException("Clock times cannot be negative: " + timeLeftMillis + ", "
+                    + incrementMillis);
+        }
+        this.timeLeftMillis = timeLeftMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * Gets the number of moves until the next time control.
+     *
+     * @return The number of moves, or 0 if the clock covers the rest of the game
+     */
+    public int getMovesToGo() {
+        return movesToGo;
+    }
+
+    /**
+     * Sets the number of moves until the next time control.
+     *
+     * @param movesToGo The number of moves, or 0 if the clock covers the rest of the game
+     */
+    public void setMovesToGo(int movesToGo) {
+        if (movesToGo < 0) {
+            throw new IllegalArgumentException("Moves to go cannot be negative: " + movesToGo);
+        }
+        this.movesToGo = movesToGo;
+    }
+
+    public boolean isPonder() {
+        return ponder;
+    }
+
+    /**
+     * Makes the search a ponder search, which ignores the time limits until
+     * {@link Engine#ponderHit()}.
+     *
+     * @param ponder true to ponder
+     */
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+    }
+}
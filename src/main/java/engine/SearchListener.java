@@ -0,0 +1,13 @@
+package engine;
+
+/**
+ * Receives progress from a running search.
+ */
+public interface SearchListener {
+    /**
+     * Called on the searching thread after each completed iteration.
+     *
+     * @param result The result of the iteration
+     */
+    void onIteration(SearchResult result);
+}
@@ -0,0 +1,94 @@
+package engine;
+
+/**
+ * Switches for the pruning and reduction techniques of the search, all on by
+ * default. Each can be turned off on its own to measure the nodes it saves
+ * (see {@link SearchBenchmark}). Changes apply from the next search.
+ */
+public class SearchOptions {
+    private boolean nullMovePruning = true;
+    private boolean lateMoveReductions = true;
+    private boolean futilityPruning = true;
+    private boolean razoring = true;
+
+    /**
+     * Turns every technique on or off at once.
+     *
+     * @param enabled true to enable all of them
+     */
+    public void setAll(boolean enabled) {
+        nullMovePruning = enabled;
+        lateMoveReductions = enabled;
+        futilityPruning = enabled;
+        razoring = enabled;
+    }
+
+    /**
+     * Null-move pruning: when passing the turn still fails high on a reduced
+     * search, the node is cut. Never tried in check, after another null move,
+     * or by a side with only pawns left, where zugzwang is common.
+     *
+     * @param enabled true to enable it
+     */
+    public void setNullMovePruning(boolean enabled) {
+        this.nullMovePruning = enabled;
+    }
+
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    /**
+     * Late move reductions: quiet moves ordered late are first searched less
+     * deep, by an amount read from a precomputed table of depth and move number,
+     * and only searched fully if they beat alpha.
+     *
+     * @param enabled true to enable it
+     */
+    public void setLateMoveReductions(boolean enabled) {
+        this.lateMoveReductions = enabled;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    /**
+     * Futility pruning near the horizon: nodes whose static evaluation is far
+     * above beta are cut, and quiet moves are skipped where the evaluation is
+     * too far below alpha for them to catch up.
+     *
+     * @param enabled true to enable it
+     */
+    public void setFutilityPruning(boolean enabled) {
+        this.futilityPruning = enabled;
+    }
+
+    public boolean isFutilityPruning() {
+        return futilityPruning;
+    }
+
+    /**
+     * Razoring: shallow nodes whose static evaluation is far below alpha are
+     * resolved by quiescence search alone if it confirms the fail low.
+     *
+     * @param enabled true to enable it
+     */
+    public void setRazoring(boolean enabled) {
+        this.razoring = enabled;
+    }
+
+    public boolean isRazoring() {
+        return razoring;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("null move %s, LMR %s, futility %s, razoring %s", onOff(nullMovePruning),
+                onOff(lateMoveReductions), onOff(futilityPruning), onOff(razoring));
+    }
+
+    private static String onOff(boolean enabled) {
+        return enabled ? "on" : "off";
+    }
+}
@@ -0,0 +1,146 @@
+package engine;
+
+import model.PackedMove;
+import model.Perft;
+
+/**
+ * The outcome of one completed iteration of the search: best move, score,
+ * principal variation and the work it took. In multi-PV mode an iteration
+ * has one result per line, each with its rank.
+ */
+public class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long nanos;
+    private final int[] pv;
+    private final int multiPv;
+
+    /**
+     * Creates a search result.
+     *
+     * @param score The score in centipawns for the side to move
+     * @param depth The depth of the iteration
+     * @param nodes The nodes searched so far
+     * @param nanos The time taken so far in nanoseconds
+     * @param pv The principal variation as packed moves, starting with the best move
+     */
+    public SearchResult(int score, int depth, long nodes, long nanos, int[] pv) {
+        this(score, depth, nodes, nanos, pv, 0);
+    }
+
+    /**
+     * Creates the result of one line of a multi-PV search.
+     *
+     * @param score The score in centipawns for the side to move
+     * @param depth The depth of the iteration
+     * @param nodes The nodes searched so far
+     * @param nanos The time taken so far in nanoseconds
+     * @param pv The principal variation of the line as packed moves
+     * @param multiPv The rank of the line from 1 for the best, or 0 outside multi-PV mode
+     */
+    public SearchResult(int score, int depth, long nodes, long nanos, int[] pv, int multiPv) {
+        this.bestMove = pv.length > 0 ? pv[0] : PackedMove.NONE;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.nanos = nanos;
+        this.pv = pv;
+        this.multiPv = multiPv;
+    }
+
+    /**
+     * Gets the move to play.
+     *
+     * @return The packed move, or {@link PackedMove#NONE} if there is no legal move
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Gets the search speed.
+     *
+     * @return Nodes per second
+     */
+    public long getNodesPerSecond() {
+        return Perft.nodesPerSecond(nodes, nanos);
+    }
+
+    /**
+     * Gets the principal variation.
+     *
+     * @return A copy of the expected line of play as packed moves
+     */
+    public int[] getPv() {
+        return pv.clone();
+    }
+
+    /**
+     * Gets the rank of this line in a multi-PV search.
+     *
+     * @return 1 for the best line, 2 for the next and so on, or 0 outside multi-PV mode
+     */
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    /**
+     * Checks whether the score announces a forced mate for either side.
+     *
+     * @return true for a mate score
+     */
+    public boolean isMate() {
+        return Engine.isMateScore(score);
+    }
+
+    /**
+     * Gets the distance to mate.
+     *
+     * @return Moves until mate, negative when the side to move is mated, or 0 if the score is not a mate
+     */
+    public int getMateIn() {
+        if (!isMate()) return 0;
+        int plies = Engine.MATE - Math.abs(score);
+        int moves = (plies + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+
+    /**
+     * Formats the result like a UCI info line.
+     *
+     * @return Depth, line rank in multi-PV mode, score, nodes, speed, time and principal variation
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        if (multiPv > 0) sb.append(" multipv ").append(multiPv);
+        sb.append(isMate() ? " score mate " + getMateIn() : " score cp " + score);
+        sb.append(" nodes ").append(nodes);
+        sb.append(" nps ").append(getNodesPerSecond());
+        sb.append(" time ").append(nanos / 1_000_000);
+        sb.append(" pv");
+        for (int move : pv) {
+            sb.append(' ').append(PackedMove.toString(move));
+        }
+        return sb.toString();
+    }
+}
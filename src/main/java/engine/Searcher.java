@@ -0,0 +1,541 @@
+package engine;
+
+import model.MoveGenerator;
+import model.MoveList;
+import model.PackedMove;
+import model.Position;
+
+import java.util.Arrays;
+
+/**
+ * One thread's search: iterative deepening over a negamax alpha-beta search,
+ * with its own copy of the position, move lists and principal variation table.
+ * <p>
+ * Searcher 0 is the main thread, which applies the limits and reports results.
+ * Helpers (Lazy SMP) run the same iterations until the main thread is done; odd
+ * helpers start a ply deeper, so the threads spread over two depths and fill
+ * the shared transposition table for each other.
+ */
+class Searcher {
+    // How often, in nodes, the limits are checked, and more often the stop flag alone
+    private static final int CHECK_INTERVAL = 1024;
+    private static final int STOP_CHECK_INTERVAL = 128;
+
+    // Bound on history scores; each update moves a score part of the way toward it
+    private static final int HISTORY_MAX = 16384;
+
+    // Pruning margins in centipawns per ply of depth left, and the depths they apply to
+    private static final int FUTILITY_DEPTH = 3;
+    private static final int FUTILITY_MARGIN = 150;
+    private static final int RAZOR_DEPTH = 2;
+    private static final int RAZOR_MARGIN = 300;
+
+    private static final int NULL_MOVE_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 3;
+    private static final int NULL_MOVE_VERIFY_DEPTH = 10;
+
+    // Late move reductions start at this depth and move number
+    private static final int LMR_DEPTH = 3;
+    private static final int LMR_MOVES = 3;
+
+    // Plies to reduce by depth and move number, growing with the logarithm of both
+    private static final int[][] REDUCTIONS = new int[64][64];
+
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int moveNumber = 1; moveNumber < 64; moveNumber++) {
+                REDUCTIONS[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+    }
+
+    private final Engine engine;
+    private final int id;
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveList[] lists = MoveList.perPly(Engine.MAX_PLY);
+    private final int[][] pvTable = new int[Engine.MAX_PLY + 1][Engine.MAX_PLY + 1];
+    private final int[] pvLength = new int[Engine.MAX_PLY + 1];
+    private final MovePicker[] pickers = new MovePicker[Engine.MAX_PLY + 1];
+    private final int[][] killers = new int[Engine.MAX_PLY + 1][2];
+    private final int[][] history = new int[2][64 * 64];
+    private final int[][] quietsTried = new int[Engine.MAX_PLY + 1][MoveList.MAX_MOVES];
+
+    private Position position;
+    private long nodes;
+    private long flushedNodes;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long startNanos;
+    private long deadline;
+    private TimeManager timeManager;
+    private boolean awaitingPonderHit;
+    private long maxNodes;
+    private boolean canAbort;
+    private boolean canStop;
+    private boolean aborted;
+    private boolean nullMovePruning;
+    private boolean lateMoveReductions;
+    private boolean futilityPruning;
+    private boolean razoring;
+
+    // Multi-PV: root moves already taken by earlier lines of this iteration
+    private final int[] rootExcluded = new int[MoveList.MAX_MOVES];
+    private int excludedCount;
+    private SearchResult[] lines;
+
+    Searcher(Engine engine, Evaluator evaluator, int id) {
+        this.engine = engine;
+        this.id = id;
+        this.evaluator = evaluator;
+        this.table = engine.getTranspositionTable();
+        for (int i = 0; i < pickers.length; i++) pickers[i] = new MovePicker();
+    }
+
+    /*
+     * Deepens the search one ply at a time until a limit is reached. The node
+     * and time limits always let the first iteration complete, so there is a
+     * move to play; a stop may end it early, and then the engine's fallback
+     * move is played. A later iteration cut short by a limit is discarded. On
+     * a clock, the {@link TimeManager} decides after each iteration whether
+     * another one is worth starting.
+     *
+     * In multi-PV mode the main thread searches the root once per line, each
+     * time without the first moves of the lines before. Later lines find much
+     * of the tree in the transposition table, so N lines cost less than N
+     * separate searches.
+     */
+    SearchResult iterate(Position root, SearchLimits limits, SearchListener listener) {
+        this.position = new Position(root);
+        this.nodes = 0;
+        this.flushedNodes = 0;
+        this.startNanos = System.nanoTime();
+        this.timeManager = new TimeManager(limits);
+        this.awaitingPonderHit = engine.isPondering();
+        startClock(startNanos);
+        this.maxNodes = limits.getNodes();
+        this.canAbort = !isMain();
+        // A stop may end even the first iteration once there is a move to fall back on
+        this.canStop = !isMain() || engine.getCurrentResult() != null;
+        this.aborted = false;
+
+        SearchOptions options = engine.getOptions();
+        this.nullMovePruning = options.isNullMovePruning();
+        this.lateMoveReductions = options.isLateMoveReductions();
+        this.futilityPruning = options.isFutilityPruning();
+        this.razoring = options.isRazoring();
+
+        // Only the main thread splits the root into lines; helpers just fill the table
+        int lineCount = isMain() ? Math.max(1, Math.min(engine.getMultiPv(), countRootMoves())) : 1;
+        int[][] previousPvs = new int[lineCount][0];
+        int[] scores = new int[lineCount];
+        int[][] pvs = new int[lineCount][];
+        SearchResult result = null;
+        this.lines = new SearchResult[0];
+        int maxDepth = isMain() ? limits.getDepth() : Engine.MAX_PLY;
+
+        for (int depth = 1 + (id & 1); depth <= maxDepth; depth++) {
+            excludedCount = 0;
+            for (int line = 0; line < lineCount; line++) {
+                int[] previousPv = previousPvs[line];
+                if (previousPv.length > 0 && isExcludedAtRoot(previousPv[0])) previousPv = Engine.NO_PV;
+                scores[line] = search(depth, 0, -Engine.INFINITY, Engine.INFINITY, previousPv, true);
+                if (aborted) break;
+
+                pvs[line] = Arrays.copyOf(pvTable[0], pvLength[0]);
+                if (pvs[line].length > 0) rootExcluded[excludedCount++] = pvs[line][0];
+            }
+            excludedCount = 0;
+            if (aborted) break;
+
+            flushCounters();
+            result = reportLines(depth, scores, pvs, previousPvs, listener);
+            canAbort = true;
+
+            // A mate found within this depth cannot get any shorter
+            if (lineCount == 1 && Engine.isMateScore(result.getScore())
+                    && Engine.MATE - Math.abs(result.getScore()) <= depth) break;
+            if (checkLimits()) break;
+            // Time spent pondering counts here, so a long ponder is answered at once
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            boolean timeUp = timeManager.stopAfterIteration(result.getBestMove(), elapsedMillis);
+            if (isMain() && timeUp && !awaitingPonderHit) break;
+        }
+
+        if (result == null && isMain() && engine.getCurrentResult() != null) {
+            // Stopped during the first iteration
+            result = engine.getCurrentResult();
+            this.lines = new SearchResult[]{result};
+        }
+        if (isMain()) engine.awaitPonderEnd();
+        return result;
+    }
+
+    /*
+     * Orders the lines of a completed iteration best first, keeps them as the
+     * next iteration's guides and reports each of them. Returns the best line.
+     */
+    private SearchResult reportLines(int depth, int[] scores, int[][] pvs, int[][] previousPvs,
+                                     SearchListener listener) {
+        int lineCount = scores.length;
+        Integer[] order = new Integer[lineCount];
+        for (int i = 0; i < lineCount; i++) order[i] = i;
+        // Stable, so lines with equal scores keep the order they were found in
+        Arrays.sort(order, (a, b) -> Integer.compare(scores[b], scores[a]));
+
+        long totalNodes = engine.getNodes();
+        long nanos = System.nanoTime() - startNanos;
+        SearchResult[] results = new SearchResult[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            int line = order[i];
+            previousPvs[i] = pvs[line];
+            results[i] = new SearchResult(scores[line], depth, totalNodes, nanos, pvs[line], lineCount > 1 ? i + 1 : 0);
+            if (listener != null) listener.onIteration(results[i]);
+        }
+        this.lines = results;
+        if (isMain()) engine.setCurrentResult(results[0]);
+        return results[0];
+    }
+
+    /*
+     * Gets the lines of the last completed iteration, best first.
+     */
+    SearchResult[] getLines() {
+        return lines;
+    }
+
+    private int countRootMoves() {
+        return generator.generateMoves(position, lists[0]);
+    }
+
+    private boolean isExcludedAtRoot(int move) {
+        for (int i = 0; i < excludedCount; i++) {
+            if (rootExcluded[i] == move) return true;
+        }
+        return false;
+    }
+
+    /*
+     * Starts the hard time limit of the move, from the start of the search or,
+     * when pondering, from the ponder hit.
+     */
+    private void startClock(long nanos) {
+        long hard = timeManager.getHardLimit();
+        this.deadline = (awaitingPonderHit || hard == Long.MAX_VALUE) ? Long.MAX_VALUE : nanos + hard * 1_000_000;
+    }
+
+    boolean isMain() {
+        return id == 0;
+    }
+
+    /*
+     * Adds the nodes and cutoffs counted since the last flush to the engine's totals.
+     */
+    private void flushCounters() {
+        engine.addCounters(nodes - flushedNodes, cutoffs, firstMoveCutoffs);
+        flushedNodes = nodes;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+    }
+
+    /*
+     * Negamax alpha-beta with principal variation search: the first move gets
+     * the full window and the others a null window, re-searched only if they
+     * beat alpha. Returns the score of the position for the side to move and
+     * fills the principal variation from this ply.
+     *
+     * Moves come from a {@link MovePicker}: the previous iteration's line first
+     * along the leftmost branch and elsewhere the move from the transposition
+     * table, then captures, killers and quiet moves by history. At null-window nodes
+     * a stored result that is deep enough and bounds the score outside the
+     * window ends the node at once; PV nodes always search, so the line stays whole.
+     *
+     * Null-window nodes out of check may also be cut by reverse futility,
+     * razoring or a null move before any move is searched, and late quiet
+     * moves are reduced or, near the horizon, skipped (see SearchOptions).
+     */
+    private int search(int depth, int ply, int alpha, int beta, int[] previousPv, boolean allowNull) {
+        if (depth <= 0) return quiesce(ply, alpha, beta);
+
+        pvLength[ply] = ply;
+        if (!enterNode()) return 0;
+
+        if (ply >= Engine.MAX_PLY) return evaluator.evaluate(position);
+        // A repetition inside the tree is scored as a draw: one side can force it again
+        if (ply > 0 && (position.getHalfmoveClock() >= 100 || position.repetitions() > 0)) return Engine.DRAW;
+
+        boolean pvNode = beta - alpha > 1;
+        long key = position.getKey();
+        long entry = table.probe(key);
+        int hashMove = PackedMove.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry, ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int side = position.getSideToMove();
+        boolean inCheck = position.isInCheck(side);
+        int staticEval = inCheck ? -Engine.INFINITY : evaluator.evaluate(position);
+
+        if (!pvNode && !inCheck && !Engine.isMateScore(beta)) {
+            // Reverse futility: so far above beta that the opponent cannot catch up in time
+            if (futilityPruning && depth <= FUTILITY_DEPTH && staticEval - FUTILITY_MARGIN * depth >= beta) {
+                return staticEval;
+            }
+
+            if (razoring && depth <= RAZOR_DEPTH && staticEval + RAZOR_MARGIN * depth < alpha) {
+                int score = quiesce(ply, alpha - 1, alpha);
+                if (aborted) return 0;
+                if (score < alpha) return score;
+            }
+
+            if (nullMovePruning && allowNull && depth >= NULL_MOVE_DEPTH && staticEval >= beta
+                    && hasPiecesBesidesPawns(side)) {
+                int reduction = NULL_MOVE_REDUCTION + depth / 6;
+                position.makeNullMove();
+                int score = -search(depth - 1 - reduction, ply + 1, -beta, -beta + 1, Engine.NO_PV, false);
+                position.unmakeMove();
+                if (aborted) return 0;
+
+                if (score >= beta) {
+                    // A mate found after passing is not proven
+                    if (Engine.isMateScore(score)) score = beta;
+                    if (depth < NULL_MOVE_VERIFY_DEPTH) return score;
+
+                    // Deep down, confirm with a reduced search without null moves, against zugzwang
+                    int verified = search(depth - 1 - reduction, ply, beta - 1, beta, Engine.NO_PV, false);
+                    if (aborted) return 0;
+                    if (verified >= beta) return score;
+                }
+            }
+        }
+
+        MoveList moves = lists[ply];
+        int count = generator.generateMoves(position, moves);
+        if (count == 0) {
+            return inCheck ? -Engine.MATE + ply : Engine.DRAW;
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.init(position, moves, ply < previousPv.length ? previousPv[ply] : hashMove, killers[ply],
+                history[side]);
+
+        // Quiet moves that cannot bring the evaluation up to alpha are skipped near the horizon
+        boolean futile = futilityPruning && !pvNode && !inCheck && depth <= FUTILITY_DEPTH
+                && staticEval + FUTILITY_MARGIN * depth <= alpha && !Engine.isMateScore(alpha);
+
+        int alphaOrig = alpha;
+        int bestMove = PackedMove.NONE;
+        int best = -Engine.INFINITY;
+        int quietCount = 0;
+        int move;
+        for (int i = 0; (move = picker.next()) != PackedMove.NONE; i++) {
+            if (ply == 0 && isExcludedAtRoot(move)) {
+                // Taken by an earlier line; the next move counts as the first
+                i--;
+                continue;
+            }
+            // Only the first move continues along the previous principal variation
+            int[] childPv = (i == 0) ? previousPv : Engine.NO_PV;
+            boolean quiet = !MovePicker.isNoisy(move);
+            boolean late = quiet && i > 0 && (futile || (lateMoveReductions && depth >= LMR_DEPTH && i >= LMR_MOVES));
+
+            position.makeMove(move);
+            boolean givesCheck = late && position.isInCheck(side ^ 1);
+
+            if (futile && late && !givesCheck) {
+                position.unmakeMove();
+                continue;
+            }
+
+            int score;
+            if (i == 0) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha, childPv, true);
+            } else {
+                int reduction = 0;
+                if (late && lateMoveReductions && !inCheck && !givesCheck && depth >= LMR_DEPTH && i >= LMR_MOVES) {
+                    reduction = REDUCTIONS[Math.min(depth, 63)][Math.min(i, 63)] - (pvNode ? 1 : 0);
+                    reduction = Math.max(0, Math.min(reduction, depth - 2));
+                }
+
+                score = -search(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, childPv, true);
+                if (reduction > 0 && score > alpha) {
+                    score = -search(depth - 1, ply + 1, -alpha - 1, -alpha, childPv, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha, childPv, true);
+                }
+            }
+            position.unmakeMove();
+
+            // Root moves may take many nodes each, or a few slow ones early on
+            if (ply == 0 && canStop && engine.isStopRequested()) aborted = true;
+            if (aborted) return 0;
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        cutoffs++;
+                        if (i == 0) firstMoveCutoffs++;
+                        if (quiet) updateQuietStats(ply, depth, move, quietCount);
+                        break;
+                    }
+                }
+            }
+            if (quiet) quietsTried[ply][quietCount++] = move;
+        }
+
+        int bound = (best >= beta) ? TranspositionTable.BOUND_LOWER
+                : (best > alphaOrig) ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        // A root searched without some of its moves does not know its true score
+        if (ply > 0 || excludedCount == 0) {
+            table.store(key, bestMove, best, inCheck ? 0 : staticEval, depth, bound, ply);
+        }
+        return best;
+    }
+
+    /*
+     * Checks whether a side has a knight, bishop, rook or queen. With only pawns
+     * and the king, zugzwang is common and passing the turn proves nothing.
+     */
+    private boolean hasPiecesBesidesPawns(int side) {
+        return (position.occupancy(side) & ~position.pieces(side, Position.PAWN)
+                & ~position.pieces(side, Position.KING)) != 0;
+    }
+
+    /*
+     * Searches only captures and promotions below the horizon, so the static
+     * evaluation is only taken in quiet positions. The side to move may stand
+     * pat on the evaluation; captures that lose material by static exchange are
+     * skipped. In check every evasion is searched instead, so mates are seen.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (!enterNode()) return 0;
+
+        if (ply >= Engine.MAX_PLY) return evaluator.evaluate(position);
+
+        MoveList moves = lists[ply];
+        int count = generator.generateMoves(position, moves);
+        boolean inCheck = generator.isInCheck();
+        if (count == 0) {
+            return inCheck ? -Engine.MATE + ply : Engine.DRAW;
+        }
+
+        int best = -Engine.INFINITY;
+        MovePicker picker = pickers[ply];
+        if (inCheck) {
+            picker.init(position, moves, PackedMove.NONE, killers[ply], history[position.getSideToMove()]);
+        } else {
+            best = evaluator.evaluate(position);
+            if (best >= beta) return best;
+            if (best > alpha) alpha = best;
+            picker.initNoisy(position, moves);
+        }
+
+        int move;
+        while ((move = picker.next()) != PackedMove.NONE) {
+            position.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            position.unmakeMove();
+
+            if (aborted) return 0;
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Counts a node and, every so often, checks the limits. The stop flag is
+     * a single volatile read, so it is checked more often, and also during the
+     * first iteration, which the other limits let complete. Returns false once
+     * the search has been aborted.
+     */
+    private boolean enterNode() {
+        nodes++;
+        if ((nodes & (STOP_CHECK_INTERVAL - 1)) == 0) {
+            if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+                flushCounters();
+                if (canAbort && checkLimits()) aborted = true;
+            }
+            if (canStop && engine.isStopRequested()) aborted = true;
+        }
+        return !aborted;
+    }
+
+    /*
+     * Makes a move the head of this ply's line, followed by the child's line.
+     */
+    private void updatePv(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, childLength - ply - 1);
+        pvLength[ply] = childLength;
+    }
+
+    /*
+     * Rewards a quiet move that caused a cutoff, as a killer of this ply and in
+     * the history table, and penalizes the quiet moves tried before it.
+     */
+    private void updateQuietStats(int ply, int depth, int move, int quietCount) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        int[] sideHistory = history[position.getSideToMove()];
+        int bonus = Math.min(depth * depth, HISTORY_MAX);
+        updateHistory(sideHistory, move, bonus);
+        for (int i = 0; i < quietCount; i++) {
+            updateHistory(sideHistory, quietsTried[ply][i], -bonus);
+        }
+    }
+
+    /*
+     * Moves a history score toward the bound by the bonus, less the closer it
+     * already is, so scores never leave [-HISTORY_MAX, HISTORY_MAX].
+     */
+    private static void updateHistory(int[] sideHistory, int move, int bonus) {
+        int index = PackedMove.from(move) * 64 + PackedMove.to(move);
+        sideHistory[index] += bonus - sideHistory[index] * Math.abs(bonus) / HISTORY_MAX;
+    }
+
+    /*
+     * Checks the stop flag and, on the main thread, the node budget of all
+     * threads together and the time budget. Helpers run until told to stop.
+     * While pondering only the stop flag counts; the ponder hit starts the clock.
+     */
+    private boolean checkLimits() {
+        if (!isMain()) return engine.isStopRequested() || engine.isHelpersStopped();
+        if (awaitingPonderHit) {
+            if (engine.isPondering()) return engine.isStopRequested();
+            awaitingPonderHit = false;
+            startClock(engine.getPonderHitNanos());
+            // Pondered long enough already: play the last completed iteration
+            if (canAbort && timeManager.softLimitReached((System.nanoTime() - startNanos) / 1_000_000)) return true;
+        }
+        return engine.isStopRequested() || engine.getNodes() >= maxNodes || System.nanoTime() >= deadline;
+    }
+}
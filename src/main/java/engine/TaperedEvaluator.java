@@ -0,0 +1,57 @@
+package engine;
+
+import model.PieceSquareTables;
+import model.Position;
+
+/**
+ * Evaluates positions by material, piece placement and pawn structure,
+ * blending a middlegame and an endgame score by how many pieces are left.
+ * <p>
+ * The material and piece-square scores are kept up to date by {@link Position}
+ * on every make and unmake, and the pawn structure score comes from a
+ * {@link PawnHashTable}, so an evaluation rarely costs more than a table lookup.
+ */
+public class TaperedEvaluator implements Evaluator {
+    private PawnHashTable pawnHashTable;
+
+    /**
+     * Creates an evaluator with a pawn hash table of the default size.
+     */
+    public TaperedEvaluator() {
+        this(PawnHashTable.DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * Creates an evaluator with a pawn hash table of a given size.
+     *
+     * @param pawnHashMB The pawn hash size in megabytes, at least 1
+     */
+    public TaperedEvaluator(int pawnHashMB) {
+        this.pawnHashTable = new PawnHashTable(pawnHashMB);
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        int packed = position.getPsqtScore() + pawnHashTable.probe(position);
+        int phase = Math.min(position.getPhase(), PieceSquareTables.MAX_PHASE);
+
+        int score = (PieceSquareTables.midgame(packed) * phase
+                + PieceSquareTables.endgame(packed) * (PieceSquareTables.MAX_PHASE - phase))
+                / PieceSquareTables.MAX_PHASE;
+        return position.getSideToMove() == Position.WHITE ? score : -score;
+    }
+
+    /**
+     * Replaces the pawn hash table with an empty one of a new size. Must not
+     * be called during a search.
+     *
+     * @param sizeMB The memory budget in megabytes, at least 1
+     */
+    public void setPawnHashSize(int sizeMB) {
+        pawnHashTable = new PawnHashTable(sizeMB);
+    }
+
+    public PawnHashTable getPawnHashTable() {
+        return pawnHashTable;
+    }
+}
@@ -0,0 +1,114 @@
+package engine;
+
+/**
+ * Splits the time left on a game clock into budgets for one move.
+ * <p>
+ * The soft limit is the time the move should take: an even share of the time
+ * left over the moves still to play, plus most of the increment. It is only
+ * checked between iterations, and it shrinks as the best move stays the same
+ * over several iterations and grows while the best move keeps changing. The
+ * hard limit aborts the search in the middle of an iteration. It never exceeds
+ * the time left minus a safety margin for the engine's overhead and the
+ * controller's, so the engine does not lose on time.
+ * <p>
+ * Without a clock in the limits, only a fixed move time applies, as both
+ * limits.
+ */
+public class TimeManager {
+    // Time kept back on every move for everything outside the search
+    public static final long MOVE_OVERHEAD_MILLIS = 30;
+
+    // Moves assumed to be left in the game when the clock does not say
+    static final int DEFAULT_MOVES_TO_GO = 30;
+
+    // Soft limit multiplier by how many iterations in a row kept the best move
+    private static final double[] STABILITY_SCALE = {2.0, 1.4, 1.0, 0.8, 0.6};
+
+    private final long softMillis;
+    private final long hardMillis;
+    private int lastBestMove;
+    private int stability;
+
+    /**
+     * Allocates the budgets of one move.
+     *
+     * @param limits The search limits, with a clock, a move time, both or neither
+     */
+    public TimeManager(SearchLimits limits) {
+        long soft = Long.MAX_VALUE;
+        long hard = Long.MAX_VALUE;
+
+        if (limits.getTimeLeft() > 0) {
+            long available = Math.max(1, limits.getTimeLeft() - MOVE_OVERHEAD_MILLIS);
+            int movesToGo = limits.getMovesToGo() > 0 ? limits.getMovesToGo() : DEFAULT_MOVES_TO_GO;
+
+            // Most of the increment is spent, as it comes back once the move is made;
+            // the hard limit still caps the move against the time actually left
+            soft = available / movesToGo + limits.getIncrement() * 3 / 4;
+            hard = Math.min(soft * 5, movesToGo == 1 ? available * 9 / 10 : available * 3 / 4);
+            hard = Math.max(1, hard);
+            soft = Math.min(soft, hard);
+        }
+        if (limits.getMoveTime() > 0) {
+            soft = Math.min(soft, limits.getMoveTime());
+            hard = Math.min(hard, limits.getMoveTime());
+        }
+
+        this.softMillis = soft;
+        this.hardMillis = hard;
+    }
+
+    /**
+     * Records the outcome of an iteration and decides whether to start another.
+     *
+     * @param bestMove The best move of the completed iteration
+     * @param elapsedMillis The time spent on the search so far
+     * @return true if the search should stop here
+     */
+    public boolean stopAfterIteration(int bestMove, long elapsedMillis) {
+        stability = (bestMove == lastBestMove) ? stability + 1 : 0;
+        lastBestMove = bestMove;
+        return softLimitReached(elapsedMillis);
+    }
+
+    /**
+     * Checks whether the search has had enough time for the move, given how
+     * stable the best move has been so far.
+     *
+     * @param elapsedMillis The time spent on the search so far
+     * @return true if no further iteration should be started
+     */
+    public boolean softLimitReached(long elapsedMillis) {
+        if (softMillis == Long.MAX_VALUE) return false;
+
+        double scale = STABILITY_SCALE[Math.min(stability, STABILITY_SCALE.length - 1)];
+        return elapsedMillis >= Math.min(hardMillis, (long) (softMillis * scale));
+    }
+
+    /**
+     * Gets the time the move should take if the best move neither settles nor changes.
+     *
+     * @return The soft limit in milliseconds, or {@link Long#MAX_VALUE} if there is none
+     */
+    public long getSoftLimit() {
+        return softMillis;
+    }
+
+    /**
+     * Gets the time after which the search is aborted.
+     *
+     * @return The hard limit in milliseconds, or {@link Long#MAX_VALUE} if there is none
+     */
+    public long getHardLimit() {
+        return hardMillis;
+    }
+
+    /**
+     * Gets how many iterations in a row have ended with the same best move.
+     *
+     * @return 0 if the last iteration changed the best move
+     */
+    public int getStability() {
+        return stability;
+    }
+}
@@ -0,0 +1,294 @@
+package engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size cache of search results shared by all search threads without locks.
+ * <p>
+ * The table is a flat {@code long[]} of buckets of four entries, 64 bytes per
+ * bucket. Each entry is two longs: the packed data, and the data XORed with the
+ * position key. A probe only matches if the two agree with the key, so an entry
+ * torn by two threads writing at once reads as a miss rather than as wrong data.
+ * <p>
+ * A store first reuses the entry of the same position, then an empty entry, and
+ * otherwise evicts the entry that is shallowest once its age is counted against
+ * it, so results from earlier searches make way for current ones.
+ * <p>
+ * Data layout, from the low bits: move (16), score (16), static evaluation (16),
+ * depth (8), bound (2) and age (6).
+ */
+public class TranspositionTable {
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = BUCKET_ENTRIES * ENTRY_LONGS;
+    private static final int AGE_BITS = 6;
+    private static final int AGE_MASK = (1 << AGE_BITS) - 1;
+
+    // Depth a stored entry loses per search it is out of date when choosing a victim
+    private static final int AGE_PENALTY = 8;
+
+    // Keeps the table array within Java's array size limit
+    private static final int MAX_BUCKETS = 1 << 27;
+
+    private final long[] table;
+    private final long bucketMask;
+    private final int sizeMB;
+    private volatile int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * Creates a table within a memory budget. The number of buckets is rounded
+     * down to a power of two, so the table may use less than the budget.
+     *
+     * @param sizeMB The memory budget in megabytes, at least 1
+     */
+    public TranspositionTable(int sizeMB) {
+        if (sizeMB < 1) {
+            throw new IllegalArgumentException("Hash size must be at least 1 MB: " + sizeMB);
+        }
+
+        long buckets = ((long) sizeMB << 20) / (BUCKET_LONGS * Long.BYTES);
+        buckets = Math.min(Long.highestOneBit(buckets), MAX_BUCKETS);
+
+        this.table = new long[(int) buckets * BUCKET_LONGS];
+        this.bucketMask = buckets - 1;
+        this.sizeMB = sizeMB;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key The position key
+     * @return The packed entry data, or 0 if the position is not stored
+     */
+    public long probe(long key) {
+        probes.increment();
+        int bucket = bucketIndex(key);
+
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            if (data != 0 && (table[i] ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores a search result. A result without a move keeps the move already
+     * stored for the same position.
+     *
+     * @param key The position key
+     * @param move The best move found, or {@link model.PackedMove#NONE}
+     * @param score The score, with mate scores relative to the current node
+     * @param eval The static evaluation of the position
+     * @param depth The depth searched, from 0 to 255
+     * @param bound Whether the score is exact, a lower bound or an upper bound
+     * @param ply The distance from the root, to store mate scores relative to this node
+     */
+    public void store(long key, int move, int score, int eval, int depth, int bound, int ply) {
+        stores.increment();
+        int bucket = bucketIndex(key);
+        int currentAge = age;
+
+        int same = -1;
+        int empty = -1;
+        int victim = bucket;
+        int worst = Integer.MAX_VALUE;
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            if (data == 0) {
+                if (empty < 0) empty = i;
+            } else if ((table[i] ^ data) == key) {
+                same = i;
+                break;
+            } else {
+                int value = depth(data) - AGE_PENALTY * ((currentAge - age(data)) & AGE_MASK);
+                if (value < worst) {
+                    victim = i;
+                    worst = value;
+                }
+            }
+        }
+
+        int slot = (same >= 0) ? same : (empty >= 0) ? empty : victim;
+        if (same >= 0 && move == 0) {
+            // Same position: keep its move if this result has none
+            move = move(table[same + 1]);
+        }
+
+        long old = table[slot + 1];
+        if (old != 0 && (table[slot] ^ old) != key) collisions.increment();
+
+        long data = pack(move, toStored(score, ply), eval, depth, bound, currentAge);
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+    }
+
+    /**
+     * Starts a new search, ageing every entry stored so far.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Empties the table and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        age = 0;
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        collisions.reset();
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    /**
+     * Gets the stored score, converting a mate score back to the distance from the root.
+     *
+     * @param data The packed entry data
+     * @param ply The distance from the root of the probing node
+     * @return The score
+     */
+    public static int score(long data, int ply) {
+        int score = (short) (data >>> 16);
+        if (score >= Engine.MATE - Engine.MAX_PLY) return score - ply;
+        if (score <= -Engine.MATE + Engine.MAX_PLY) return score + ply;
+        return score;
+    }
+
+    public static int eval(long data) {
+        return (short) (data >>> 32);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 48) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 56) & 3);
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> 58);
+    }
+
+    /*
+     * Packs the fields of an entry; the bound is never 0, so neither is the result.
+     */
+    private static long pack(int move, int score, int eval, int depth, int bound, int age) {
+        return (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((eval & 0xFFFFL) << 32)
+                | ((long) Math.min(Math.max(depth, 0), 255) << 48)
+                | ((long) bound << 56)
+                | ((long) age << 58);
+    }
+
+    /*
+     * Mate scores are stored as distance from this node, so they stay valid
+     * when the position is reached at another ply.
+     */
+    private static int toStored(int score, int ply) {
+        if (score >= Engine.MATE - Engine.MAX_PLY) return score + ply;
+        if (score <= -Engine.MATE + Engine.MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private int bucketIndex(long key) {
+        // The low bits pick the bucket; the full key is still compared on probe
+        return (int) (key & bucketMask) * BUCKET_LONGS;
+    }
+
+    public int getSizeMB() {
+        return sizeMB;
+    }
+
+    /**
+     * Gets the number of entries the table holds.
+     *
+     * @return Four entries per bucket
+     */
+    public long getCapacity() {
+        return table.length / ENTRY_LONGS;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of probes that found nothing.
+     *
+     * @return The miss count
+     */
+    public long getMisses() {
+        return probes.sum() - hits.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Gets the number of stores that evicted an entry of a different position.
+     *
+     * @return The collision count
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    /**
+     * Gets the fraction of probes that found an entry.
+     *
+     * @return The hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long probeCount = probes.sum();
+        return probeCount == 0 ? 0.0 : (double) hits.sum() / probeCount;
+    }
+
+    /**
+     * Estimates how full the table is with entries from the current search,
+     * by sampling the first thousand entries, as UCI's hashfull reports it.
+     *
+     * @return Used entries per thousand
+     */
+    public int getHashfull() {
+        int sampled = (int) Math.min(1000, getCapacity());
+        int used = 0;
+        int currentAge = age;
+        for (int i = 0; i < sampled; i++) {
+            long data = table[i * ENTRY_LONGS + 1];
+            if (data != 0 && age(data) == currentAge) used++;
+        }
+        return sampled == 0 ? 0 : used * 1000 / sampled;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Hash: %d MB, %d entries, %d probes, %d hits (%.1f%%), %d misses, %d stores, %d collisions",
+                sizeMB, getCapacity(), getProbes(), getHits(), 100 * getHitRate(), getMisses(), getStores(),
+                getCollisions());
+    }
+}
@@ -0,0 +1,385 @@
+package model;
+
+/**
+ * Static attack tables and helpers for working with 64-bit square sets.
+ * <p>
+ * Squares are indexed {@code y * 8 + x} using the same coordinates as {@link Square}:
+ * x is the file (0 = a) and y counts down from the top of the board (0 = rank 8),
+ * so bit 0 is a8 and bit 63 is h1.
+ * <p>
+ * Rook and bishop attacks come from magic-bitboard tables: the blockers on a
+ * square's rays are multiplied by a per-square magic number to give a perfect
+ * index into a table of precomputed attack sets. The magics below were found by a
+ * seeded random search for this square layout; the tables are filled once when the
+ * class loads, and {@link #getInitNanos()} reports how long that took for the
+ * {@link Perft} command line to print.
+ */
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_8 = 0xFFL;
+    public static final long RANK_1 = RANK_8 << 56;
+
+    private static final int[][] ROOK_DIRECTIONS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final long[] ROOK_MAGICS = {
+            0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L,
+            0x0880100008000480L, 0x4200100420080200L, 0x8100020100080400L,
+            0x0200040110886200L, 0x0200008040220411L, 0x0404800084400220L,
+            0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+            0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L,
+            0x0442000102105084L, 0x9080010020804100L, 0x0040404000201009L,
+            0x0000808010002009L, 0x2200090021D00100L, 0x0008008008040080L,
+            0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+            0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L,
+            0x1000100080080080L, 0x0442000A00049020L, 0x2100040080020080L,
+            0x0800120400900148L, 0x0010040A00128541L, 0x2800804000800030L,
+            0x1010002000400041L, 0x4000200011004100L, 0x0610008410800800L,
+            0x0400802402800800L, 0xC100020080800400L, 0x0002000802000401L,
+            0x0182085882000401L, 0x0220204000808000L, 0x2860100040024022L,
+            0x0001002004110040L, 0x99101042000A0020L, 0x0004080004008080L,
+            0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+            0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L,
+            0x0801100280080480L, 0x0242009008200600L, 0x1002000489500200L,
+            0x0040800200010080L, 0x0091800041000080L, 0x0000209300488001L,
+            0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+            0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L,
+            0x4000002840840112L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0xA010041108003100L, 0x006082020A002900L, 0x6810010619200000L,
+            0x08281A0520000408L, 0x0001104001000400L, 0x0018901008048400L,
+            0x00040A0210245280L, 0x000200210808A402L, 0x9140048410821200L,
+            0x0800091010820041L, 0x20504804832202C0L, 0x0100091401081000L,
+            0x8021011140000012L, 0x0810020804450400L, 0x208B0542109008A2L,
+            0x0080084A08040204L, 0x0040E2A80811244CL, 0x2505022008008108L,
+            0x0430220100420040L, 0x010A040420220040L, 0x1105000290400000L,
+            0x0093001200822120L, 0x4000A62048043004L, 0x280120048A015004L,
+            0x006090002A020814L, 0x44042000240800D0L, 0x01102800040A4400L,
+            0x1004080080220040L, 0x0001001011004024L, 0x0010044000805040L,
+            0x0914041200820100L, 0x0004821012821480L, 0x0024040500C05021L,
+            0x0088611002080200L, 0x0116080A00040020L, 0x4000020080080080L,
+            0x2450450140840040L, 0x0000880201484100L, 0x0222020404020092L,
+            0x8081110600002E00L, 0x2842101105000801L, 0x1100809008001025L,
+            0x00020202221C0400L, 0x0422014022009020L, 0x0210046102100C00L,
+            0xC004008082029102L, 0x00AA461801101200L, 0x0404080080201108L,
+            0x020542108C205002L, 0x0410544804100100L, 0x0040910841100000L,
+            0x0400200042021100L, 0x00004204850400C0L, 0x0200100410A42102L,
+            0x1040020801210102L, 0x0805040410420000L, 0x2884804130100200L,
+            0x800C262201242000L, 0x1058000194108800L, 0x0014221054420204L,
+            0x0104000012A02200L, 0x0200881003300100L, 0x0140400202840100L,
+            0x0402020801010201L
+    };
+
+    // Magic lookup: relevant blocker mask, shift and table offset per square
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    // Squares strictly between two aligned squares, and the full line through them
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final long INIT_NANOS;
+
+    static {
+        long start = System.nanoTime();
+
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+
+        for (int sq = 0; sq < 64; sq++) {
+            int x = fileOf(sq);
+            int y = rankOf(sq);
+
+            KNIGHT_ATTACKS[sq] = stepAttacks(x, y, knightSteps);
+            KING_ATTACKS[sq] = stepAttacks(x, y, kingSteps);
+
+            // White pawns advance towards y = 0, black pawns towards y = 7
+            PAWN_ATTACKS[Position.WHITE][sq] = stepAttacks(x, y, new int[][]{{-1, -1}, {1, -1}});
+            PAWN_ATTACKS[Position.BLACK][sq] = stepAttacks(x, y, new int[][]{{-1, 1}, {1, 1}});
+        }
+
+        ROOK_TABLE = initMagics(ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = initMagics(BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS,
+                BISHOP_OFFSETS);
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) continue;
+
+                if ((rookAttacks(a, 0L) & bit(b)) != 0) {
+                    BETWEEN[a][b] = rookAttacks(a, bit(b)) & rookAttacks(b, bit(a));
+                    LINE[a][b] = (rookAttacks(a, 0L) & rookAttacks(b, 0L)) | bit(a) | bit(b);
+                } else if ((bishopAttacks(a, 0L) & bit(b)) != 0) {
+                    BETWEEN[a][b] = bishopAttacks(a, bit(b)) & bishopAttacks(b, bit(a));
+                    LINE[a][b] = (bishopAttacks(a, 0L) & bishopAttacks(b, 0L)) | bit(a) | bit(b);
+                }
+            }
+        }
+
+        INIT_NANOS = System.nanoTime() - start;
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * Converts board coordinates to a square index.
+     *
+     * @param x The file (0 = a)
+     * @param y The row from the top of the board (0 = rank 8)
+     * @return The square index
+     */
+    public static int square(int x, int y) {
+        return y * 8 + x;
+    }
+
+    public static int fileOf(int sq) {
+        return sq & 7;
+    }
+
+    public static int rankOf(int sq) {
+        return sq >>> 3;
+    }
+
+    public static long bit(int sq) {
+        return 1L << sq;
+    }
+
+    /**
+     * Gets the index of the lowest set square in a non-empty set.
+     *
+     * @param bb The square set
+     * @return The lowest square index
+     */
+    public static int lowest(long bb) {
+        return Long.numberOfTrailingZeros(bb);
+    }
+
+    /**
+     * Gets the algebraic name of a square, such as "e4".
+     *
+     * @param sq The square index
+     * @return The square name
+     */
+    public static String squareName(int sq) {
+        return (char) ('a' + fileOf(sq)) + "" + (8 - rankOf(sq));
+    }
+
+    /**
+     * Parses an algebraic square name such as "e4".
+     *
+     * @param name The square name
+     * @return The square index, or {@link Position#NO_SQUARE} if the name is not a square
+     */
+    public static int parseSquare(String name) {
+        if (name.length() != 2) return Position.NO_SQUARE;
+
+        int x = name.charAt(0) - 'a';
+        int y = '8' - name.charAt(1);
+        if (x < 0 || x > 7 || y < 0 || y > 7) return Position.NO_SQUARE;
+
+        return square(x, y);
+    }
+
+    public static long knightAttacks(int sq) {
+        return KNIGHT_ATTACKS[sq];
+    }
+
+    public static long kingAttacks(int sq) {
+        return KING_ATTACKS[sq];
+    }
+
+    /**
+     * Gets the squares a pawn of the given color attacks diagonally.
+     *
+     * @param color The pawn color (0 for black, 1 for white)
+     * @param sq The pawn square
+     * @return The attacked squares
+     */
+    public static long pawnAttacks(int color, int sq) {
+        return PAWN_ATTACKS[color][sq];
+    }
+
+    /**
+     * Gets the rook attacks from a square, stopping at (and including) the first
+     * occupied square on each ray.
+     *
+     * @param sq The rook square
+     * @param occupied All occupied squares
+     * @return The attacked squares
+     */
+    public static long rookAttacks(int sq, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq]);
+        return ROOK_TABLE[ROOK_OFFSETS[sq] + index];
+    }
+
+    /**
+     * Gets the bishop attacks from a square, stopping at (and including) the first
+     * occupied square on each diagonal.
+     *
+     * @param sq The bishop square
+     * @param occupied All occupied squares
+     * @return The attacked squares
+     */
+    public static long bishopAttacks(int sq, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq]);
+        return BISHOP_TABLE[BISHOP_OFFSETS[sq] + index];
+    }
+
+    public static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    /**
+     * Gets the squares strictly between two squares on a rank, file or diagonal.
+     *
+     * @param a One square
+     * @param b The other square
+     * @return The squares between them, or an empty set if they are not aligned
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * Gets the whole rank, file or diagonal running through two squares.
+     *
+     * @param a One square
+     * @param b The other square
+     * @return The line through both, or an empty set if they are not aligned
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * Gets the time spent building the magic tables when the class was loaded.
+     *
+     * @return The initialization time in nanoseconds
+     */
+    public static long getInitNanos() {
+        return INIT_NANOS;
+    }
+
+    /*
+     * Ray-walking rook attacks, used to fill the magic tables and to verify them.
+     */
+    static long rookRayAttacks(int sq, long occupied) {
+        return slidingAttacks(sq, occupied, ROOK_DIRECTIONS);
+    }
+
+    /*
+     * Ray-walking bishop attacks, used to fill the magic tables and to verify them.
+     */
+    static long bishopRayAttacks(int sq, long occupied) {
+        return slidingAttacks(sq, occupied, BISHOP_DIRECTIONS);
+    }
+
+    /*
+     * Fills one shared attack table for all squares from the ray-walking attacks.
+     * Masks, shifts and offsets are written per square.
+     */
+    private static long[] initMagics(int[][] directions, long[] magics, long[] masks,
+                                     int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            masks[sq] = relevantMask(sq, directions);
+            shifts[sq] = 64 - Long.bitCount(masks[sq]);
+            offsets[sq] = size;
+            size += 1 << Long.bitCount(masks[sq]);
+        }
+
+        long[] table = new long[size];
+        boolean[] filled = new boolean[size];
+
+        for (int sq = 0; sq < 64; sq++) {
+            // Enumerate every blocker subset of the mask (carry-rippler)
+            long subset = 0L;
+            do {
+                int index = offsets[sq] + (int) ((subset * magics[sq]) >>> shifts[sq]);
+                long attacks = slidingAttacks(sq, subset, directions);
+
+                if (filled[index] && table[index] != attacks) {
+                    throw new IllegalStateException("Bad magic for square " + squareName(sq));
+                }
+                table[index] = attacks;
+                filled[index] = true;
+
+                subset = (subset - masks[sq]) & masks[sq];
+            } while (subset != 0);
+        }
+
+        return table;
+    }
+
+    /*
+     * Squares whose occupancy can change a slider's attacks: the rays without
+     * their final edge square.
+     */
+    private static long relevantMask(int sq, int[][] directions) {
+        long mask = 0L;
+
+        for (int[] d : directions) {
+            int x = fileOf(sq) + d[0];
+            int y = rankOf(sq) + d[1];
+
+            while (x + d[0] >= 0 && x + d[0] < 8 && y + d[1] >= 0 && y + d[1] < 8) {
+                mask |= bit(square(x, y));
+                x += d[0];
+                y += d[1];
+            }
+        }
+
+        return mask;
+    }
+
+    /*
+     * Walks each ray square by square until it leaves the board or hits a piece.
+     */
+    private static long slidingAttacks(int sq, long occupied, int[][] directions) {
+        long attacks = 0L;
+
+        for (int[] d : directions) {
+            int x = fileOf(sq) + d[0];
+            int y = rankOf(sq) + d[1];
+
+            while (x >= 0 && x < 8 && y >= 0 && y < 8) {
+                long b = bit(square(x, y));
+                attacks |= b;
+                if ((occupied & b) != 0) break;
+                x += d[0];
+                y += d[1];
+            }
+        }
+
+        return attacks;
+    }
+
+    private static long stepAttacks(int x, int y, int[][] steps) {
+        long attacks = 0L;
+
+        for (int[] s : steps) {
+            int tx = x + s[0];
+            int ty = y + s[1];
+            if (tx >= 0 && tx < 8 && ty >= 0 && ty < 8) {
+                attacks |= bit(square(tx, ty));
+            }
+        }
+
+        return attacks;
+    }
+}
@@ -30,6 +30,7 @@ public class Board extends JPanel implements MouseListener, MouseMotionListener
 
     // Board state
     private final Square[][] board;
+    private ChessGame game;
     private final GameController controller;
 
     // Piece lists
@@ -50,6 +51,7 @@ public class Board extends JPanel implements MouseListener, MouseMotionListener
     public Board(GameController controller) {
         this.controller = controller;
         board = new Square[8][8];
+        game = new ChessGame(new Position());
         Bpieces = new LinkedList<>();
         Wpieces = new LinkedList<>();
         setLayout(new GridLayout(8, 8, 0, 0));
@@ -119,6 +121,9 @@ public class Board extends JPanel implements MouseListener, MouseMotionListener
         board[7][2].put(new Bishop(1, board[7][2], RESOURCES_WBISHOP_PNG));
         board[7][5].put(new Bishop(1, board[7][5], RESOURCES_WBISHOP_PNG));
 
+        // Both sides start with full castling rights
+        game.getPosition().setCastlingRights(Position.ALL_CASTLING);
+
         // Populate piece lists
         for(int y = 0; y < 2; y++) {
             for (int x = 0; x < 8; x++) {
@@ -131,6 +136,121 @@ public class Board extends JPanel implements MouseListener, MouseMotionListener
         controller.initializeCheckmateDetector();
     }
 
+    /**
+     * Replaces the pieces on the board with those of a position, creating new
+     * piece objects, and copies its side to move, castling rights, en passant
+     * square and move counters. The game starts over from the loaded position,
+     * so earlier moves can no longer be undone or count towards a repetition.
+     * The controller is told about the new kings.
+     *
+     * @param source The position to set up
+     */
+    public void loadPosition(Position source) {
+        Bpieces.clear();
+        Wpieces.clear();
+
+        game = new ChessGame(new Position());
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                if (board[y][x].isOccupied()) board[y][x].removePiece();
+            }
+        }
+
+        King wk = null;
+        King bk = null;
+        for (int sq = 0; sq < 64; sq++) {
+            int type = source.typeAt(sq);
+            if (type == Position.EMPTY) continue;
+
+            int color = source.colorAt(sq);
+            Square square = getSquare(sq);
+            Piece piece = createPiece(color, type, square);
+            square.put(piece);
+
+            if (color == 1) Wpieces.add(piece);
+            else Bpieces.add(piece);
+
+            if (type == Position.KING) {
+                if (color == 1) wk = (King) piece;
+                else bk = (King) piece;
+            }
+        }
+
+        Position position = game.getPosition();
+        position.setSideToMove(source.getSideToMove());
+        position.setCastlingRights(source.getCastlingRights());
+        position.setEnPassantSquare(source.getEnPassantSquare());
+        position.setHalfmoveClock(source.getHalfmoveClock());
+        position.setFullmoveNumber(source.getFullmoveNumber());
+
+        if (controller.getGameState() != null) {
+            controller.getGameState().setKings(wk, bk);
+        }
+        repaint();
+    }
+
+    /**
+     * Mirrors a move already played on the game's position onto the squares and
+     * piece lists: the moving piece keeps its identity, a captured piece (also
+     * en passant) is removed, a castling rook follows the king and a promoting
+     * pawn is replaced by a new piece. The square changes write through to the
+     * position, which already holds the same pieces, so it is left as it is.
+     *
+     * @param move The packed move that was played
+     */
+    public void applyMove(int move) {
+        Square from = getSquare(PackedMove.from(move));
+        Square to = getSquare(PackedMove.to(move));
+        Piece piece = from.getOccupyingPiece();
+
+        Square victimSquare = PackedMove.isEnPassant(move) ? board[from.getYNum()][to.getXNum()] : to;
+        Piece victim = victimSquare.getOccupyingPiece();
+        if (victim != null) {
+            victimSquare.removePiece();
+            (victim.getColor() == 1 ? Wpieces : Bpieces).remove(victim);
+        }
+
+        from.removePiece();
+        Piece placed = piece;
+        if (PackedMove.isPromotion(move)) {
+            placed = createPiece(piece.getColor(), PackedMove.promotion(move), to);
+            List<Piece> pieces = (piece.getColor() == 1) ? Wpieces : Bpieces;
+            pieces.remove(piece);
+            pieces.add(placed);
+        }
+        to.put(placed);
+
+        if (PackedMove.isCastle(move)) {
+            boolean kingside = to.getXNum() > from.getXNum();
+            Square rookFrom = board[to.getYNum()][kingside ? 7 : 0];
+            Square rookTo = board[to.getYNum()][kingside ? 5 : 3];
+            Piece rook = rookFrom.removePiece();
+            rookTo.put(rook);
+        }
+        repaint();
+    }
+
+    /*
+     * Creates a piece object of a type from Position; its image is loaded when first drawn.
+     */
+    private Piece createPiece(int color, int type, Square square) {
+        boolean white = color == 1;
+        switch (type) {
+            case Position.PAWN:
+                return new Pawn(color, square, white ? RESOURCES_WPAWN_PNG : RESOURCES_BPAWN_PNG);
+            case Position.KNIGHT:
+                return new Knight(color, square, white ? RESOURCES_WKNIGHT_PNG : RESOURCES_BKNIGHT_PNG);
+            case Position.BISHOP:
+                return new Bishop(color, square, white ? RESOURCES_WBISHOP_PNG : RESOURCES_BBISHOP_PNG);
+            case Position.ROOK:
+                return new Rook(color, square, white ? RESOURCES_WROOK_PNG : RESOURCES_BROOK_PNG);
+            case Position.QUEEN:
+                return new Queen(color, square, white ? RESOURCES_WQUEEN_PNG : RESOURCES_BQUEEN_PNG);
+            default:
+                return new King(color, square, white ? RESOURCES_WKING_PNG : RESOURCES_BKING_PNG);
+        }
+    }
+
     /**
      * Gets the 2D array of squares on the board.
      *
@@ -140,6 +260,50 @@ public class Board extends JPanel implements MouseListener, MouseMotionListener
         return this.board;
     }
 
+    /**
+     * Gets the headless game core this board renders.
+     *
+     * @return The game
+     */
+    public ChessGame getGame() {
+        return this.game;
+    }
+
+    /**
+     * Gets the bitboard position mirrored by the squares of this board.
+     * Every change to a square is written through to it.
+     *
+     * @return The bitboard position
+     */
+    public Position getPosition() {
+        return game.getPosition();
+    }
+
+    /**
+     * Gets the square with the given bitboard index.
+     *
+     * @param index The square index (y * 8 + x)
+     * @return The square
+     */
+    public Square getSquare(int index) {
+        return board[Bitboards.rankOf(index)][Bitboards.fileOf(index)];
+    }
+
+    /**
+     * Converts a bitboard of square indices into the matching board squares.
+     *
+     * @param squares The square set
+     * @return List of the squares in the set
+     */
+    public List<Square> toSquares(long squares) {
+        LinkedList<Square> list = new LinkedList<>();
+        while (squares != 0) {
+            list.add(getSquare(Bitboards.lowest(squares)));
+            squares &= squares - 1;
+        }
+        return list;
+    }
+
     /**
      * Gets the current turn (true for white, false for black).
      *
@@ -244,8 +408,8 @@ public class Board extends JPanel implements MouseListener, MouseMotionListener
 
         // Check if the target square is a valid destination
         if (legalMoves.contains(sq) && allowableMoves.contains(sq)) {
-            // Use controller to move the piece
-            boolean moveSuccessful = controller.movePiece(currPiece, sq);
+            // Use controller to move the piece, asking for the promotion piece first
+            boolean moveSuccessful = controller.movePiece(currPiece, sq, choosePromotion(currPiece, sq));
 
             if (moveSuccessful) {
                 sq.setDisplay(true);
@@ -259,43 +423,34 @@ public class Board extends JPanel implements MouseListener, MouseMotionListener
             currPiece.getPosition().setDisplay(true);
         }
 
-        if (currPiece != null && currPiece instanceof Pawn) {
-            Pawn pawn = (Pawn) currPiece;
-            Square square = pawn.getPosition();
-
-            // Check if pawn is on promotion rank
-            boolean isPromotionRank = (pawn.getColor() == 1 && square.getYNum() == 0) ||
-                    (pawn.getColor() == 0 && square.getYNum() == 7);
-
-            if (isPromotionRank) {
-                // Show promotion dialog
-                String[] options = {"Queen", "Rook", "Bishop", "Knight"};
-                int choice = JOptionPane.showOptionDialog(
-                        this,
-                        "Choose promotion piece:",
-                        "Pawn Promotion",
-                        JOptionPane.DEFAULT_OPTION,
-                        JOptionPane.QUESTION_MESSAGE,
-                        null,
-                        options,
-                        options[0]
-                );
-
-                // Promote pawn
-                String promotionChoice = (choice >= 0) ? options[choice] : "Queen";
-                pawn.promote(square, promotionChoice);
-            }
-        }
-
-
-
-
-
-
         currPiece = null;
         repaint();
     }
 
+    /*
+     * Asks which piece a pawn reaching the last rank becomes; queen for any other move.
+     */
+    private int choosePromotion(Piece piece, Square destination) {
+        boolean isPromotionRank = (piece.getColor() == 1 && destination.getYNum() == 0) ||
+                (piece.getColor() == 0 && destination.getYNum() == 7);
+        if (!(piece instanceof Pawn) || !isPromotionRank) return Position.QUEEN;
+
+        // Show promotion dialog
+        String[] options = {"Queen", "Rook", "Bishop", "Knight"};
+        int[] types = {Position.QUEEN, Position.ROOK, Position.BISHOP, Position.KNIGHT};
+        int choice = JOptionPane.showOptionDialog(
+                this,
+                "Choose promotion piece:",
+                "Pawn Promotion",
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                options,
+                options[0]
+        );
+        return (choice >= 0) ? types[choice] : Position.QUEEN;
+    }
+
     @Override
     public void mouseDragged(MouseEvent e) {
         currX = e.getX() - 24;
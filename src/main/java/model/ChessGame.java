@@ -0,0 +1,230 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Headless game core: a {@link Position} with legal move generation, move
+ * history and game-end detection. Nothing here depends on AWT or Swing, and no
+ * piece images are loaded, so games can be created and played without a
+ * graphics environment (engines, servers, tests).
+ * <p>
+ * {@link Board} wraps a game for rendering and mouse input, mirroring each move
+ * played here onto its squares.
+ */
+public class ChessGame {
+    private final Position position;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveList legalMoves = new MoveList();
+    private int[] history = new int[64];
+    private int historySize;
+
+    /**
+     * Creates a game from the standard starting position.
+     */
+    public ChessGame() {
+        this(Position.startPosition());
+    }
+
+    /**
+     * Creates a game from a FEN string.
+     *
+     * @param fen The position in Forsyth-Edwards Notation
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public ChessGame(String fen) {
+        this(Position.fromFen(fen));
+    }
+
+    /**
+     * Creates a game around a position. The position is used directly, not
+     * copied, so changes made to it elsewhere are seen by the game.
+     *
+     * @param position The position to play from
+     */
+    public ChessGame(Position position) {
+        this.position = position;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public int getSideToMove() {
+        return position.getSideToMove();
+    }
+
+    /**
+     * Generates every legal move of the side to move.
+     *
+     * @param moves The list to fill; it is cleared first
+     * @return The number of legal moves
+     */
+    public int getLegalMoves(MoveList moves) {
+        return generator.generateMoves(position, moves);
+    }
+
+    /**
+     * Gets the legal destinations of the piece on a square, for that piece's
+     * own color whichever side is to move.
+     *
+     * @param from The square index of the piece
+     * @return Set of legal destinations as a bitboard, empty if the square is empty
+     */
+    public long getLegalTargets(int from) {
+        if (!position.isOccupied(from)) return 0L;
+
+        generator.analyze(position, position.colorAt(from));
+        return generator.legalTargets(from);
+    }
+
+    /**
+     * Checks whether a packed move is legal for the side to move.
+     *
+     * @param move The packed move
+     * @return true if the move is among the legal moves
+     */
+    public boolean isLegal(int move) {
+        if (move == PackedMove.NONE) return false;
+
+        generator.generateMoves(position, legalMoves);
+        return legalMoves.contains(move);
+    }
+
+    /**
+     * Plays a move if it is legal for the side to move.
+     *
+     * @param move The packed move
+     * @return true if the move was played, false if it is illegal
+     */
+    public boolean play(int move) {
+        if (!isLegal(move)) return false;
+
+        position.makeMove(move);
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
+        }
+        history[historySize++] = move;
+        return true;
+    }
+
+    /**
+     * Plays a move given in coordinate notation, such as "e2e4" or "e7e8q".
+     *
+     * @param text The move text
+     * @return true if the move was played, false if it is malformed or illegal
+     */
+    public boolean play(String text) {
+        return play(PackedMove.parse(position, text));
+    }
+
+    /**
+     * Takes back the last move played through this game.
+     *
+     * @return The move taken back
+     * @throws IllegalStateException if no move has been played
+     */
+    public int undo() {
+        if (historySize == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+
+        position.unmakeMove();
+        return history[--historySize];
+    }
+
+    /**
+     * Gets the number of moves played through this game.
+     *
+     * @return The length of the move history
+     */
+    public int getMoveCount() {
+        return historySize;
+    }
+
+    /**
+     * Gets a move from the history.
+     *
+     * @param index The index, 0 for the first move played
+     * @return The packed move
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= historySize) {
+            throw new IndexOutOfBoundsException("No move at index " + index);
+        }
+        return history[index];
+    }
+
+    /**
+     * Gets the move history.
+     *
+     * @return A copy of the packed moves in the order they were played
+     */
+    public int[] getHistory() {
+        return Arrays.copyOf(history, historySize);
+    }
+
+    /**
+     * Checks whether a side's king is attacked.
+     *
+     * @param color The side to test
+     * @return true if that king is in check
+     */
+    public boolean isInCheck(int color) {
+        return position.isInCheck(color);
+    }
+
+    /**
+     * Checks whether a side is checkmated: in check with no legal move.
+     *
+     * @param color The side to test
+     * @return true if that side is checkmated
+     */
+    public boolean isCheckmated(int color) {
+        generator.analyze(position, color);
+        return generator.isInCheck() && !generator.hasLegalMove();
+    }
+
+    /**
+     * Checks whether the side to move is stalemated: not in check with no legal move.
+     *
+     * @return true on stalemate
+     */
+    public boolean isStalemate() {
+        generator.analyze(position, position.getSideToMove());
+        return !generator.isInCheck() && !generator.hasLegalMove();
+    }
+
+    /**
+     * Checks whether the current position has occurred three times, counting
+     * only positions reached through moves played on this position.
+     *
+     * @return true if a draw can be claimed by repetition
+     */
+    public boolean isThreefoldRepetition() {
+        return position.repetitions() >= 2;
+    }
+
+    /**
+     * Checks whether the side to move has no legal move, by checkmate or stalemate.
+     *
+     * @return true if the game is over
+     */
+    public boolean isGameOver() {
+        generator.analyze(position, position.getSideToMove());
+        return !generator.hasLegalMove();
+    }
+
+    /**
+     * Describes the current position in Forsyth-Edwards Notation.
+     *
+     * @return The FEN string
+     */
+    public String toFen() {
+        return position.toFen();
+    }
+
+    @Override
+    public String toString() {
+        return position.toString();
+    }
+}
@@ -15,6 +15,19 @@ public class Clock {
         return (hh == 0 && mm == 0 && ss == 0);
     }
 
+    /**
+     * Sets the clock to a time in milliseconds, rounding up to whole seconds
+     * so that it only reads zero once the time is up.
+     *
+     * @param millis The time left in milliseconds
+     */
+    public void set(long millis) {
+        long secs = Math.max(0, (millis + 999) / 1000);
+        this.hh = (int) (secs / 3600);
+        this.mm = (int) (secs / 60 % 60);
+        this.ss = (int) (secs % 60);
+    }
+
     public void decr() {
         if (this.mm == 0 && this.ss == 0) {
             this.ss = 59;
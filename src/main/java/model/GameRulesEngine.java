@@ -1,15 +1,12 @@
 package model;
 
-import model.pieces.Bishop;
 import model.pieces.King;
-import model.pieces.Queen;
 
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * Component of the claudie.controller.Chess game that handles game rules, particularly check and checkmate detection.
@@ -18,29 +15,33 @@ import java.util.concurrent.ConcurrentLinkedDeque;
  */
 public class GameRulesEngine {
     private Board board;
-    private LinkedList<Piece> whitePieces;
-    private LinkedList<Piece> blackPieces;
     private final LinkedList<Square> allSquares;
     private King blackKing;
     private King whiteKing;
     private HashMap<Square, List<Piece>> whiteMoves;
     private HashMap<Square, List<Piece>> blackMoves;
+    private final MoveGenerator moveGenerator = new MoveGenerator();
+    private final MoveList moveList = new MoveList();
+
+    // Snapshot of the board the move maps were built from, indexed by square
+    private final Piece[] mappedPieces = new Piece[64];
+    private final long[] mappedTargets = new long[64];
+    private final long[] dependencies = new long[64];
+
+    private boolean incremental = true;
+    private boolean consistencyChecks = false;
+    private boolean mapped = false;
 
     /**
      * Constructs a new instance of GameRulesEngine on a given board.
      * By convention should be called when the board is in its initial state.
      *
      * @param board The board which the engine monitors
-     * @param whitePieces White pieces on the board
-     * @param blackPieces Black pieces on the board
      * @param whiteKing Model.Piece object representing the white king
      * @param blackKing Model.Piece object representing the black king
      */
-    public GameRulesEngine(Board board, LinkedList<Piece> whitePieces,
-                           LinkedList<Piece> blackPieces, King whiteKing, King blackKing) {
+    public GameRulesEngine(Board board, King whiteKing, King blackKing) {
         this.board = board;
-        this.whitePieces = whitePieces;
-        this.blackPieces = blackPieces;
         this.blackKing = blackKing;
         this.whiteKing = whiteKing;
 
@@ -66,55 +67,188 @@ public class GameRulesEngine {
 
     /**
      * Updates the object with the current situation of the game.
+     * In incremental mode only the pieces affected by squares that changed since
+     * the last update are regenerated; otherwise the move maps are rebuilt.
      */
     public void update() {
-        // Iterators through pieces
-        Iterator<Piece> whiteIterator = whitePieces.iterator();
-        Iterator<Piece> blackIterator = blackPieces.iterator();
+        if (incremental && mapped) {
+            updateChangedSquares();
+        } else {
+            rebuild();
+        }
 
-        // empty moves at each update
+        if (consistencyChecks) {
+            verifyAgainstRebuild();
+        }
+    }
+
+    /**
+     * Enables or disables incremental updates of the move maps.
+     *
+     * @param incremental true to regenerate only affected pieces on update
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Enables or disables comparing the move maps against a full rebuild after
+     * every update. Meant for tests; a mismatch throws IllegalStateException.
+     *
+     * @param consistencyChecks true to verify every update
+     */
+    public void setConsistencyChecks(boolean consistencyChecks) {
+        this.consistencyChecks = consistencyChecks;
+    }
+
+    /*
+     * Clears the move maps and regenerates moves for every piece on the board.
+     */
+    private void rebuild() {
         for (List<Piece> pieces : whiteMoves.values()) {
-            pieces.removeAll(pieces);
+            pieces.clear();
         }
 
         for (List<Piece> pieces : blackMoves.values()) {
-            pieces.removeAll(pieces);
+            pieces.clear();
+        }
+
+        for (int sq = 0; sq < 64; sq++) {
+            mappedPieces[sq] = null;
+            mappedTargets[sq] = 0L;
+            dependencies[sq] = 0L;
+
+            Piece p = board.getSquare(sq).getOccupyingPiece();
+            if (p != null) mapPiece(sq, p);
+        }
+
+        mapped = true;
+    }
+
+    /*
+     * Regenerates only the pieces that moved, were captured or placed, and the
+     * pieces whose moves depend on one of those squares (sliders whose rays pass
+     * through them, pawns blocked by or capturing on them).
+     */
+    private void updateChangedSquares() {
+        long changed = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            if (board.getSquare(sq).getOccupyingPiece() != mappedPieces[sq]) {
+                changed |= Bitboards.bit(sq);
+            }
         }
 
-        // Add each move white and black can make to map
-        while (whiteIterator.hasNext()) {
-            Piece p = whiteIterator.next();
-
-            if (!p.getClass().equals(King.class)) {
-                if (p.getPosition() == null) {
-                    whiteIterator.remove();
-                    continue;
-                }
-
-                List<Square> moves = p.getLegalMoves(board);
-                Iterator<Square> iter = moves.iterator();
-                while (iter.hasNext()) {
-                    List<Piece> pieces = whiteMoves.get(iter.next());
-                    pieces.add(p);
-                }
+        if (changed == 0) return;
+
+        long affected = changed;
+        for (int sq = 0; sq < 64; sq++) {
+            if ((dependencies[sq] & changed) != 0) {
+                affected |= Bitboards.bit(sq);
             }
         }
 
-        while (blackIterator.hasNext()) {
-            Piece p = blackIterator.next();
-
-            if (!p.getClass().equals(King.class)) {
-                if (p.getPosition() == null) {
-                    blackIterator.remove();
-                    continue;
-                }
-
-                List<Square> moves = p.getLegalMoves(board);
-                Iterator<Square> iter = moves.iterator();
-                while (iter.hasNext()) {
-                    List<Piece> pieces = blackMoves.get(iter.next());
-                    pieces.add(p);
-                }
+        for (long bb = affected; bb != 0; bb &= bb - 1) {
+            unmapPiece(Bitboards.lowest(bb));
+        }
+
+        for (long bb = affected; bb != 0; bb &= bb - 1) {
+            int sq = Bitboards.lowest(bb);
+            Piece p = board.getSquare(sq).getOccupyingPiece();
+            if (p != null) mapPiece(sq, p);
+        }
+    }
+
+    /*
+     * Adds a piece's moves to the map of its color. Kings are recorded on their
+     * square but left out of the maps.
+     */
+    private void mapPiece(int sq, Piece p) {
+        mappedPieces[sq] = p;
+        if (p.getClass().equals(King.class)) return;
+
+        Position position = board.getPosition();
+        long targets = p.getMoveTargets(position);
+        mappedTargets[sq] = targets;
+        dependencies[sq] = dependencies(p, sq, position);
+
+        Map<Square, List<Piece>> moves = (p.getColor() == 1) ? whiteMoves : blackMoves;
+        for (long bb = targets; bb != 0; bb &= bb - 1) {
+            moves.get(board.getSquare(Bitboards.lowest(bb))).add(p);
+        }
+    }
+
+    /*
+     * Removes the piece recorded on a square from the move maps.
+     */
+    private void unmapPiece(int sq) {
+        Piece p = mappedPieces[sq];
+        if (p == null) return;
+
+        Map<Square, List<Piece>> moves = (p.getColor() == 1) ? whiteMoves : blackMoves;
+        for (long bb = mappedTargets[sq]; bb != 0; bb &= bb - 1) {
+            moves.get(board.getSquare(Bitboards.lowest(bb))).remove(p);
+        }
+
+        mappedPieces[sq] = null;
+        mappedTargets[sq] = 0L;
+        dependencies[sq] = 0L;
+    }
+
+    /*
+     * Squares whose occupancy can change the moves of a piece standing on sq.
+     */
+    private long dependencies(Piece p, int sq, Position position) {
+        long occupied = position.occupancy();
+
+        switch (p.getType()) {
+            case Position.PAWN: {
+                int forward = (p.getColor() == Position.WHITE) ? -8 : 8;
+                int startRow = (p.getColor() == Position.WHITE) ? 6 : 1;
+                long squares = Bitboards.pawnAttacks(p.getColor(), sq);
+                if (sq + forward >= 0 && sq + forward < 64) squares |= Bitboards.bit(sq + forward);
+                if (Bitboards.rankOf(sq) == startRow) squares |= Bitboards.bit(sq + 2 * forward);
+                return squares;
+            }
+            case Position.BISHOP:
+                return Bitboards.bishopAttacks(sq, occupied);
+            case Position.ROOK:
+                return Bitboards.rookAttacks(sq, occupied);
+            case Position.QUEEN:
+                return Bitboards.queenAttacks(sq, occupied);
+            default:
+                // Knight and king moves do not depend on other pieces
+                return 0L;
+        }
+    }
+
+    /*
+     * Compares the current move maps against maps built from scratch.
+     */
+    private void verifyAgainstRebuild() {
+        Position position = board.getPosition();
+
+        for (int sq = 0; sq < 64; sq++) {
+            Square square = board.getSquare(sq);
+            HashSet<Piece> expectedWhite = new HashSet<Piece>();
+            HashSet<Piece> expectedBlack = new HashSet<Piece>();
+
+            for (int from = 0; from < 64; from++) {
+                Piece p = board.getSquare(from).getOccupyingPiece();
+                if (p == null || p.getClass().equals(King.class)) continue;
+                if ((p.getMoveTargets(position) & Bitboards.bit(sq)) == 0) continue;
+
+                if (p.getColor() == 1) expectedWhite.add(p);
+                else expectedBlack.add(p);
+            }
+
+            if (!expectedWhite.equals(new HashSet<Piece>(whiteMoves.get(square)))
+                    || !expectedBlack.equals(new HashSet<Piece>(blackMoves.get(square)))) {
+                throw new IllegalStateException("Move maps differ from a full rebuild at "
+                        + square.getPositionName());
             }
         }
     }
@@ -144,14 +278,8 @@ public class GameRulesEngine {
      * @return boolean representing if black player is checkmated.
      */
     public boolean isBlackCheckmated() {
-        // Check if black is in check
-        if (!this.isBlackInCheck()) return false;
-
-        // Get squares that can help escape checkmate
-        List<Square> escapeMoves = getCheckEscapeMoves(false);
-
-        // If there are escape moves, not checkmate
-        return escapeMoves.isEmpty();
+        // Checkmate when in check with no legal move left
+        return board.getGame().isCheckmated(Position.BLACK);
     }
 
     /**
@@ -159,14 +287,8 @@ public class GameRulesEngine {
      * @return boolean representing if white player is checkmated.
      */
     public boolean isWhiteCheckmated() {
-        // Check if white is in check
-        if (!this.isWhiteInCheck()) return false;
-
-        // Get squares that can help escape checkmate
-        List<Square> escapeMoves = getCheckEscapeMoves(true);
-
-        // If there are escape moves, not checkmate
-        return escapeMoves.isEmpty();
+        // Checkmate when in check with no legal move left
+        return board.getGame().isCheckmated(Position.WHITE);
     }
 
     /**
@@ -178,294 +300,91 @@ public class GameRulesEngine {
     public List<Square> getCheckEscapeMoves(boolean isWhite) {
         LinkedList<Square> movableSquares = new LinkedList<Square>();
 
-        if (isWhite) {
-            // If not in check, all squares are valid
-            if (!isWhiteInCheck()) {
-                movableSquares.addAll(allSquares);
-                return movableSquares;
-            }
-
-            // Check if king can evade
-            if (canEvade(blackMoves, whiteKing, movableSquares)) {
-                // Evade moves already added to movableSquares
-            }
-
-            // Check if threat can be captured
-            List<Piece> threats = blackMoves.get(whiteKing.getPosition());
-            if (canCapture(whiteMoves, threats, whiteKing, movableSquares)) {
-                // Capture moves already added to movableSquares
-            }
+        // If not in check, all squares are valid
+        if (isWhite ? !isWhiteInCheck() : !isBlackInCheck()) {
+            movableSquares.addAll(allSquares);
+            return movableSquares;
+        }
 
-            // Check if threat can be blocked
-            if (canBlock(threats, whiteMoves, whiteKing, movableSquares)) {
-                // Block moves already added to movableSquares
-            }
-        } else {
-            // If not in check, all squares are valid
-            if (!isBlackInCheck()) {
-                movableSquares.addAll(allSquares);
-                return movableSquares;
-            }
+        // Otherwise every square some piece can legally reach evades, captures or blocks
+        moveGenerator.analyze(board.getPosition(), isWhite ? Position.WHITE : Position.BLACK);
+        movableSquares.addAll(board.toSquares(moveGenerator.allTargets()));
+        return movableSquares;
+    }
 
-            // Check if king can evade
-            if (canEvade(whiteMoves, blackKing, movableSquares)) {
-                // Evade moves already added to movableSquares
-            }
+    /**
+     * Gets the fully legal destinations of a piece, for the piece's own color
+     * whichever side is to move. Castling and en passant are included.
+     *
+     * @param p Model.Piece whose moves are wanted
+     * @return List of squares p can legally move to
+     */
+    public List<Square> getLegalMoves(Piece p) {
+        return board.toSquares(legalTargets(p));
+    }
 
-            // Check if threat can be captured
-            List<Piece> threats = whiteMoves.get(blackKing.getPosition());
-            if (canCapture(blackMoves, threats, blackKing, movableSquares)) {
-                // Capture moves already added to movableSquares
-            }
+    /**
+     * Gets every legal move of the side to move, converted to Move objects for the UI.
+     *
+     * @return List of legal moves
+     */
+    public List<Move> getAllLegalMoves() {
+        board.getGame().getLegalMoves(moveList);
 
-            // Check if threat can be blocked
-            if (canBlock(threats, blackMoves, blackKing, movableSquares)) {
-                // Block moves already added to movableSquares
-            }
+        List<Move> moves = new LinkedList<Move>();
+        for (int i = 0; i < moveList.size(); i++) {
+            moves.add(Move.fromPacked(board, moveList.get(i)));
         }
-
-        return movableSquares;
+        return moves;
     }
 
     /**
      * Tests a move to prevent making an illegal move that puts the player in check.
+     * Legality comes from the pin- and check-aware generator, so nothing is moved,
+     * not even on the bitboard position.
      * @param p Model.Piece to be moved
      * @param sq Square to which p is about to move
      * @return false if move would cause a check
      */
     public boolean testMove(Piece p, Square sq) {
-        Piece captured = sq.getOccupyingPiece();
-        boolean moveValid = true;
-        Square initial = p.getPosition();
-
-        p.move(sq);
-        update();
-
-        if (p.getColor() == 0 && isBlackInCheck()) moveValid = false;
-        else if (p.getColor() == 1 && isWhiteInCheck()) moveValid = false;
-
-        p.move(initial);
-        if (captured != null) sq.put(captured);
-
-        update();
-
-        return moveValid;
+        return (legalTargets(p) & Bitboards.bit(sq.getIndex())) != 0;
     }
 
-    /*
-     * Helper method to determine if the king can evade the check.
-     * Returns true if king can move to a safe square.
+    /**
+     * Estimates the material a piece wins or loses by moving to a square, once
+     * both sides have recaptured there for as long as it pays (static exchange
+     * evaluation). A pawn reaching the last rank is taken to promote to a queen.
+     * Pins and checks are not considered, so this suits move hints and ordering
+     * rather than legality.
+     *
+     * @param p Model.Piece to be moved
+     * @param sq Square to which p would move
+     * @return The balance in pawns for p's side, positive when the move wins material
      */
-    private boolean canEvade(Map<Square, List<Piece>> threats, King king,
-                             List<Square> movableSquares) {
-        boolean canEvade = false;
-        List<Square> kingsMoves = king.getLegalMoves(board);
-        Iterator<Square> iterator = kingsMoves.iterator();
-
-        // If king is not threatened at some square, it can evade
-        while (iterator.hasNext()) {
-            Square sq = iterator.next();
-            if (!testMove(king, sq)) continue;
-            if (threats.get(sq).isEmpty()) {
-                movableSquares.add(sq);
-                canEvade = true;
-            }
-        }
-
-        return canEvade;
+    public int getExchangeValue(Piece p, Square sq) {
+        return getExchangeValue(new Move(p, p.getPosition(), sq));
     }
 
-    /*
-     * Helper method to determine if the threatening piece can be captured.
+    /**
+     * Estimates the material a move wins or loses by static exchange evaluation.
+     *
+     * @param move The move, as shown to the player
+     * @return The balance in pawns for the moving side, positive when the move wins material
      */
-    private boolean canCapture(Map<Square, List<Piece>> defenders,
-                               List<Piece> threats, King king,
-                               List<Square> movableSquares) {
-
-        boolean canCapture = false;
-        if (threats.size() == 1) {
-            Square threatSquare = threats.get(0).getPosition();
-
-            // Check if king can capture the threat
-            if (king.getLegalMoves(board).contains(threatSquare)) {
-                if (testMove(king, threatSquare)) {
-                    movableSquares.add(threatSquare);
-                    canCapture = true;
-                }
-            }
-
-            // Check if other pieces can capture the threat
-            List<Piece> capturers = defenders.get(threatSquare);
-            ConcurrentLinkedDeque<Piece> capturerQueue = new ConcurrentLinkedDeque<Piece>();
-            capturerQueue.addAll(capturers);
-
-            if (!capturerQueue.isEmpty()) {
-                for (Piece p : capturerQueue) {
-                    if (testMove(p, threatSquare)) {
-                        movableSquares.add(threatSquare);
-                        canCapture = true;
-                    }
-                }
-            }
-        }
-
-        return canCapture;
+    public int getExchangeValue(Move move) {
+        return StaticExchange.evaluate(board.getPosition(), move.toPacked());
     }
 
     /*
-     * Helper method to determine if check can be blocked by a piece.
+     * Legal targets of a piece, empty unless the piece actually stands on its square.
      */
-    private boolean canBlock(List<Piece> threats,
-                             Map<Square, List<Piece>> blockMoves, King king,
-                             List<Square> movableSquares) {
-        boolean blockable = false;
-
-        if (threats.size() == 1) {
-            Square threatSquare = threats.get(0).getPosition();
-            Square kingSquare = king.getPosition();
-            Square[][] boardArray = board.getSquareArray();
-
-            // Check vertical line between king and threat
-            if (kingSquare.getXNum() == threatSquare.getXNum()) {
-                int max = Math.max(kingSquare.getYNum(), threatSquare.getYNum());
-                int min = Math.min(kingSquare.getYNum(), threatSquare.getYNum());
-
-                for (int i = min + 1; i < max; i++) {
-                    List<Piece> blockers =
-                            blockMoves.get(boardArray[i][kingSquare.getXNum()]);
-                    ConcurrentLinkedDeque<Piece> blockerQueue =
-                            new ConcurrentLinkedDeque<Piece>();
-                    blockerQueue.addAll(blockers);
-
-                    if (!blockerQueue.isEmpty()) {
-                        Square blockSquare = boardArray[i][kingSquare.getXNum()];
-
-                        for (Piece p : blockerQueue) {
-                            if (testMove(p, blockSquare)) {
-                                movableSquares.add(blockSquare);
-                                blockable = true;
-                            }
-                        }
-                    }
-                }
-            }
-
-            // Check horizontal line between king and threat
-            if (kingSquare.getYNum() == threatSquare.getYNum()) {
-                int max = Math.max(kingSquare.getXNum(), threatSquare.getXNum());
-                int min = Math.min(kingSquare.getXNum(), threatSquare.getXNum());
-
-                for (int i = min + 1; i < max; i++) {
-                    List<Piece> blockers =
-                            blockMoves.get(boardArray[kingSquare.getYNum()][i]);
-                    ConcurrentLinkedDeque<Piece> blockerQueue =
-                            new ConcurrentLinkedDeque<Piece>();
-                    blockerQueue.addAll(blockers);
-
-                    if (!blockerQueue.isEmpty()) {
-                        Square blockSquare = boardArray[kingSquare.getYNum()][i];
-
-                        for (Piece p : blockerQueue) {
-                            if (testMove(p, blockSquare)) {
-                                movableSquares.add(blockSquare);
-                                blockable = true;
-                            }
-                        }
-                    }
-                }
-            }
-
-            // Check diagonal lines (Bishop and Queen attacks)
-            Class<? extends Piece> threatClass = threats.get(0).getClass();
-
-            if (threatClass.equals(Queen.class) || threatClass.equals(Bishop.class)) {
-                int kX = kingSquare.getXNum();
-                int kY = kingSquare.getYNum();
-                int tX = threatSquare.getXNum();
-                int tY = threatSquare.getYNum();
-
-                // Diagonal: bottom-left to top-right
-                if (kX > tX && kY > tY) {
-                    for (int i = tX + 1, j = tY + 1; i < kX && j < kY; i++, j++) {
-                        List<Piece> blockers = blockMoves.get(boardArray[j][i]);
-                        ConcurrentLinkedDeque<Piece> blockerQueue = new ConcurrentLinkedDeque<Piece>();
-                        blockerQueue.addAll(blockers);
-
-                        if (!blockerQueue.isEmpty()) {
-                            Square blockSquare = boardArray[j][i];
-
-                            for (Piece p : blockerQueue) {
-                                if (testMove(p, blockSquare)) {
-                                    movableSquares.add(blockSquare);
-                                    blockable = true;
-                                }
-                            }
-                        }
-                    }
-                }
-
-                // Diagonal: top-left to bottom-right
-                if (kX > tX && tY > kY) {
-                    for (int i = tX + 1, j = tY - 1; i < kX && j > kY; i++, j--) {
-                        List<Piece> blockers = blockMoves.get(boardArray[j][i]);
-                        ConcurrentLinkedDeque<Piece> blockerQueue = new ConcurrentLinkedDeque<Piece>();
-                        blockerQueue.addAll(blockers);
-
-                        if (!blockerQueue.isEmpty()) {
-                            Square blockSquare = boardArray[j][i];
-
-                            for (Piece p : blockerQueue) {
-                                if (testMove(p, blockSquare)) {
-                                    movableSquares.add(blockSquare);
-                                    blockable = true;
-                                }
-                            }
-                        }
-                    }
-                }
-
-                // Diagonal: bottom-right to top-left
-                if (tX > kX && kY > tY) {
-                    for (int i = tX - 1, j = tY + 1; i > kX && j < kY; i--, j++) {
-                        List<Piece> blockers = blockMoves.get(boardArray[j][i]);
-                        ConcurrentLinkedDeque<Piece> blockerQueue = new ConcurrentLinkedDeque<Piece>();
-                        blockerQueue.addAll(blockers);
-
-                        if (!blockerQueue.isEmpty()) {
-                            Square blockSquare = boardArray[j][i];
-
-                            for (Piece p : blockerQueue) {
-                                if (testMove(p, blockSquare)) {
-                                    movableSquares.add(blockSquare);
-                                    blockable = true;
-                                }
-                            }
-                        }
-                    }
-                }
-
-                // Diagonal: top-right to bottom-left
-                if (tX > kX && tY > kY) {
-                    for (int i = tX - 1, j = tY - 1; i > kX && j > kY; i--, j--) {
-                        List<Piece> blockers = blockMoves.get(boardArray[j][i]);
-                        ConcurrentLinkedDeque<Piece> blockerQueue = new ConcurrentLinkedDeque<Piece>();
-                        blockerQueue.addAll(blockers);
-
-                        if (!blockerQueue.isEmpty()) {
-                            Square blockSquare = boardArray[j][i];
-
-                            for (Piece p : blockerQueue) {
-                                if (testMove(p, blockSquare)) {
-                                    movableSquares.add(blockSquare);
-                                    blockable = true;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    private long legalTargets(Piece p) {
+        Position position = board.getPosition();
+        int from = p.getPosition().getIndex();
+        if (position.colorAt(from) != p.getColor() || position.typeAt(from) != p.getType()) {
+            return 0L;
         }
 
-        return blockable;
+        return board.getGame().getLegalTargets(from);
     }
-}
\ No newline at end of file
+}
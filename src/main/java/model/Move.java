@@ -11,6 +11,7 @@ public class Move {
     private Piece capturedPiece;
     private boolean isSpecialMove; // Castle, en passant, promotion
     private String specialMoveType; // "castle", "en-passant", "promotion"
+    private int promotionType = Position.EMPTY;
     private long timestamp;
 
     public Move(Piece movingPiece, Square fromSquare, Square toSquare) {
@@ -29,6 +30,57 @@ public class Move {
         this.specialMoveType = specialMoveType;
     }
 
+    /**
+     * Builds a move for the UI from a packed move, before it is played on the board.
+     *
+     * @param board The board the move is played on
+     * @param move The packed move (see {@link PackedMove})
+     * @return The move, with its special type and captured piece filled in
+     */
+    public static Move fromPacked(Board board, int move) {
+        Square from = board.getSquare(PackedMove.from(move));
+        Square to = board.getSquare(PackedMove.to(move));
+        Piece piece = from.getOccupyingPiece();
+
+        if (PackedMove.isCastle(move)) {
+            return new Move(piece, from, to, "castle");
+        }
+
+        if (PackedMove.isEnPassant(move)) {
+            Move enPassant = new Move(piece, from, to, "en-passant");
+            enPassant.capturedPiece = board.getSquareArray()[from.getYNum()][to.getXNum()].getOccupyingPiece();
+            return enPassant;
+        }
+
+        if (PackedMove.isPromotion(move)) {
+            Move promotion = new Move(piece, from, to, "promotion");
+            promotion.promotionType = PackedMove.promotion(move);
+            return promotion;
+        }
+
+        return new Move(piece, from, to);
+    }
+
+    /**
+     * Packs this move for the rules engine and search. Must be called before the
+     * move is played, while the board still shows the position it starts from.
+     * A pawn reaching the last rank promotes to a queen unless a piece was chosen.
+     *
+     * @return The packed move (see {@link PackedMove})
+     */
+    public int toPacked() {
+        Position position = fromSquare.getBoard().getPosition();
+        int promotion = promotionType;
+
+        int lastRank = (movingPiece.getColor() == Position.WHITE) ? 0 : 7;
+        if (promotion == Position.EMPTY && movingPiece.getType() == Position.PAWN
+                && toSquare.getYNum() == lastRank) {
+            promotion = Position.QUEEN;
+        }
+
+        return PackedMove.of(position, fromSquare.getIndex(), toSquare.getIndex(), promotion);
+    }
+
     public Piece getMovingPiece() {
         return movingPiece;
     }
@@ -57,6 +109,15 @@ public class Move {
         return specialMoveType;
     }
 
+    /**
+     * Gets the piece type a promotion produces.
+     *
+     * @return The type constant from {@link Position}, or {@link Position#EMPTY} if none was chosen
+     */
+    public int getPromotionType() {
+        return promotionType;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
@@ -78,7 +139,7 @@ public class Move {
             case "Knight" -> "N";
             case "Bishop" -> "B";
             case "Rook" -> "R";
-            case "Queen" -> "K";
+            case "Queen" -> "Q";
             default -> "";
         };
     }
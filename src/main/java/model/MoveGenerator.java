@@ -0,0 +1,368 @@
+package model;
+
+/**
+ * Legal move generator working directly on a {@link Position}.
+ * <p>
+ * {@link #analyze} computes, once per position and side, the pieces giving check,
+ * the pieces pinned to their king and the squares the king must not step on.
+ * Every later query masks a piece's attacks with that information, so the moves
+ * returned are fully legal without making and unmaking any of them. The only
+ * exception is en passant, which can uncover a check along the rank of both
+ * pawns; it is verified by recomputing the slider attacks on the king.
+ * <p>
+ * {@link #generateMoves} emits the same moves as {@link PackedMove} ints into a
+ * preallocated {@link MoveList}, for callers that must not allocate.
+ * <p>
+ * A generator keeps the analysis of the last position it was given and is not
+ * thread-safe. Reuse one instance per thread rather than allocating per query.
+ */
+public class MoveGenerator {
+    // King squares castling starts from, and the rights for each side, indexed by color
+    private static final int[] CASTLE_KING_FROM = new int[2];
+    private static final int[] KINGSIDE_RIGHT = {Position.BLACK_KINGSIDE, Position.WHITE_KINGSIDE};
+    private static final int[] QUEENSIDE_RIGHT = {Position.BLACK_QUEENSIDE, Position.WHITE_QUEENSIDE};
+
+    static {
+        CASTLE_KING_FROM[Position.BLACK] = Bitboards.square(4, 0);
+        CASTLE_KING_FROM[Position.WHITE] = Bitboards.square(4, 7);
+    }
+
+    private Position position;
+    private int us;
+    private int kingSquare;
+    private long own;
+    private long enemy;
+    private long occupied;
+    private long enemyKing;
+
+    // Enemy pieces attacking our king
+    private long checkers;
+    // Our pieces that may only move along the line between the king and a slider
+    private long pinned;
+    // Squares a non-king move must land on: anywhere, or on the checker or between it and the king
+    private long checkMask;
+    // Squares attacked by the opponent with our king taken off the board
+    private long kingDanger;
+
+    /**
+     * Analyzes a position for one side. Queries answer for this position and
+     * color until the next call.
+     *
+     * @param position The position to generate moves in
+     * @param color The side whose moves are wanted (0 for black, 1 for white)
+     */
+    public void analyze(Position position, int color) {
+        this.position = position;
+        this.us = color;
+        this.own = position.occupancy(color);
+        this.enemy = position.occupancy(color ^ 1);
+        this.occupied = own | enemy;
+        this.enemyKing = position.pieces(color ^ 1, Position.KING);
+        this.kingSquare = position.kingSquare(color);
+
+        checkers = 0L;
+        pinned = 0L;
+        checkMask = ~0L;
+        kingDanger = 0L;
+
+        if (kingSquare == Position.NO_SQUARE) return;
+
+        long king = Bitboards.bit(kingSquare);
+        kingDanger = attackedSquares(color ^ 1, occupied & ~king);
+        checkers = position.attackersTo(kingSquare, occupied) & enemy;
+
+        if (Long.bitCount(checkers) == 1) {
+            int checker = Bitboards.lowest(checkers);
+            checkMask = checkers | Bitboards.between(kingSquare, checker);
+        } else if (checkers != 0) {
+            // Double check: only the king can move
+            checkMask = 0L;
+        }
+
+        // Enemy sliders lined up with the king behind exactly one of our pieces pin it
+        long straight = position.pieces(color ^ 1, Position.ROOK) | position.pieces(color ^ 1, Position.QUEEN);
+        long diagonal = position.pieces(color ^ 1, Position.BISHOP) | position.pieces(color ^ 1, Position.QUEEN);
+        long snipers = (Bitboards.rookAttacks(kingSquare, enemy) & straight)
+                | (Bitboards.bishopAttacks(kingSquare, enemy) & diagonal);
+
+        for (long bb = snipers; bb != 0; bb &= bb - 1) {
+            long blockers = Bitboards.between(kingSquare, Bitboards.lowest(bb)) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+    }
+
+    /**
+     * Gets the legal destinations of the piece on a square. Castling appears as
+     * the king's two-square move and promotions as the pawn's last-rank square.
+     *
+     * @param from The square of one of the analyzed side's pieces
+     * @return Set of legal destination squares, empty if the square holds no such piece
+     */
+    public long legalTargets(int from) {
+        if (position.colorAt(from) != us) return 0L;
+
+        int type = position.typeAt(from);
+        if (type == Position.KING) return kingTargets(from);
+
+        long targets;
+        switch (type) {
+            case Position.PAWN:
+                targets = pawnTargets(from);
+                break;
+            case Position.KNIGHT:
+                targets = Bitboards.knightAttacks(from) & ~own;
+                break;
+            case Position.BISHOP:
+                targets = Bitboards.bishopAttacks(from, occupied) & ~own;
+                break;
+            case Position.ROOK:
+                targets = Bitboards.rookAttacks(from, occupied) & ~own;
+                break;
+            default:
+                targets = Bitboards.queenAttacks(from, occupied) & ~own;
+                break;
+        }
+
+        // The en passant capture was already checked in full and can resolve a pawn check off the mask
+        long enPassant = (type == Position.PAWN) ? enPassantTarget(from) : 0L;
+        targets &= checkMask;
+        if ((pinned & Bitboards.bit(from)) != 0) {
+            targets &= Bitboards.line(kingSquare, from);
+        }
+
+        // A king is never captured, even when the analyzed side is not the one to move
+        return (targets | enPassant) & ~enemyKing;
+    }
+
+    /**
+     * Generates every legal move of the side to move as packed moves. The
+     * position is analyzed first, so later queries answer for it as well.
+     *
+     * @param position The position to generate moves in
+     * @param moves The list to fill; it is cleared first
+     * @return The number of moves generated
+     */
+    public int generateMoves(Position position, MoveList moves) {
+        analyze(position, position.getSideToMove());
+        moves.clear();
+
+        for (long bb = own; bb != 0; bb &= bb - 1) {
+            int from = Bitboards.lowest(bb);
+            long targets = legalTargets(from);
+            if (targets == 0) continue;
+
+            if (position.typeAt(from) == Position.PAWN) {
+                addPawnMoves(from, targets, moves);
+            } else {
+                addPieceMoves(from, targets, moves);
+            }
+        }
+
+        return moves.size();
+    }
+
+    /**
+     * Gets the union of the legal destinations of all the analyzed side's pieces.
+     *
+     * @return Set of squares some piece can legally move to
+     */
+    public long allTargets() {
+        long targets = 0L;
+        for (long bb = own; bb != 0; bb &= bb - 1) {
+            targets |= legalTargets(Bitboards.lowest(bb));
+        }
+        return targets;
+    }
+
+    /**
+     * Checks whether the analyzed side has any legal move.
+     *
+     * @return false on checkmate or stalemate
+     */
+    public boolean hasLegalMove() {
+        // Try the king first: most positions are decided by it alone
+        if (kingSquare != Position.NO_SQUARE && kingTargets(kingSquare) != 0) return true;
+
+        for (long bb = own; bb != 0; bb &= bb - 1) {
+            if (legalTargets(Bitboards.lowest(bb)) != 0) return true;
+        }
+        return false;
+    }
+
+    public long getCheckers() {
+        return checkers;
+    }
+
+    public long getPinned() {
+        return pinned;
+    }
+
+    public boolean isInCheck() {
+        return checkers != 0;
+    }
+
+    /*
+     * Packs the moves of a pawn: pushes, captures, en passant and one move per promotion piece.
+     */
+    private void addPawnMoves(int from, long targets, MoveList moves) {
+        int ep = position.getEnPassantSquare();
+
+        for (long bb = targets; bb != 0; bb &= bb - 1) {
+            int to = Bitboards.lowest(bb);
+            boolean capture = (enemy & Bitboards.bit(to)) != 0;
+            int rank = Bitboards.rankOf(to);
+
+            if (rank == 0 || rank == 7) {
+                for (int type = Position.QUEEN; type >= Position.KNIGHT; type--) {
+                    moves.add(PackedMove.encode(from, to, PackedMove.promotionFlags(type, capture)));
+                }
+            } else if (capture) {
+                moves.add(PackedMove.encode(from, to, PackedMove.CAPTURE));
+            } else if (to == ep && Bitboards.fileOf(to) != Bitboards.fileOf(from)) {
+                moves.add(PackedMove.encode(from, to, PackedMove.EN_PASSANT));
+            } else if (Math.abs(to - from) == 16) {
+                moves.add(PackedMove.encode(from, to, PackedMove.DOUBLE_PUSH));
+            } else {
+                moves.add(PackedMove.encode(from, to, PackedMove.QUIET));
+            }
+        }
+    }
+
+    /*
+     * Packs the moves of a piece or king, marking captures and castling.
+     */
+    private void addPieceMoves(int from, long targets, MoveList moves) {
+        boolean king = from == kingSquare;
+
+        for (long bb = targets; bb != 0; bb &= bb - 1) {
+            int to = Bitboards.lowest(bb);
+            int flags;
+            if ((enemy & Bitboards.bit(to)) != 0) {
+                flags = PackedMove.CAPTURE;
+            } else if (king && to - from == 2) {
+                flags = PackedMove.KING_CASTLE;
+            } else if (king && from - to == 2) {
+                flags = PackedMove.QUEEN_CASTLE;
+            } else {
+                flags = PackedMove.QUIET;
+            }
+            moves.add(PackedMove.encode(from, to, flags));
+        }
+    }
+
+    /*
+     * King steps onto squares the opponent does not attack, plus castling.
+     */
+    private long kingTargets(int from) {
+        long targets = Bitboards.kingAttacks(from) & ~own & ~enemyKing & ~kingDanger;
+
+        if (checkers == 0 && from == CASTLE_KING_FROM[us]) {
+            int rights = position.getCastlingRights();
+
+            // Kingside: f and g empty and safe
+            if ((rights & KINGSIDE_RIGHT[us]) != 0) {
+                long path = Bitboards.bit(from + 1) | Bitboards.bit(from + 2);
+                if ((path & occupied) == 0 && (path & kingDanger) == 0) {
+                    targets |= Bitboards.bit(from + 2);
+                }
+            }
+
+            // Queenside: b, c and d empty, c and d safe
+            if ((rights & QUEENSIDE_RIGHT[us]) != 0) {
+                long path = Bitboards.bit(from - 1) | Bitboards.bit(from - 2);
+                if (((path | Bitboards.bit(from - 3)) & occupied) == 0 && (path & kingDanger) == 0) {
+                    targets |= Bitboards.bit(from - 2);
+                }
+            }
+        }
+
+        return targets;
+    }
+
+    /*
+     * Pushes and captures, before check and pin masks are applied.
+     */
+    private long pawnTargets(int from) {
+        int forward = (us == Position.WHITE) ? -8 : 8;
+        int startRow = (us == Position.WHITE) ? 6 : 1;
+
+        long targets = 0L;
+        int oneStep = from + forward;
+        if (oneStep >= 0 && oneStep < 64 && (occupied & Bitboards.bit(oneStep)) == 0) {
+            targets |= Bitboards.bit(oneStep);
+
+            int twoSteps = oneStep + forward;
+            if (Bitboards.rankOf(from) == startRow && (occupied & Bitboards.bit(twoSteps)) == 0) {
+                targets |= Bitboards.bit(twoSteps);
+            }
+        }
+
+        return targets | (Bitboards.pawnAttacks(us, from) & enemy);
+    }
+
+    /*
+     * The en passant capture from a square if it is available and leaves the
+     * king safe. Both pawns leave their squares, so the king's slider lines are
+     * recomputed on the resulting occupancy.
+     */
+    private long enPassantTarget(int from) {
+        int ep = position.getEnPassantSquare();
+        if (ep == Position.NO_SQUARE || position.getSideToMove() != us
+                || (Bitboards.pawnAttacks(us, from) & Bitboards.bit(ep)) == 0) {
+            return 0L;
+        }
+
+        if (kingSquare == Position.NO_SQUARE) return Bitboards.bit(ep);
+
+        int victim = ep + (us == Position.WHITE ? 8 : -8);
+        long after = (occupied & ~Bitboards.bit(from) & ~Bitboards.bit(victim)) | Bitboards.bit(ep);
+        long remaining = enemy & ~Bitboards.bit(victim);
+
+        long straight = (position.pieces(us ^ 1, Position.ROOK) | position.pieces(us ^ 1, Position.QUEEN)) & remaining;
+        long diagonal = (position.pieces(us ^ 1, Position.BISHOP) | position.pieces(us ^ 1, Position.QUEEN)) & remaining;
+        long stepping = checkers & ~straight & ~diagonal & ~Bitboards.bit(victim);
+
+        if (stepping != 0
+                || (Bitboards.rookAttacks(kingSquare, after) & straight) != 0
+                || (Bitboards.bishopAttacks(kingSquare, after) & diagonal) != 0) {
+            return 0L;
+        }
+
+        return Bitboards.bit(ep);
+    }
+
+    /*
+     * Every square attacked by a side, given an occupancy.
+     */
+    private long attackedSquares(int color, long occupancy) {
+        long attacked = 0L;
+
+        for (long bb = position.occupancy(color); bb != 0; bb &= bb - 1) {
+            int sq = Bitboards.lowest(bb);
+            switch (position.typeAt(sq)) {
+                case Position.PAWN:
+                    attacked |= Bitboards.pawnAttacks(color, sq);
+                    break;
+                case Position.KNIGHT:
+                    attacked |= Bitboards.knightAttacks(sq);
+                    break;
+                case Position.BISHOP:
+                    attacked |= Bitboards.bishopAttacks(sq, occupancy);
+                    break;
+                case Position.ROOK:
+                    attacked |= Bitboards.rookAttacks(sq, occupancy);
+                    break;
+                case Position.QUEEN:
+                    attacked |= Bitboards.queenAttacks(sq, occupancy);
+                    break;
+                default:
+                    attacked |= Bitboards.kingAttacks(sq);
+                    break;
+            }
+        }
+
+        return attacked;
+    }
+}
@@ -0,0 +1,81 @@
+package model;
+
+/**
+ * Fixed-capacity list of packed moves (see {@link PackedMove}). Lists are meant
+ * to be allocated once per ply and cleared for every position, so generating
+ * moves during a search or perft allocates nothing.
+ */
+public class MoveList {
+    // No legal chess position has more moves than this
+    public static final int MAX_MOVES = 256;
+
+    private final int[] moves = new int[MAX_MOVES];
+    private int size;
+
+    /**
+     * Allocates one list per ply.
+     *
+     * @param plies The deepest ply that will be searched
+     * @return Lists indexed from 0 to plies
+     */
+    public static MoveList[] perPly(int plies) {
+        MoveList[] lists = new MoveList[plies + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return lists;
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Replaces the move at an index, for move ordering in place.
+     *
+     * @param index The list index
+     * @param move The packed move
+     */
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Checks whether the list holds a move.
+     *
+     * @param move The packed move
+     * @return true if it is in the list
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(PackedMove.toString(moves[i]));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,161 @@
+package model;
+
+/**
+ * Static helpers for moves packed into the low 16 bits of an int, used where
+ * {@link Move} objects would be too heavy: generation, perft and search.
+ * <p>
+ * Bits 0-5 hold the origin square, bits 6-11 the destination and bits 12-15 a
+ * flag: quiet move, double pawn push, castling on either side, capture, en passant
+ * capture, or one of the four promotions with or without a capture. Squares are
+ * indexed as in {@link Bitboards}.
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+
+    // Flags
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private static final int CAPTURE_BIT = 4;
+    private static final int PROMOTION_BIT = 8;
+
+    private static final String PROMOTION_CHARS = "nbrq";
+
+    private PackedMove() {
+    }
+
+    /**
+     * Packs a move.
+     *
+     * @param from The origin square
+     * @param to The destination square
+     * @param flags One of the flag constants; promotions add the piece offset from {@link #promotionFlags}
+     * @return The packed move
+     */
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /**
+     * Gets the flags for a promotion to a given piece type.
+     *
+     * @param type KNIGHT, BISHOP, ROOK or QUEEN
+     * @param capture Whether the promoting pawn captures
+     * @return The promotion flags
+     */
+    public static int promotionFlags(int type, boolean capture) {
+        return (capture ? PROMOTION_CAPTURE : PROMOTION) | (type - Position.KNIGHT);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE_BIT) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION_BIT) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return flags(move) == EN_PASSANT;
+    }
+
+    /**
+     * Gets the piece type a move promotes to.
+     *
+     * @param move The packed move
+     * @return KNIGHT, BISHOP, ROOK or QUEEN, or {@link Position#EMPTY} if the move is no promotion
+     */
+    public static int promotion(int move) {
+        return isPromotion(move) ? Position.KNIGHT + (flags(move) & 3) : Position.EMPTY;
+    }
+
+    /**
+     * Formats a move in coordinate notation, such as "e2e4" or "e7e8q".
+     *
+     * @param move The packed move
+     * @return The move text
+     */
+    public static String toString(int move) {
+        String text = Bitboards.squareName(from(move)) + Bitboards.squareName(to(move));
+        if (isPromotion(move)) {
+            text += PROMOTION_CHARS.charAt(promotion(move) - Position.KNIGHT);
+        }
+        return text;
+    }
+
+    /**
+     * Packs a move between two squares of a position, working out its flags.
+     * The move itself is not checked.
+     *
+     * @param position The position the move is played in
+     * @param from The origin square
+     * @param to The destination square
+     * @param promotion The promotion piece type, or {@link Position#EMPTY}
+     * @return The packed move
+     */
+    public static int of(Position position, int from, int to, int promotion) {
+        int type = position.typeAt(from);
+        boolean capture = position.isOccupied(to);
+
+        if (promotion != Position.EMPTY) {
+            return encode(from, to, promotionFlags(promotion, capture));
+        }
+        if (type == Position.KING && Math.abs(to - from) == 2) {
+            return encode(from, to, to > from ? KING_CASTLE : QUEEN_CASTLE);
+        }
+        if (type == Position.PAWN) {
+            if (Math.abs(to - from) == 16) return encode(from, to, DOUBLE_PUSH);
+            if (to == position.getEnPassantSquare() && Bitboards.fileOf(from) != Bitboards.fileOf(to)) {
+                return encode(from, to, EN_PASSANT);
+            }
+        }
+        return encode(from, to, capture ? CAPTURE : QUIET);
+    }
+
+    /**
+     * Parses a move in coordinate notation against a position.
+     *
+     * @param position The position the move is played in
+     * @param text The move text, such as "e2e4" or "e7e8q"
+     * @return The packed move, or {@link #NONE} if the text is malformed
+     */
+    public static int parse(Position position, String text) {
+        if (text == null || text.length() < 4 || text.length() > 5) return NONE;
+
+        int from = Bitboards.parseSquare(text.substring(0, 2));
+        int to = Bitboards.parseSquare(text.substring(2, 4));
+        if (from == Position.NO_SQUARE || to == Position.NO_SQUARE) return NONE;
+
+        int promotion = Position.EMPTY;
+        if (text.length() == 5) {
+            int index = PROMOTION_CHARS.indexOf(Character.toLowerCase(text.charAt(4)));
+            if (index < 0) return NONE;
+            promotion = Position.KNIGHT + index;
+        }
+
+        return of(position, from, to, promotion);
+    }
+}
@@ -0,0 +1,217 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft spread over a {@link ForkJoinPool}. The tree is split into one task per
+ * move for the first few plies; every task makes its move on its own copy of the
+ * position and counts the rest of its subtree with a single-threaded {@link Perft}.
+ * No position is shared between threads.
+ * <p>
+ * Run from the command line to compare against a single thread:
+ * <pre>
+ *   java -cp target/classes model.ParallelPerft 6 [fen] [threads]
+ * </pre>
+ */
+public class ParallelPerft {
+    private final Position root;
+    private final int threads;
+    private int splitPlies = 1;
+    private PerftHashTable hashTable;
+
+    /**
+     * Creates a parallel perft counter using all available processors.
+     *
+     * @param position The root position; it is copied and left untouched
+     */
+    public ParallelPerft(Position position) {
+        this(position, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a parallel perft counter with a given number of worker threads.
+     *
+     * @param position The root position; it is copied and left untouched
+     * @param threads The pool's parallelism, at least 1
+     */
+    public ParallelPerft(Position position, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.root = new Position(position);
+        this.threads = threads;
+    }
+
+    /**
+     * Sets how many plies are split into separate tasks. One splits the root
+     * moves only; two also splits each reply, which balances the load better
+     * when a few root moves have much larger subtrees than the rest.
+     *
+     * @param splitPlies The number of plies to split, at least 1
+     */
+    public void setSplitPlies(int splitPlies) {
+        if (splitPlies < 1) {
+            throw new IllegalArgumentException("Split plies must be at least 1: " + splitPlies);
+        }
+        this.splitPlies = splitPlies;
+    }
+
+    /**
+     * Sets a table caching subtree counts, shared by all workers.
+     *
+     * @param hashTable The table to use, or null for none
+     */
+    public void setHashTable(PerftHashTable hashTable) {
+        this.hashTable = hashTable;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Counts the leaf nodes to a depth.
+     *
+     * @param depth The depth in plies
+     * @return The number of leaf nodes
+     */
+    public long perft(int depth) {
+        if (depth <= 1) return new Perft(root).perft(depth);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new SubtreeTask(root, depth, splitPlies, hashTable));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Counts the leaf nodes below each legal root move, one task per move.
+     *
+     * @param depth The total depth in plies, at least 1
+     * @return The count per root move in coordinate notation, sorted by move
+     */
+    public Map<String, Long> divide(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1");
+        }
+
+        MoveList moves = new MoveList();
+        new MoveGenerator().generateMoves(root, moves);
+
+        List<SubtreeTask> tasks = new ArrayList<SubtreeTask>();
+        for (int i = 0; i < moves.size(); i++) {
+            Position child = new Position(root);
+            child.makeMove(moves.get(i));
+            tasks.add(new SubtreeTask(child, depth - 1, splitPlies - 1, hashTable));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (SubtreeTask task : tasks) pool.execute(task);
+
+            Map<String, Long> counts = new TreeMap<String, Long>();
+            for (int i = 0; i < moves.size(); i++) {
+                counts.put(PackedMove.toString(moves.get(i)), tasks.get(i).join());
+            }
+            return counts;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+     * Counts a subtree, forking one child task per move while plies remain to split.
+     * Tasks only live inside one pool and are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private static class SubtreeTask extends RecursiveTask<Long> {
+        private final Position position;
+        private final int depth;
+        private final int splitPlies;
+        private final PerftHashTable hashTable;
+
+        SubtreeTask(Position position, int depth, int splitPlies, PerftHashTable hashTable) {
+            this.position = position;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+            this.hashTable = hashTable;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitPlies <= 0 || depth <= 2) {
+                Perft perft = new Perft(position);
+                perft.setHashTable(hashTable);
+                return perft.perft(depth);
+            }
+
+            MoveList moves = new MoveList();
+            new MoveGenerator().generateMoves(position, moves);
+
+            List<SubtreeTask> children = new ArrayList<SubtreeTask>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                Position child = new Position(position);
+                child.makeMove(moves.get(i));
+                children.add(new SubtreeTask(child, depth - 1, splitPlies - 1, hashTable));
+            }
+
+            long nodes = 0;
+            for (SubtreeTask task : invokeAll(children)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Command line entry point: counts a position on one thread and in parallel,
+     * then prints both times and the speedup.
+     *
+     * @param args A depth, an optional FEN and an optional thread count
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length < 1 || args.length > 3) {
+                System.err.println("Usage: ParallelPerft <depth> [fen] [threads]");
+                System.exit(2);
+            }
+
+            int depth = Integer.parseInt(args[0]);
+            Position position = (args.length > 1) ? Position.fromFen(args[1]) : Position.startPosition();
+            int threads = (args.length > 2) ? Integer.parseInt(args[2])
+                    : Runtime.getRuntime().availableProcessors();
+
+            long start = System.nanoTime();
+            long serialNodes = new Perft(position).perft(depth);
+            long serialNanos = System.nanoTime() - start;
+
+            ParallelPerft parallel = new ParallelPerft(position, threads);
+            parallel.setSplitPlies(2);
+            start = System.nanoTime();
+            long parallelNodes = parallel.perft(depth);
+            long parallelNanos = System.nanoTime() - start;
+
+            System.out.printf("1 thread:   %12d nodes  %6d ms  %10d nps%n", serialNodes,
+                    serialNanos / 1_000_000, Perft.nodesPerSecond(serialNodes, serialNanos));
+            System.out.printf("%d threads: %12d nodes  %6d ms  %10d nps%n", threads, parallelNodes,
+                    parallelNanos / 1_000_000, Perft.nodesPerSecond(parallelNodes, parallelNanos));
+            System.out.printf("Speedup:    %.2fx%n", (double) serialNanos / parallelNanos);
+
+            if (serialNodes != parallelNodes) {
+                System.err.println("Node counts differ");
+                System.exit(1);
+            }
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException for a malformed number
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+}
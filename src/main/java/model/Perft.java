@@ -0,0 +1,297 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Perft: counts the leaf nodes of the legal move tree to a fixed depth. The
+ * counts are known for the standard reference positions, so perft both checks
+ * move generation and measures its speed.
+ * <p>
+ * Run from the command line:
+ * <pre>
+ *   java -cp target/classes model.Perft 5                  divide of the start position to depth 5
+ *   java -cp target/classes model.Perft 4 "&lt;fen&gt;"          divide of a FEN to depth 4
+ *   java -cp target/classes model.Perft --suite 4          check every reference position to depth 4
+ *   java -cp target/classes model.Perft 7 --hash 512       cache subtree counts in a 512 MB table
+ * </pre>
+ */
+public class Perft {
+    /**
+     * A reference position with its published node counts.
+     */
+    public static class Reference {
+        private final String name;
+        private final String fen;
+        private final long[] nodes;
+
+        public Reference(String name, String fen, long... nodes) {
+            this.name = name;
+            this.fen = fen;
+            this.nodes = nodes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFen() {
+            return fen;
+        }
+
+        /**
+         * Gets the deepest depth with a known count.
+         *
+         * @return The maximum depth
+         */
+        public int getMaxDepth() {
+            return nodes.length;
+        }
+
+        /**
+         * Gets the expected count at a depth.
+         *
+         * @param depth A depth from 1 to {@link #getMaxDepth()}
+         * @return The number of leaf nodes
+         */
+        public long getNodes(int depth) {
+            return nodes[depth - 1];
+        }
+    }
+
+    public static final Reference[] REFERENCE_POSITIONS = {
+            new Reference("startpos", Position.START_FEN,
+                    20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+            new Reference("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48L, 2039L, 97862L, 4085603L, 193690690L),
+            new Reference("endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+            new Reference("promotions", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6L, 264L, 9467L, 422333L, 15833292L),
+            new Reference("tricky", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44L, 1486L, 62379L, 2103487L, 89941194L),
+            new Reference("middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46L, 2079L, 89890L, 3894594L, 164075551L)
+    };
+
+    // Deepest search the preallocated move lists support
+    private static final int MAX_DEPTH = 32;
+
+    private final Position position;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveList[] lists = MoveList.perPly(MAX_DEPTH);
+    private PerftHashTable hashTable;
+
+    /**
+     * Creates a perft counter on a copy of a position, leaving the original untouched.
+     *
+     * @param position The root position
+     */
+    public Perft(Position position) {
+        this.position = new Position(position);
+    }
+
+    /**
+     * Sets a table caching subtree counts, so transpositions are counted once.
+     *
+     * @param hashTable The table to use, possibly shared with other counters, or null for none
+     */
+    public void setHashTable(PerftHashTable hashTable) {
+        this.hashTable = hashTable;
+    }
+
+    public PerftHashTable getHashTable() {
+        return hashTable;
+    }
+
+    /**
+     * Counts the leaf nodes to a depth.
+     *
+     * @param depth The depth in plies, from 0 to 32
+     * @return The number of leaf nodes
+     */
+    public long perft(int depth) {
+        checkDepth(depth);
+        return depth == 0 ? 1 : count(depth);
+    }
+
+    /**
+     * Counts the leaf nodes below each legal root move.
+     *
+     * @param depth The total depth in plies, from 1 to 32
+     * @return The count per root move in coordinate notation, sorted by move
+     */
+    public Map<String, Long> divide(int depth) {
+        checkDepth(depth);
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1");
+        }
+
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        MoveList moves = lists[depth];
+        generator.generateMoves(position, moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            position.makeMove(move);
+            counts.put(PackedMove.toString(move), depth == 1 ? 1L : count(depth - 1));
+            position.unmakeMove();
+        }
+        return counts;
+    }
+
+    /**
+     * Computes a rate in nodes per second.
+     *
+     * @param nodes Nodes counted
+     * @param nanos Time taken in nanoseconds
+     * @return Nodes per second, or 0 if no time was measured
+     */
+    public static long nodesPerSecond(long nodes, long nanos) {
+        return nanos <= 0 ? 0 : (long) (nodes * 1_000_000_000.0 / nanos);
+    }
+
+    /*
+     * Counts leaves below the current position. The last ply is counted from the
+     * size of the move list without making the moves, and deeper subtrees are
+     * looked up in the hash table first when there is one.
+     */
+    private long count(int depth) {
+        MoveList moves = lists[depth];
+        if (depth == 1) return generator.generateMoves(position, moves);
+
+        long key = 0;
+        if (hashTable != null) {
+            key = position.getKey();
+            long cached = hashTable.probe(key, depth);
+            if (cached >= 0) return cached;
+        }
+
+        generator.generateMoves(position, moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            nodes += count(depth - 1);
+            position.unmakeMove();
+        }
+
+        if (hashTable != null) hashTable.store(key, depth, nodes);
+        return nodes;
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft depth must be between 0 and " + MAX_DEPTH + ": " + depth);
+        }
+    }
+
+    /*
+     * Prints the divide of one position with the total, time and speed.
+     */
+    private static void runDivide(Position position, int depth, int hashMB) {
+        Perft perft = new Perft(position);
+        if (hashMB > 0) perft.setHashTable(new PerftHashTable(hashMB));
+
+        long start = System.nanoTime();
+        Map<String, Long> counts = perft.divide(depth);
+        long nanos = System.nanoTime() - start;
+
+        long total = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+
+        System.out.println();
+        System.out.println("Moves: " + counts.size());
+        System.out.println("Nodes: " + total);
+        System.out.println("Time:  " + nanos / 1_000_000 + " ms");
+        System.out.println("NPS:   " + nodesPerSecond(total, nanos));
+        if (perft.getHashTable() != null) System.out.println(perft.getHashTable());
+    }
+
+    /*
+     * Checks every reference position up to a depth and reports the speed of each.
+     * Returns false if any count differs from the published one.
+     */
+    private static boolean runSuite(int maxDepth, int hashMB) {
+        boolean allPassed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+
+        for (Reference reference : REFERENCE_POSITIONS) {
+            int depth = Math.min(maxDepth, reference.getMaxDepth());
+            Perft perft = new Perft(Position.fromFen(reference.getFen()));
+            if (hashMB > 0) perft.setHashTable(new PerftHashTable(hashMB));
+
+            long start = System.nanoTime();
+            long nodes = perft.perft(depth);
+            long nanos = System.nanoTime() - start;
+
+            boolean passed = nodes == reference.getNodes(depth);
+            allPassed &= passed;
+            totalNodes += nodes;
+            totalNanos += nanos;
+
+            System.out.printf("%-12s depth %d  %12d nodes  %6d ms  %10d nps  %s%n",
+                    reference.getName(), depth, nodes, nanos / 1_000_000,
+                    nodesPerSecond(nodes, nanos), passed ? "OK" : "FAIL (expected " + reference.getNodes(depth) + ")");
+        }
+
+        System.out.printf("%-12s          %12d nodes  %6d ms  %10d nps%n",
+                "total", totalNodes, totalNanos / 1_000_000, nodesPerSecond(totalNodes, totalNanos));
+        return allPassed;
+    }
+
+    /*
+     * Prints how long the magic attack tables took to build, which is paid once
+     * before the first move is generated.
+     */
+    private static void printTableTime() {
+        System.out.printf("Magic tables built in %.2f ms%n", Bitboards.getInitNanos() / 1e6);
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * @param args Either a depth and an optional FEN, or --suite and an optional
+     *             maximum depth; either may be followed by --hash and a size in MB
+     */
+    public static void main(String[] args) {
+        try {
+            // Split off the hash option, which applies to both modes
+            int hashMB = 0;
+            List<String> rest = new ArrayList<String>();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--hash") && i + 1 < args.length) {
+                    hashMB = Integer.parseInt(args[++i]);
+                } else {
+                    rest.add(args[i]);
+                }
+            }
+
+            if (!rest.isEmpty() && rest.get(0).equals("--suite")) {
+                int maxDepth = (rest.size() > 1) ? Integer.parseInt(rest.get(1)) : 4;
+                printTableTime();
+                if (!runSuite(maxDepth, hashMB)) System.exit(1);
+                return;
+            }
+
+            if (rest.size() < 1 || rest.size() > 2) {
+                System.err.println("Usage: Perft <depth> [fen] [--hash MB] | Perft --suite [max depth] [--hash MB]");
+                System.exit(2);
+            }
+
+            int depth = Integer.parseInt(rest.get(0));
+            Position position = (rest.size() > 1) ? Position.fromFen(rest.get(1)) : Position.startPosition();
+            printTableTime();
+            runDivide(position, depth, hashMB);
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException for a malformed number
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size cache of perft subtree counts, keyed by the position's Zobrist key and depth.
+ * <p>
+ * The table is a flat {@code long[]} of two-entry buckets. The first entry of a
+ * bucket keeps the deepest subtree seen (it is only replaced by one at least as
+ * deep), and the second always takes the newest store, so shallow subtrees still
+ * get cached without evicting the expensive ones.
+ * <p>
+ * Each entry is two longs: the packed count and depth, and that value XORed with
+ * the key. A lookup only matches if the two agree, so a torn entry written by
+ * another thread reads as a miss and one table can be shared by parallel perft.
+ */
+public class PerftHashTable {
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_LONGS = 2 * ENTRY_LONGS;
+    private static final int DEPTH_BITS = 6;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    // Keeps the table array within Java's array size limit
+    private static final int MAX_BUCKETS = 1 << 28;
+
+    private final long[] table;
+    private final long bucketMask;
+    private final int sizeMB;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder replacements = new LongAdder();
+
+    /**
+     * Creates a table within a memory budget. The number of buckets is rounded
+     * down to a power of two, so the table may use less than the budget.
+     *
+     * @param sizeMB The memory budget in megabytes, at least 1
+     */
+    public PerftHashTable(int sizeMB) {
+        if (sizeMB < 1) {
+            throw new IllegalArgumentException("Hash size must be at least 1 MB: " + sizeMB);
+        }
+
+        long buckets = ((long) sizeMB << 20) / (BUCKET_LONGS * Long.BYTES);
+        buckets = Math.min(Long.highestOneBit(buckets), MAX_BUCKETS);
+
+        this.table = new long[(int) buckets * BUCKET_LONGS];
+        this.bucketMask = buckets - 1;
+        this.sizeMB = sizeMB;
+    }
+
+    /**
+     * Looks up a subtree count.
+     *
+     * @param key The position key
+     * @param depth The remaining depth of the subtree
+     * @return The cached count, or -1 if there is none
+     */
+    public long probe(long key, int depth) {
+        probes.increment();
+        int bucket = (int) (key & bucketMask) * BUCKET_LONGS;
+
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && (data & DEPTH_MASK) == depth) {
+                hits.increment();
+                return data >>> DEPTH_BITS;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a subtree count, replacing the deeper-preferred entry if the new
+     * subtree is at least as deep, or else the always-replace entry.
+     *
+     * @param key The position key
+     * @param depth The remaining depth of the subtree, from 1 to 63
+     * @param nodes The leaf count of the subtree
+     */
+    public void store(long key, int depth, long nodes) {
+        stores.increment();
+        int bucket = (int) (key & bucketMask) * BUCKET_LONGS;
+        long data = (nodes << DEPTH_BITS) | depth;
+
+        int slot = ((table[bucket + 1] & DEPTH_MASK) <= depth) ? bucket : bucket + ENTRY_LONGS;
+        if (table[slot + 1] != 0) replacements.increment();
+
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+    }
+
+    /**
+     * Empties the table and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        replacements.reset();
+    }
+
+    public int getSizeMB() {
+        return sizeMB;
+    }
+
+    /**
+     * Gets the number of entries the table holds.
+     *
+     * @return Two entries per bucket
+     */
+    public long getCapacity() {
+        return table.length / ENTRY_LONGS;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Gets the number of stores that overwrote an existing entry.
+     *
+     * @return The replacement count
+     */
+    public long getReplacements() {
+        return replacements.sum();
+    }
+
+    /**
+     * Gets the fraction of probes that found a count.
+     *
+     * @return The hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long probeCount = probes.sum();
+        return probeCount == 0 ? 0.0 : (double) hits.sum() / probeCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Hash: %d MB, %d entries, %d probes, %d hits (%.1f%%), %d stores, %d replaced",
+                sizeMB, getCapacity(), getProbes(), getHits(), 100 * getHitRate(), getStores(), getReplacements());
+    }
+}
@@ -3,7 +3,6 @@ package model;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
-import java.util.LinkedList;
 import java.util.List;
 
 import model.pieces.King;
@@ -16,7 +15,9 @@ import view.PieceView;
 public abstract class Piece {
     private final int color;
     private Square currentSquare;
+    private final String imgFile;
     private BufferedImage img;
+    private boolean imgLoaded;
     private PieceView view;
 
     /**
@@ -26,17 +27,11 @@ public abstract class Piece {
      * @param initSq The initial square position
      * @param imgFile The image file name for this piece
      */
-    // In Piece constructor
+    // The image is only decoded when the piece is first drawn
     public Piece(int color, Square initSq, String imgFile) {
         this.color = color;
         this.currentSquare = initSq;
-
-        // Use ResourceManager to load the image
-        this.img = ResourceManager.loadImage(imgFile);
-
-        if (this.img == null) {
-            System.err.println("Failed to load piece image: " + imgFile);
-        }
+        this.imgFile = imgFile;
     }
 
     /**
@@ -80,6 +75,9 @@ public abstract class Piece {
         currentSquare.removePiece();
         this.currentSquare = destination;
         currentSquare.put(this);
+
+        // Any completed move ends the en passant window; Pawn reopens it on a double step
+        destination.getBoard().getPosition().setEnPassantSquare(Position.NO_SQUARE);
         return true;
     }
 
@@ -114,9 +112,19 @@ public abstract class Piece {
     /**
      * Gets the image representing this piece.
      *
-     * @return The piece image
+     * @return The piece image, loaded on first use, or null if it cannot be loaded
      */
     public Image getImage() {
+        if (!imgLoaded) {
+            imgLoaded = true;
+
+            // Use ResourceManager to load the image
+            img = ResourceManager.loadImage(imgFile);
+
+            if (img == null) {
+                System.err.println("Failed to load piece image: " + imgFile);
+            }
+        }
         return img;
     }
 
@@ -126,132 +134,29 @@ public abstract class Piece {
      * @param g The graphics context to draw on
      */
     public void draw(Graphics g) {
-        if (currentSquare != null && img != null) {
+        Image image = getImage();
+        if (currentSquare != null && image != null) {
             int x = currentSquare.getX();
             int y = currentSquare.getY();
-            g.drawImage(this.img, x, y, null);
+            g.drawImage(image, x, y, null);
         }
     }
 
-    public int[] getLinearOccupations(Square[][] board, int x, int y) {
-        int lastYabove = 0;
-        int lastXright = 7;
-        int lastYbelow = 7;
-        int lastXleft = 0;
-
-        for (int i = 0; i < y; i++) {
-            if (board[i][x].isOccupied()) {
-                if (board[i][x].getOccupyingPiece().getColor() != this.color) {
-                    lastYabove = i;
-                } else lastYabove = i + 1;
-            }
-        }
-
-        for (int i = 7; i > y; i--) {
-            if (board[i][x].isOccupied()) {
-                if (board[i][x].getOccupyingPiece().getColor() != this.color) {
-                    lastYbelow = i;
-                } else lastYbelow = i - 1;
-            }
-        }
-
-        for (int i = 0; i < x; i++) {
-            if (board[y][i].isOccupied()) {
-                if (board[y][i].getOccupyingPiece().getColor() != this.color) {
-                    lastXleft = i;
-                } else lastXleft = i + 1;
-            }
-        }
-
-        for (int i = 7; i > x; i--) {
-            if (board[y][i].isOccupied()) {
-                if (board[y][i].getOccupyingPiece().getColor() != this.color) {
-                    lastXright = i;
-                } else lastXright = i - 1;
-            }
-        }
-
-        int[] occups = {lastYabove, lastYbelow, lastXleft, lastXright};
-
-        return occups;
-    }
-
-    // The rest of the methods remain unchanged
-    public List<Square> getDiagonalOccupations(Square[][] board, int x, int y) {
-        LinkedList<Square> diagOccup = new LinkedList<Square>();
-
-        int xNW = x - 1;
-        int xSW = x - 1;
-        int xNE = x + 1;
-        int xSE = x + 1;
-        int yNW = y - 1;
-        int ySW = y + 1;
-        int yNE = y - 1;
-        int ySE = y + 1;
-
-        while (xNW >= 0 && yNW >= 0) {
-            if (board[yNW][xNW].isOccupied()) {
-                if (board[yNW][xNW].getOccupyingPiece().getColor() == this.color) {
-                    break;
-                } else {
-                    diagOccup.add(board[yNW][xNW]);
-                    break;
-                }
-            } else {
-                diagOccup.add(board[yNW][xNW]);
-                yNW--;
-                xNW--;
-            }
-        }
-
-        while (xSW >= 0 && ySW < 8) {
-            if (board[ySW][xSW].isOccupied()) {
-                if (board[ySW][xSW].getOccupyingPiece().getColor() == this.color) {
-                    break;
-                } else {
-                    diagOccup.add(board[ySW][xSW]);
-                    break;
-                }
-            } else {
-                diagOccup.add(board[ySW][xSW]);
-                ySW++;
-                xSW--;
-            }
-        }
-
-        while (xSE < 8 && ySE < 8) {
-            if (board[ySE][xSE].isOccupied()) {
-                if (board[ySE][xSE].getOccupyingPiece().getColor() == this.color) {
-                    break;
-                } else {
-                    diagOccup.add(board[ySE][xSE]);
-                    break;
-                }
-            } else {
-                diagOccup.add(board[ySE][xSE]);
-                ySE++;
-                xSE++;
-            }
-        }
-
-        while (xNE < 8 && yNE >= 0) {
-            if (board[yNE][xNE].isOccupied()) {
-                if (board[yNE][xNE].getOccupyingPiece().getColor() == this.color) {
-                    break;
-                } else {
-                    diagOccup.add(board[yNE][xNE]);
-                    break;
-                }
-            } else {
-                diagOccup.add(board[yNE][xNE]);
-                yNE--;
-                xNE++;
-            }
-        }
-
-        return diagOccup;
-    }
+    /**
+     * Gets the piece type, one of the type constants in {@link Position}.
+     *
+     * @return The piece type
+     */
+    public abstract int getType();
 
+    /**
+     * Gets the squares this piece can move to, computed from the bitboards
+     * of a position rather than from the Swing squares.
+     *
+     * @param position The bitboard position the piece stands in
+     * @return Set of destination squares as a bitboard
+     */
+    public abstract long getMoveTargets(Position position);
 
     /**
      * Gets the legal moves for this piece on the current board.
@@ -259,5 +164,7 @@ public abstract class Piece {
      * @param b The current game board
      * @return List of squares this piece can legally move to
      */
-    public abstract List<Square> getLegalMoves(Board b);
+    public List<Square> getLegalMoves(Board b) {
+        return b.toSquares(getMoveTargets(b.getPosition()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package model;
+
+/**
+ * Told about every piece a {@link Position} places or removes, including
+ * those of make and unmake, so state derived from the pieces can be kept up
+ * to date incrementally outside the position.
+ */
+public interface PieceListener {
+    /**
+     * Called after a piece was placed on a square.
+     *
+     * @param piece The mailbox code of the piece, {@code (color << 3) | type}
+     * @param sq The square index
+     */
+    void pieceAdded(int piece, int sq);
+
+    /**
+     * Called after a piece was removed from a square.
+     *
+     * @param piece The mailbox code of the piece, {@code (color << 3) | type}
+     * @param sq The square index
+     */
+    void pieceRemoved(int piece, int sq);
+}
@@ -11,6 +11,7 @@ public class Player {
     private final LinkedList<Piece> pieces;
     private final LinkedList<Piece> capturedPieces;
     private long timeRemaining; // In milliseconds
+    private long increment; // In milliseconds, added after each move
     private boolean isInCheck;
     private boolean isInCheckmate;
 
@@ -52,6 +53,23 @@ public class Player {
         timeRemaining -= timeUsed;
     }
 
+    /**
+     * Charges the time a move took and adds the increment.
+     *
+     * @param timeUsed The time the move took in milliseconds
+     */
+    public void completeMove(long timeUsed) {
+        timeRemaining += increment - timeUsed;
+    }
+
+    public long getIncrement() {
+        return increment;
+    }
+
+    public void setIncrement(long increment) {
+        this.increment = increment;
+    }
+
     public void setCheck(boolean inCheck) {
         this.isInCheck = inCheck;
     }
@@ -78,21 +96,6 @@ public class Player {
     }
 
     private int getPieceValue(Piece piece) {
-        // Get the class name instead of using instanceof
-        String className = piece.getClass().getSimpleName();
-        switch (className) {
-            case "Pawn":
-                return 1;
-            case "Knight":
-                return 3;
-            case "Bishop":
-                return 3;
-            case "Rook":
-                return 5;
-            case "Queen":
-                return 9;
-            default:
-                return 0;
-        }
+        return Position.pieceValue(piece.getType());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,761 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard model of a chess position: one 64-bit occupancy set per piece type and
+ * per color, plus the side to move, castling rights and en passant square.
+ * <p>
+ * Squares are indexed as in {@link Bitboards} ({@code y * 8 + x}, a8 = 0, h1 = 63) and
+ * colors follow the rest of the model (0 for black, 1 for white). A position has no
+ * dependency on the Swing board, so it can be created and copied freely.
+ * <p>
+ * Moves are applied with {@link #makeMove} and reverted with {@link #unmakeMove}.
+ * Everything needed to revert a move is kept in a preallocated undo stack, so
+ * legality tests and searches can try moves without allocating.
+ * <p>
+ * A 64-bit {@link Zobrist} key of the position is kept up to date by every
+ * change, including make and unmake, so identifying a position costs nothing.
+ * The same goes for the {@link PieceSquareTables} score and game phase that a
+ * tapered evaluation reads.
+ */
+public class Position {
+    // Colors
+    public static final int BLACK = 0;
+    public static final int WHITE = 1;
+
+    // Piece types
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    // Material values in pawns, indexed by piece type; the king is not counted
+    private static final int[] PIECE_VALUES = {1, 3, 3, 5, 9, 0};
+
+    public static final int EMPTY = -1;
+    public static final int NO_SQUARE = -1;
+
+    // Castling rights
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_CHARS = "pnbrqk";
+
+    private static final int INITIAL_UNDO_CAPACITY = 256;
+
+    // Flags kept with each undo record
+    private static final int UNDO_EN_PASSANT = 1;
+    private static final int UNDO_CASTLE = 2;
+    private static final int UNDO_NULL = 4;
+
+    // Rights that survive a piece leaving or arriving on each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[Bitboards.square(4, 7)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[Bitboards.square(7, 7)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(0, 7)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[Bitboards.square(4, 0)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[Bitboards.square(7, 0)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(0, 0)] &= ~BLACK_QUEENSIDE;
+    }
+
+    private final long[] typeOccupancy = new long[6];
+    private final long[] colorOccupancy = new long[2];
+    private final int[] mailbox = new int[64];
+
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private long key;
+    private long pawnKey;
+    private int psqtScore;
+    private int phase;
+    private PieceListener pieceListener;
+
+    // Undo stack: one record per move made, indexed by ply
+    private int ply;
+    private int[] undoMoves = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoCaptured = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoCastling = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoEnPassant = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoHalfmove = new int[INITIAL_UNDO_CAPACITY];
+    private long[] undoKeys = new long[INITIAL_UNDO_CAPACITY];
+
+    /**
+     * Constructs an empty position with white to move.
+     */
+    public Position() {
+        Arrays.fill(mailbox, EMPTY);
+        this.sideToMove = WHITE;
+        this.castlingRights = 0;
+        this.enPassantSquare = NO_SQUARE;
+        this.halfmoveClock = 0;
+        this.fullmoveNumber = 1;
+    }
+
+    /**
+     * Constructs an independent copy of another position.
+     *
+     * @param other The position to copy
+     */
+    public Position(Position other) {
+        System.arraycopy(other.typeOccupancy, 0, typeOccupancy, 0, 6);
+        System.arraycopy(other.colorOccupancy, 0, colorOccupancy, 0, 2);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, 64);
+        this.sideToMove = other.sideToMove;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        this.key = other.key;
+        this.pawnKey = other.pawnKey;
+        this.psqtScore = other.psqtScore;
+        this.phase = other.phase;
+
+        this.ply = other.ply;
+        this.undoMoves = other.undoMoves.clone();
+        this.undoCaptured = other.undoCaptured.clone();
+        this.undoCastling = other.undoCastling.clone();
+        this.undoEnPassant = other.undoEnPassant.clone();
+        this.undoHalfmove = other.undoHalfmove.clone();
+        this.undoKeys = other.undoKeys.clone();
+    }
+
+    /**
+     * Creates a position from Forsyth-Edwards Notation.
+     *
+     * @param fen The FEN string; the move counters are optional
+     * @return The parsed position
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        Position pos = new Position();
+
+        // Piece placement, starting from rank 8 (y = 0)
+        int x = 0;
+        int y = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                x = 0;
+                y++;
+            } else if (Character.isDigit(c)) {
+                x += c - '0';
+            } else {
+                int type = PIECE_CHARS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || x > 7 || y > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                pos.put(Bitboards.square(x, y), Character.isUpperCase(c) ? WHITE : BLACK, type);
+                x++;
+            }
+        }
+
+        // Side to move
+        if (fields[1].equals("w")) pos.setSideToMove(WHITE);
+        else if (fields[1].equals("b")) pos.setSideToMove(BLACK);
+        else throw new IllegalArgumentException("Invalid FEN: " + fen);
+
+        // Castling rights
+        int rights = 0;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K' -> rights |= WHITE_KINGSIDE;
+                case 'Q' -> rights |= WHITE_QUEENSIDE;
+                case 'k' -> rights |= BLACK_KINGSIDE;
+                case 'q' -> rights |= BLACK_QUEENSIDE;
+                case '-' -> { }
+                default -> throw new IllegalArgumentException("Invalid FEN: " + fen);
+            }
+        }
+        pos.setCastlingRights(rights);
+
+        // En passant target
+        if (!fields[3].equals("-")) {
+            int ep = Bitboards.parseSquare(fields[3]);
+            if (ep == NO_SQUARE) {
+                throw new IllegalArgumentException("Invalid FEN: " + fen);
+            }
+            pos.setEnPassantSquare(ep);
+        }
+
+        // Move counters
+        try {
+            if (fields.length > 4) pos.halfmoveClock = Integer.parseInt(fields[4]);
+            if (fields.length > 5) pos.fullmoveNumber = Integer.parseInt(fields[5]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        return pos;
+    }
+
+    /**
+     * Creates the standard starting position.
+     *
+     * @return The starting position
+     */
+    public static Position startPosition() {
+        return fromFen(START_FEN);
+    }
+
+    /**
+     * Gets the material value of a piece type, in pawns.
+     *
+     * @param type The piece type
+     * @return 1 for a pawn, 3 for a knight or bishop, 5 for a rook, 9 for a queen, 0 for the king
+     */
+    public static int pieceValue(int type) {
+        return PIECE_VALUES[type];
+    }
+
+    /**
+     * Writes the position in Forsyth-Edwards Notation.
+     *
+     * @return The FEN string
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder();
+
+        for (int y = 0; y < 8; y++) {
+            int empty = 0;
+            for (int x = 0; x < 8; x++) {
+                int sq = Bitboards.square(x, y);
+                if (mailbox[sq] == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                char c = PIECE_CHARS.charAt(typeAt(sq));
+                sb.append(colorAt(sq) == WHITE ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) sb.append(empty);
+            if (y < 7) sb.append('/');
+        }
+
+        sb.append(sideToMove == WHITE ? " w " : " b ");
+
+        if (castlingRights == 0) sb.append('-');
+        if ((castlingRights & WHITE_KINGSIDE) != 0) sb.append('K');
+        if ((castlingRights & WHITE_QUEENSIDE) != 0) sb.append('Q');
+        if ((castlingRights & BLACK_KINGSIDE) != 0) sb.append('k');
+        if ((castlingRights & BLACK_QUEENSIDE) != 0) sb.append('q');
+
+        sb.append(' ');
+        sb.append(enPassantSquare == NO_SQUARE ? "-" : Bitboards.squareName(enPassantSquare));
+        sb.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+
+        return sb.toString();
+    }
+
+    /**
+     * Places a piece on a square, replacing any piece already there. Replacing a king
+     * or rook on its home square drops the matching castling rights.
+     *
+     * @param sq The square index
+     * @param color The piece color
+     * @param type The piece type
+     */
+    public void put(int sq, int color, int type) {
+        if (mailbox[sq] != EMPTY) remove(sq);
+        setPiece(sq, (color << 3) | type);
+    }
+
+    /**
+     * Removes the piece on a square, if any. Removing a king or rook from its home
+     * square drops the matching castling rights.
+     *
+     * @param sq The square index
+     */
+    public void remove(int sq) {
+        if (mailbox[sq] == EMPTY) return;
+
+        clearPiece(sq);
+        setCastlingRights(castlingRights & CASTLING_MASK[sq]);
+    }
+
+    /**
+     * Makes a move, pushing what is needed to revert it onto the undo stack.
+     * Castling is a king move of two files, and a pawn moving diagonally onto
+     * the en passant square captures en passant. The move is not checked for
+     * legality; the caller must only pass pseudo-legal moves.
+     *
+     * @param from The origin square
+     * @param to The destination square
+     * @param promotion The piece type a pawn promotes to on the last rank, or {@link #EMPTY}
+     */
+    public void makeMove(int from, int to, int promotion) {
+        if (ply == undoMoves.length) growUndoStack();
+
+        int piece = mailbox[from];
+        int color = piece >>> 3;
+        int type = piece & 7;
+        int captureSquare = to;
+        int flags = 0;
+
+        if (type == PAWN && to == enPassantSquare && Bitboards.fileOf(from) != Bitboards.fileOf(to)) {
+            captureSquare = to + (color == WHITE ? 8 : -8);
+            flags = UNDO_EN_PASSANT;
+        } else if (type == KING && Math.abs(to - from) == 2) {
+            flags = UNDO_CASTLE;
+        }
+
+        int captured = mailbox[captureSquare];
+
+        // Save the undo record
+        undoMoves[ply] = from | (to << 6) | ((promotion == EMPTY ? 0 : promotion) << 12) | (flags << 16);
+        undoCaptured[ply] = captured;
+        undoCastling[ply] = castlingRights;
+        undoEnPassant[ply] = enPassantSquare;
+        undoHalfmove[ply] = halfmoveClock;
+        undoKeys[ply] = key;
+        ply++;
+
+        if (captured != EMPTY) clearPiece(captureSquare);
+
+        clearPiece(from);
+        setPiece(to, promotion == EMPTY ? piece : (color << 3) | promotion);
+
+        if (flags == UNDO_CASTLE) {
+            // Kingside moves the rook from beside the king's target, queenside from the a-file
+            boolean kingside = to > from;
+            int rookFrom = kingside ? to + 1 : to - 2;
+            int rookTo = kingside ? to - 1 : to + 1;
+            int rook = mailbox[rookFrom];
+            clearPiece(rookFrom);
+            setPiece(rookTo, rook);
+        }
+
+        setCastlingRights(castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to]);
+        setEnPassantSquare((type == PAWN && Math.abs(to - from) == 16) ? (from + to) / 2 : NO_SQUARE);
+        halfmoveClock = (type == PAWN || captured != EMPTY) ? 0 : halfmoveClock + 1;
+        if (color == BLACK) fullmoveNumber++;
+        setSideToMove(color ^ 1);
+    }
+
+    /**
+     * Applies a packed move (see {@link PackedMove}). Like the square-based
+     * overload, the move is not checked for legality.
+     *
+     * @param move The packed move
+     */
+    public void makeMove(int move) {
+        makeMove(PackedMove.from(move), PackedMove.to(move), PackedMove.promotion(move));
+    }
+
+    /**
+     * Passes the turn to the other side without moving, for null-move pruning.
+     * The en passant square is cleared, and so is the halfmove clock, so no
+     * repetition is counted across the null move. Revert it with {@link #unmakeMove}.
+     */
+    public void makeNullMove() {
+        if (ply == undoMoves.length) growUndoStack();
+
+        undoMoves[ply] = UNDO_NULL << 16;
+        undoCaptured[ply] = EMPTY;
+        undoCastling[ply] = castlingRights;
+        undoEnPassant[ply] = enPassantSquare;
+        undoHalfmove[ply] = halfmoveClock;
+        undoKeys[ply] = key;
+        ply++;
+
+        setEnPassantSquare(NO_SQUARE);
+        halfmoveClock = 0;
+        setSideToMove(sideToMove ^ 1);
+    }
+
+    /**
+     * Reverts the last move made with {@link #makeMove} or {@link #makeNullMove}.
+     *
+     * @throws IllegalStateException if there is no move to revert
+     */
+    public void unmakeMove() {
+        if (ply == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+
+        ply--;
+        int record = undoMoves[ply];
+        int from = record & 63;
+        int to = (record >>> 6) & 63;
+        int promotion = (record >>> 12) & 7;
+        int flags = record >>> 16;
+
+        if (flags == UNDO_NULL) {
+            setEnPassantSquare(undoEnPassant[ply]);
+            halfmoveClock = undoHalfmove[ply];
+            setSideToMove(sideToMove ^ 1);
+            return;
+        }
+
+        int piece = mailbox[to];
+        int color = piece >>> 3;
+
+        clearPiece(to);
+        setPiece(from, promotion != 0 ? (color << 3) | PAWN : piece);
+
+        if (flags == UNDO_CASTLE) {
+            boolean kingside = to > from;
+            int rookFrom = kingside ? to + 1 : to - 2;
+            int rookTo = kingside ? to - 1 : to + 1;
+            int rook = mailbox[rookTo];
+            clearPiece(rookTo);
+            setPiece(rookFrom, rook);
+        }
+
+        int captured = undoCaptured[ply];
+        if (captured != EMPTY) {
+            int captureSquare = (flags == UNDO_EN_PASSANT) ? to + (color == WHITE ? 8 : -8) : to;
+            setPiece(captureSquare, captured);
+        }
+
+        setCastlingRights(undoCastling[ply]);
+        setEnPassantSquare(undoEnPassant[ply]);
+        halfmoveClock = undoHalfmove[ply];
+        if (color == BLACK) fullmoveNumber--;
+        setSideToMove(color);
+    }
+
+    /**
+     * Gets the number of moves on the undo stack.
+     *
+     * @return The number of moves that can be unmade
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces, side to move, castling rights and en
+     * passant square. It is updated incrementally; positions that differ only in
+     * their move counters have equal keys.
+     *
+     * @return The position key
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Computes the Zobrist key from scratch, for checking the incremental one.
+     *
+     * @return The position key
+     */
+    public long computeKey() {
+        long k = Zobrist.side(sideToMove) ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+        for (int sq = 0; sq < 64; sq++) {
+            if (mailbox[sq] != EMPTY) k ^= Zobrist.piece(mailbox[sq], sq);
+        }
+        return k;
+    }
+
+    /**
+     * Gets the Zobrist key of the pawns of both sides alone, for caching
+     * evaluation terms that depend only on the pawn structure. It is updated
+     * incrementally and changes only on pawn moves, captures of pawns and promotions.
+     *
+     * @return The pawn key, 0 without pawns
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * Computes the pawn key from scratch, for checking the incremental one.
+     *
+     * @return The pawn key
+     */
+    public long computePawnKey() {
+        long k = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            if (mailbox[sq] != EMPTY && (mailbox[sq] & 7) == PAWN) k ^= Zobrist.piece(mailbox[sq], sq);
+        }
+        return k;
+    }
+
+    /**
+     * Gets the material and piece-square score of the pieces for a tapered
+     * evaluation, from white's side. It is updated incrementally.
+     *
+     * @return The middlegame and endgame values packed as by {@link PieceSquareTables#pack}
+     */
+    public int getPsqtScore() {
+        return psqtScore;
+    }
+
+    /**
+     * Computes the piece-square score from scratch, for checking the incremental one.
+     *
+     * @return The packed score
+     */
+    public int computePsqtScore() {
+        int score = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (mailbox[sq] != EMPTY) score += PieceSquareTables.score(mailbox[sq], sq);
+        }
+        return score;
+    }
+
+    /**
+     * Gets the game phase from the pieces left: {@link PieceSquareTables#MAX_PHASE}
+     * in the starting position, falling to 0 as knights, bishops, rooks and
+     * queens leave the board. Promotions can take it above the maximum.
+     *
+     * @return The phase
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Sets the listener told about every piece placed or removed from now on.
+     * Copies of this position do not inherit it.
+     *
+     * @param pieceListener The listener, or null for none
+     */
+    public void setPieceListener(PieceListener pieceListener) {
+        this.pieceListener = pieceListener;
+    }
+
+    public PieceListener getPieceListener() {
+        return pieceListener;
+    }
+
+    /**
+     * Counts how often the current position occurred before on the undo stack.
+     * Only positions since the last capture or pawn move can repeat, and only
+     * those with the same side to move, so at most every second one is compared.
+     *
+     * @return The number of earlier occurrences
+     */
+    public int repetitions() {
+        int count = 0;
+        int oldest = Math.max(0, ply - halfmoveClock);
+        for (int i = ply - 2; i >= oldest; i -= 2) {
+            if (undoKeys[i] == key) count++;
+        }
+        return count;
+    }
+
+    private void setPiece(int sq, int piece) {
+        long b = Bitboards.bit(sq);
+        typeOccupancy[piece & 7] |= b;
+        colorOccupancy[piece >>> 3] |= b;
+        mailbox[sq] = piece;
+        key ^= Zobrist.piece(piece, sq);
+        if ((piece & 7) == PAWN) pawnKey ^= Zobrist.piece(piece, sq);
+        psqtScore += PieceSquareTables.score(piece, sq);
+        phase += PieceSquareTables.phase(piece);
+        if (pieceListener != null) pieceListener.pieceAdded(piece, sq);
+    }
+
+    private void clearPiece(int sq) {
+        int piece = mailbox[sq];
+        long b = Bitboards.bit(sq);
+        typeOccupancy[piece & 7] &= ~b;
+        colorOccupancy[piece >>> 3] &= ~b;
+        mailbox[sq] = EMPTY;
+        key ^= Zobrist.piece(piece, sq);
+        if ((piece & 7) == PAWN) pawnKey ^= Zobrist.piece(piece, sq);
+        psqtScore -= PieceSquareTables.score(piece, sq);
+        phase -= PieceSquareTables.phase(piece);
+        if (pieceListener != null) pieceListener.pieceRemoved(piece, sq);
+    }
+
+    /*
+     * Doubles the undo stack; only very long games get here.
+     */
+    private void growUndoStack() {
+        int capacity = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, capacity);
+        undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+        undoCastling = Arrays.copyOf(undoCastling, capacity);
+        undoEnPassant = Arrays.copyOf(undoEnPassant, capacity);
+        undoHalfmove = Arrays.copyOf(undoHalfmove, capacity);
+        undoKeys = Arrays.copyOf(undoKeys, capacity);
+    }
+
+    /**
+     * Gets the squares occupied by pieces of one color and type.
+     *
+     * @param color The piece color
+     * @param type The piece type
+     * @return The occupied squares
+     */
+    public long pieces(int color, int type) {
+        return typeOccupancy[type] & colorOccupancy[color];
+    }
+
+    /**
+     * Gets the squares occupied by pieces of one type, of either color.
+     *
+     * @param type The piece type
+     * @return The occupied squares
+     */
+    public long piecesOfType(int type) {
+        return typeOccupancy[type];
+    }
+
+    public long occupancy(int color) {
+        return colorOccupancy[color];
+    }
+
+    public long occupancy() {
+        return colorOccupancy[WHITE] | colorOccupancy[BLACK];
+    }
+
+    public boolean isOccupied(int sq) {
+        return mailbox[sq] != EMPTY;
+    }
+
+    /**
+     * Gets the piece on a square.
+     *
+     * @param sq The square index
+     * @return The mailbox code of the piece, {@code (color << 3) | type}, or {@link #EMPTY}
+     */
+    public int pieceAt(int sq) {
+        return mailbox[sq];
+    }
+
+    /**
+     * Gets the type of the piece on a square.
+     *
+     * @param sq The square index
+     * @return The piece type, or {@link #EMPTY}
+     */
+    public int typeAt(int sq) {
+        int piece = mailbox[sq];
+        return piece == EMPTY ? EMPTY : piece & 7;
+    }
+
+    /**
+     * Gets the color of the piece on a square.
+     *
+     * @param sq The square index
+     * @return The piece color, or {@link #EMPTY}
+     */
+    public int colorAt(int sq) {
+        int piece = mailbox[sq];
+        return piece == EMPTY ? EMPTY : piece >>> 3;
+    }
+
+    /**
+     * Gets the square of a king.
+     *
+     * @param color The king's color
+     * @return The king square, or {@link #NO_SQUARE} if there is no such king
+     */
+    public int kingSquare(int color) {
+        long king = pieces(color, KING);
+        return king == 0 ? NO_SQUARE : Bitboards.lowest(king);
+    }
+
+    /**
+     * Gets all pieces of either color that attack a square, given an occupancy.
+     *
+     * @param sq The target square
+     * @param occupied The occupancy used to block sliding pieces
+     * @return The attacking pieces
+     */
+    public long attackersTo(int sq, long occupied) {
+        long diagonal = typeOccupancy[BISHOP] | typeOccupancy[QUEEN];
+        long straight = typeOccupancy[ROOK] | typeOccupancy[QUEEN];
+
+        return (Bitboards.pawnAttacks(WHITE, sq) & pieces(BLACK, PAWN))
+                | (Bitboards.pawnAttacks(BLACK, sq) & pieces(WHITE, PAWN))
+                | (Bitboards.knightAttacks(sq) & typeOccupancy[KNIGHT])
+                | (Bitboards.kingAttacks(sq) & typeOccupancy[KING])
+                | (Bitboards.bishopAttacks(sq, occupied) & diagonal)
+                | (Bitboards.rookAttacks(sq, occupied) & straight);
+    }
+
+    /**
+     * Checks whether a square is attacked by a given side.
+     *
+     * @param sq The target square
+     * @param byColor The attacking color
+     * @return true if any piece of that color attacks the square
+     */
+    public boolean isAttacked(int sq, int byColor) {
+        return (attackersTo(sq, occupancy()) & colorOccupancy[byColor]) != 0;
+    }
+
+    /**
+     * Checks whether a side's king is attacked.
+     *
+     * @param color The king's color
+     * @return true if that king is in check
+     */
+    public boolean isInCheck(int color) {
+        int king = kingSquare(color);
+        return king != NO_SQUARE && isAttacked(king, color ^ 1);
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int color) {
+        key ^= Zobrist.side(sideToMove) ^ Zobrist.side(color);
+        this.sideToMove = color;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public void setCastlingRights(int rights) {
+        key ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+        this.castlingRights = rights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int sq) {
+        key ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.enPassant(sq);
+        this.enPassantSquare = sq;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
@@ -48,6 +48,15 @@ public class Square extends JComponent {
         return this.yNum;
     }
 
+    /**
+     * Gets the index of this square in the bitboards of {@link Position}.
+     *
+     * @return The square index (y * 8 + x)
+     */
+    public int getIndex() {
+        return Bitboards.square(xNum, yNum);
+    }
+
     public void setDisplay(boolean v) {
         this.dispPiece = v;
     }
@@ -55,11 +64,13 @@ public class Square extends JComponent {
     public void put(Piece p) {
         this.occupyingPiece = p;
         p.setPosition(this);
+        b.getPosition().put(getIndex(), p.getColor(), p.getType());
     }
 
     public Piece removePiece() {
         Piece p = this.occupyingPiece;
         this.occupyingPiece = null;
+        b.getPosition().remove(getIndex());
         return p;
     }
     public String getPositionName() {
@@ -72,6 +83,7 @@ public class Square extends JComponent {
         if (k.getColor() == 0) b.Bpieces.remove(k);
         if (k.getColor() == 1) b.Wpieces.remove(k);
         this.occupyingPiece = p;
+        b.getPosition().put(getIndex(), p.getColor(), p.getType());
     }
 
     public void paintComponent(Graphics g) {
@@ -98,7 +98,7 @@ public class State {
      * Toggles the turn between white and black.
      */
     public void toggleTurn() {
-        isWhiteTurn = !isWhiteTurn;
+        setWhiteTurn(!isWhiteTurn);
     }
 
     /**
@@ -125,12 +125,27 @@ public class State {
         return blackPlayer;
     }
 
+    /**
+     * Gets the Zobrist key of the position on the board, which identifies it
+     * for repetition checks and caches.
+     *
+     * @return The position key, or 0 before a board is set
+     */
+    public long getPositionKey() {
+        return board == null ? 0L : board.getPosition().getKey();
+    }
+
     public boolean isWhiteTurn() {
         return isWhiteTurn;
     }
 
     public void setWhiteTurn(boolean whiteTurn) {
         isWhiteTurn = whiteTurn;
+
+        // Keep the bitboard position's side to move in step
+        if (board != null) {
+            board.getPosition().setSideToMove(whiteTurn ? Position.WHITE : Position.BLACK);
+        }
     }
 
     public boolean isGameOver() {
@@ -0,0 +1,105 @@
+package model;
+
+/**
+ * Static exchange evaluation (SEE): the material balance of a move once both
+ * sides have recaptured on its destination square for as long as it pays,
+ * each always with its least valuable attacker.
+ * <p>
+ * Attackers come from the attack sets of {@link Position#attackersTo}; pieces
+ * behind a capturing slider join in as it leaves (x-rays). Pins and checks are
+ * not considered, so the result is an estimate, cheap enough to order and
+ * prune moves inside a search.
+ */
+public final class StaticExchange {
+    /** The length of a gain buffer: one entry per capture, at most one per piece. */
+    public static final int MAX_CAPTURES = 32;
+
+    // The king is worth more than anything it can win
+    private static final int KING_VALUE = 100;
+
+    private StaticExchange() {
+    }
+
+    /**
+     * Evaluates the exchange a move starts.
+     *
+     * @param position The position the move is played in; it is not changed
+     * @param move The packed move
+     * @return The balance in pawns for the side making the move: positive when
+     *         it wins material, negative when it loses some, 0 for an even trade
+     */
+    public static int evaluate(Position position, int move) {
+        return evaluate(position, move, new int[MAX_CAPTURES]);
+    }
+
+    /**
+     * Evaluates the exchange a move starts, working in a caller's buffer so
+     * that nothing is allocated. A search keeps one buffer per thread.
+     *
+     * @param position The position the move is played in; it is not changed
+     * @param move The packed move
+     * @param gain Scratch space of at least {@link #MAX_CAPTURES} entries
+     * @return The balance in pawns for the side making the move: positive when
+     *         it wins material, negative when it loses some, 0 for an even trade
+     */
+    public static int evaluate(Position position, int move, int[] gain) {
+        if (PackedMove.isCastle(move)) return 0;
+
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int side = position.colorAt(from);
+        long occupied = position.occupancy() ^ Bitboards.bit(from);
+
+        gain[0] = 0;
+        int onSquare = position.typeAt(from);
+        if (PackedMove.isEnPassant(move)) {
+            gain[0] = value(Position.PAWN);
+            occupied ^= Bitboards.bit(to + (side == Position.WHITE ? 8 : -8));
+        } else if (PackedMove.isCapture(move)) {
+            gain[0] = value(position.typeAt(to));
+        }
+        if (PackedMove.isPromotion(move)) {
+            onSquare = PackedMove.promotion(move);
+            gain[0] += value(onSquare) - value(Position.PAWN);
+        }
+
+        long attackers = position.attackersTo(to, occupied) & occupied;
+        int depth = 0;
+        while (true) {
+            side ^= 1;
+            long ours = attackers & position.occupancy(side);
+            if (ours == 0) break;
+
+            int type = Position.PAWN;
+            long candidates = ours & position.pieces(side, type);
+            while (candidates == 0) {
+                candidates = ours & position.pieces(side, ++type);
+            }
+
+            // The king may only take last, when nothing can take it back
+            if (type == Position.KING && (attackers & position.occupancy(side ^ 1)) != 0) break;
+
+            depth++;
+            gain[depth] = value(onSquare) - gain[depth - 1];
+            // Neither side can do better by going on
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) break;
+
+            onSquare = type;
+            occupied ^= Bitboards.bit(Bitboards.lowest(candidates));
+            attackers = position.attackersTo(to, occupied) & occupied;
+        }
+
+        // Each side may stop recapturing whenever going on loses
+        for (; depth > 0; depth--) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    /*
+     * Gets the value in pawns of a piece type, from Position.pieceValue.
+     */
+    private static int value(int type) {
+        return type == Position.KING ? KING_VALUE : Position.pieceValue(type);
+    }
+}
@@ -0,0 +1,105 @@
+package model;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of the
+ * keys of its pieces on their squares, the side to move, the castling rights
+ * and the en passant file, so making a move only XORs in the few keys that
+ * change. The keys come from a fixed seed, so they are the same in every run.
+ * <p>
+ * An empty board with white to move, no castling rights and no en passant
+ * square has key 0.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5A6F62726973744CL;
+
+    // Indexed by the mailbox code of Position, (color << 3) | type
+    private static final long[][] PIECE_SQUARE = new long[16][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        long state = SEED;
+        for (int color = Position.BLACK; color <= Position.WHITE; color++) {
+            for (int type = Position.PAWN; type <= Position.KING; type++) {
+                for (int sq = 0; sq < 64; sq++) {
+                    state += 0x9E3779B97F4A7C15L;
+                    PIECE_SQUARE[(color << 3) | type][sq] = mix(state);
+                }
+            }
+        }
+
+        // Each castling right gets a key and combinations XOR them, so no rights is 0
+        long[] rightKeys = new long[4];
+        for (int i = 0; i < 4; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            rightKeys[i] = mix(state);
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            for (int i = 0; i < 4; i++) {
+                if ((rights & (1 << i)) != 0) CASTLING[rights] ^= rightKeys[i];
+            }
+        }
+
+        for (int file = 0; file < 8; file++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_FILE[file] = mix(state);
+        }
+
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a piece on a square.
+     *
+     * @param piece The mailbox code of the piece, {@code (color << 3) | type}
+     * @param sq The square index
+     * @return The key
+     */
+    public static long piece(int piece, int sq) {
+        return PIECE_SQUARE[piece][sq];
+    }
+
+    /**
+     * Gets the key of a set of castling rights.
+     *
+     * @param rights The castling rights bits
+     * @return The key, 0 for no rights
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * Gets the key of an en passant square, which depends only on its file.
+     *
+     * @param sq The en passant square, or {@link Position#NO_SQUARE}
+     * @return The key, 0 for no square
+     */
+    public static long enPassant(int sq) {
+        return sq == Position.NO_SQUARE ? 0L : EN_PASSANT_FILE[Bitboards.fileOf(sq)];
+    }
+
+    /**
+     * Gets the key of the side to move.
+     *
+     * @param color The side to move
+     * @return The key, 0 for white
+     */
+    public static long side(int color) {
+        return color == Position.BLACK ? BLACK_TO_MOVE : 0L;
+    }
+
+    /*
+     * One SplitMix64 step: spreads every input bit over the whole word.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
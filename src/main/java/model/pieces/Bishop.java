@@ -1,11 +1,10 @@
 package model.pieces;
 
-import model.Board;
+import model.Bitboards;
 import model.Piece;
+import model.Position;
 import model.Square;
 
-import java.util.List;
-
 public class Bishop extends Piece {
 
     public Bishop(int color, Square initSq, String img_file) {
@@ -13,11 +12,15 @@ public class Bishop extends Piece {
     }
 
     @Override
-    public List<Square> getLegalMoves(Board b) {
-        Square[][] board = b.getSquareArray();
-        int x = this.getPosition().getXNum();
-        int y = this.getPosition().getYNum();
+    public int getType() {
+        return Position.BISHOP;
+    }
+
+    @Override
+    public long getMoveTargets(Position position) {
+        int sq = this.getPosition().getIndex();
 
-        return getDiagonalOccupations(board, x, y);
+        return Bitboards.bishopAttacks(sq, position.occupancy())
+                & ~position.occupancy(this.getColor());
     }
-}
\ No newline at end of file
+}
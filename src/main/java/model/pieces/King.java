@@ -1,44 +1,49 @@
 package model.pieces;
 
-import model.Board;
+import model.Bitboards;
 import model.Piece;
+import model.Position;
 import model.Square;
 
-import java.util.LinkedList;
-import java.util.List;
-
 public class King extends Piece {
 
     public King(int color, Square initSq, String img_file) {
         super(color, initSq, img_file);
     }
 
+    /**
+     * Moves the king to the destination square. A move of two files is castling,
+     * and the rook on that side is brought over to the square the king crossed.
+     *
+     * @param destination The square to move to
+     * @return true if move was successful, false otherwise
+     */
     @Override
-    public List<Square> getLegalMoves(Board b) {
-        LinkedList<Square> legalMoves = new LinkedList<Square>();
-
-        Square[][] board = b.getSquareArray();
-
-        int x = this.getPosition().getXNum();
-        int y = this.getPosition().getYNum();
-
-        for (int i = 1; i > -2; i--) {
-            for (int k = 1; k > -2; k--) {
-                if(!(i == 0 && k == 0)) {
-                    try {
-                        if(!board[y + k][x + i].isOccupied() ||
-                                board[y + k][x + i].getOccupyingPiece().getColor()
-                                        != this.getColor()) {
-                            legalMoves.add(board[y + k][x + i]);
-                        }
-                    } catch (ArrayIndexOutOfBoundsException e) {
-                        continue;
-                    }
-                }
+    public boolean move(Square destination) {
+        int dx = destination.getXNum() - this.getPosition().getXNum();
+        boolean moveSuccessful = super.move(destination);
+
+        if (moveSuccessful && Math.abs(dx) == 2) {
+            Square[][] squares = destination.getBoard().getSquareArray();
+            int y = destination.getYNum();
+            Piece rook = squares[y][dx > 0 ? 7 : 0].getOccupyingPiece();
+            if (rook != null) {
+                rook.move(squares[y][destination.getXNum() - Integer.signum(dx)]);
             }
         }
+        return moveSuccessful;
+    }
+
+    @Override
+    public int getType() {
+        return Position.KING;
+    }
+
+    @Override
+    public long getMoveTargets(Position position) {
+        int sq = this.getPosition().getIndex();
 
-        return legalMoves;
+        return Bitboards.kingAttacks(sq) & ~position.occupancy(this.getColor());
     }
 
-}
\ No newline at end of file
+}
@@ -1,12 +1,10 @@
 package model.pieces;
 
-import model.Board;
+import model.Bitboards;
 import model.Piece;
+import model.Position;
 import model.Square;
 
-import java.util.LinkedList;
-import java.util.List;
-
 public class Knight extends Piece {
 
     public Knight(int color, Square initSq, String img_file) {
@@ -14,28 +12,17 @@ public class Knight extends Piece {
     }
 
     @Override
-    public List<Square> getLegalMoves(Board b) {
-        LinkedList<Square> legalMoves = new LinkedList<Square>();
-        Square[][] board = b.getSquareArray();
-
-        int x = this.getPosition().getXNum();
-        int y = this.getPosition().getYNum();
-
-        for (int i = 2; i > -3; i--) {
-            for (int k = 2; k > -3; k--) {
-                if(Math.abs(i) == 2 ^ Math.abs(k) == 2) {
-                    if (k != 0 && i != 0) {
-                        try {
-                            legalMoves.add(board[y + k][x + i]);
-                        } catch (ArrayIndexOutOfBoundsException e) {
-                            continue;
-                        }
-                    }
-                }
-            }
-        }
+    public int getType() {
+        return Position.KNIGHT;
+    }
 
-        return legalMoves;
+    /**
+     * Gets every square the knight attacks. Squares held by its own side are
+     * included, matching the attack maps in GameRulesEngine; Piece.move refuses them.
+     */
+    @Override
+    public long getMoveTargets(Position position) {
+        return Bitboards.knightAttacks(this.getPosition().getIndex());
     }
 
-}
\ No newline at end of file
+}
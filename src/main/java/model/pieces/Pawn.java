@@ -1,17 +1,15 @@
 package model.pieces;
 
+import model.Bitboards;
 import model.Board;
 import model.Piece;
+import model.Position;
 import model.Square;
 
-import java.util.LinkedList;
-import java.util.List;
-
 /**
  * Represents a Pawn chess piece with its specific movement rules
  */
 public class Pawn extends Piece {
-    private boolean wasMoved;
 
     /**
      * Constructor for creating a Pawn piece
@@ -22,28 +20,35 @@ public class Pawn extends Piece {
      */
     public Pawn(int color, Square initSq, String img_file) {
         super(color, initSq, img_file);
-        this.wasMoved = false;
     }
 
     /**
-     * Moves the pawn to the destination square and updates its movement status
+     * Moves the pawn to the destination square, capturing en passant, recording
+     * the en passant square after a double step and promoting on the last rank
      *
      * @param destination The square to move to
      * @return true if move was successful, false otherwise
      */
-//    @Override
-//    public boolean move(Square destination) {
-//        boolean moveSuccessful = super.move(destination);
-//        if (moveSuccessful) {
-//            wasMoved = true;
-//        }
-//        return moveSuccessful;
-//    }
     @Override
     public boolean move(Square destination) {
+        Square origin = this.getPosition();
+        int from = origin.getIndex();
+        Position position = destination.getBoard().getPosition();
+
+        // A diagonal step onto the empty en passant square captures the pawn beside us
+        boolean enPassant = destination.getIndex() == position.getEnPassantSquare()
+                && destination.getXNum() != origin.getXNum() && !destination.isOccupied();
+
         boolean moveSuccessful = super.move(destination);
         if (moveSuccessful) {
-            wasMoved = true;
+            int to = destination.getIndex();
+            if (Math.abs(to - from) == 16) {
+                position.setEnPassantSquare((from + to) / 2);
+            }
+
+            if (enPassant) {
+                captureEnPassant(destination.getBoard(), destination.getXNum(), origin.getYNum());
+            }
 
             // Check for promotion
             checkPromotion(destination);
@@ -51,6 +56,20 @@ public class Pawn extends Piece {
         return moveSuccessful;
     }
 
+    /**
+     * Removes the pawn captured en passant from its square and the piece lists
+     */
+    private void captureEnPassant(Board board, int x, int y) {
+        Piece victim = board.getSquareArray()[y][x].removePiece();
+        if (victim == null) return;
+
+        if (victim.getColor() == 1) {
+            board.Wpieces.remove(victim);
+        } else {
+            board.Bpieces.remove(victim);
+        }
+    }
+
     /**
      * Checks if pawn has reached the promotion rank and handles promotion
      */
@@ -102,140 +121,61 @@ public class Pawn extends Piece {
                 newPiece = new Queen(color, square, defaultImg);
         }
 
-        // Replace pawn with new piece on the board
-        square.removePiece();
+        // Replace pawn, or the queen it was already promoted to, with new piece on the board
+        Piece replaced = square.removePiece();
         square.put(newPiece);
 
         // Update the piece lists in the board
         if (color == 1) {
             board.Wpieces.remove(this);
+            board.Wpieces.remove(replaced);
             board.Wpieces.add(newPiece);
         } else {
             board.Bpieces.remove(this);
+            board.Bpieces.remove(replaced);
             board.Bpieces.add(newPiece);
         }
 
         return newPiece;
     }
 
-    /**
-     * Calculates all legal moves for this pawn on the current board
-     *
-     * @param board The current game board
-     * @return List of squares the pawn can legally move to
-     */
     @Override
-    public List<Square> getLegalMoves(Board board) {
-        LinkedList<Square> legalMoves = new LinkedList<>();
-        Square[][] squares = board.getSquareArray();
-        int x = this.getPosition().getXNum();
-        int y = this.getPosition().getYNum();
-        int color = this.getColor();
-
-        // White pawns move up the board (increasing y)
-        if (color == 0) {
-            addForwardMovesWhite(squares, x, y, legalMoves);
-            addDiagonalCapturesWhite(squares, x, y, legalMoves);
-        }
-        // Black pawns move down the board (decreasing y)
-        else {
-            addForwardMovesBlack(squares, x, y, legalMoves);
-            addDiagonalCapturesBlack(squares, x, y, legalMoves);
-        }
-
-        return legalMoves;
+    public int getType() {
+        return Position.PAWN;
     }
 
     /**
-     * Adds forward movement squares for white pawns
+     * Calculates the destination squares for this pawn from the position bitboards:
+     * one or two steps forward onto empty squares, and diagonal captures.
      *
-     * @param squares The board squares array
-     * @param x Current x-coordinate
-     * @param y Current y-coordinate
-     * @param legalMoves List to add legal moves to
+     * @param position The bitboard position
+     * @return Set of destination squares as a bitboard
      */
-    private void addForwardMovesWhite(Square[][] squares, int x, int y, List<Square> legalMoves) {
-        // Check if one square ahead is within bounds and unoccupied
-        if (y + 1 < 8 && !squares[y + 1][x].isOccupied()) {
-            legalMoves.add(squares[y + 1][x]);
-
-            // If pawn hasn't moved yet, it can move two squares
-            if (!wasMoved && y + 2 < 8 && !squares[y + 2][x].isOccupied()) {
-                legalMoves.add(squares[y + 2][x]);
-            }
-        }
-    }
+    @Override
+    public long getMoveTargets(Position position) {
+        int sq = this.getPosition().getIndex();
+        int color = this.getColor();
+        long empty = ~position.occupancy();
 
-    /**
-     * Adds diagonal capture squares for white pawns
-     *
-     * @param squares The board squares array
-     * @param x Current x-coordinate
-     * @param y Current y-coordinate
-     * @param legalMoves List to add legal moves to
-     */
-    private void addDiagonalCapturesWhite(Square[][] squares, int x, int y, List<Square> legalMoves) {
-        // Check right diagonal capture
-        if (x + 1 < 8 && y + 1 < 8) {
-            if (squares[y + 1][x + 1].isOccupied() &&
-                    squares[y + 1][x + 1].getOccupyingPiece().getColor() != this.getColor()) {
-                legalMoves.add(squares[y + 1][x + 1]);
-            }
-        }
+        // White pawns move up the board (decreasing y), black pawns down (increasing y)
+        int forward = (color == Position.WHITE) ? -8 : 8;
+        int startRow = (color == Position.WHITE) ? 6 : 1;
 
-        // Check left diagonal capture
-        if (x - 1 >= 0 && y + 1 < 8) {
-            if (squares[y + 1][x - 1].isOccupied() &&
-                    squares[y + 1][x - 1].getOccupyingPiece().getColor() != this.getColor()) {
-                legalMoves.add(squares[y + 1][x - 1]);
-            }
-        }
-    }
+        long targets = 0L;
+        int oneStep = sq + forward;
+        if (oneStep >= 0 && oneStep < 64 && (empty & Bitboards.bit(oneStep)) != 0) {
+            targets |= Bitboards.bit(oneStep);
 
-    /**
-     * Adds forward movement squares for black pawns
-     *
-     * @param squares The board squares array
-     * @param x Current x-coordinate
-     * @param y Current y-coordinate
-     * @param legalMoves List to add legal moves to
-     */
-    private void addForwardMovesBlack(Square[][] squares, int x, int y, List<Square> legalMoves) {
-        // Check if one square ahead is within bounds and unoccupied
-        if (y - 1 >= 0 && !squares[y - 1][x].isOccupied()) {
-            legalMoves.add(squares[y - 1][x]);
-
-            // If pawn hasn't moved yet, it can move two squares
-            if (!wasMoved && y - 2 >= 0 && !squares[y - 2][x].isOccupied()) {
-                legalMoves.add(squares[y - 2][x]);
+            // A pawn on its starting row may also move two squares
+            int twoSteps = oneStep + forward;
+            if (Bitboards.rankOf(sq) == startRow && (empty & Bitboards.bit(twoSteps)) != 0) {
+                targets |= Bitboards.bit(twoSteps);
             }
         }
-    }
 
-    /**
-     * Adds diagonal capture squares for black pawns
-     *
-     * @param squares The board squares array
-     * @param x Current x-coordinate
-     * @param y Current y-coordinate
-     * @param legalMoves List to add legal moves to
-     */
-    private void addDiagonalCapturesBlack(Square[][] squares, int x, int y, List<Square> legalMoves) {
-        // Check right diagonal capture
-        if (x + 1 < 8 && y - 1 >= 0) {
-            if (squares[y - 1][x + 1].isOccupied() &&
-                    squares[y - 1][x + 1].getOccupyingPiece().getColor() != this.getColor()) {
-                legalMoves.add(squares[y - 1][x + 1]);
-            }
-        }
+        targets |= Bitboards.pawnAttacks(color, sq) & position.occupancy(color ^ 1);
 
-        // Check left diagonal capture
-        if (x - 1 >= 0 && y - 1 >= 0) {
-            if (squares[y - 1][x - 1].isOccupied() &&
-                    squares[y - 1][x - 1].getOccupyingPiece().getColor() != this.getColor()) {
-                legalMoves.add(squares[y - 1][x - 1]);
-            }
-        }
+        return targets;
     }
 
     @Override
@@ -1,12 +1,10 @@
 package model.pieces;
 
-import model.Board;
+import model.Bitboards;
 import model.Piece;
+import model.Position;
 import model.Square;
 
-import java.util.LinkedList;
-import java.util.List;
-
 public class Rook extends Piece {
 
     public Rook(int color, Square initSq, String img_file) {
@@ -14,24 +12,16 @@ public class Rook extends Piece {
     }
 
     @Override
-    public List<Square> getLegalMoves(Board b) {
-        LinkedList<Square> legalMoves = new LinkedList<Square>();
-        Square[][] board = b.getSquareArray();
-
-        int x = this.getPosition().getXNum();
-        int y = this.getPosition().getYNum();
-
-        int[] occups = getLinearOccupations(board, x, y);
-
-        for (int i = occups[0]; i <= occups[1]; i++) {
-            if (i != y) legalMoves.add(board[i][x]);
-        }
+    public int getType() {
+        return Position.ROOK;
+    }
 
-        for (int i = occups[2]; i <= occups[3]; i++) {
-            if (i != x) legalMoves.add(board[y][i]);
-        }
+    @Override
+    public long getMoveTargets(Position position) {
+        int sq = this.getPosition().getIndex();
 
-        return legalMoves;
+        return Bitboards.rookAttacks(sq, position.occupancy())
+                & ~position.occupancy(this.getColor());
     }
 
-}
\ No newline at end of file
+}
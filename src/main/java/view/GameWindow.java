@@ -18,7 +18,7 @@ public class GameWindow {
     private static final String WINDOW_TITLE = "Chess";
     private static final String ICON_PATH = "wp.png";
     private static final int BORDER_GAP = 20;
-    private static final int CLOCK_UPDATE_INTERVAL = 1000; // milliseconds
+    private static final int CLOCK_UPDATE_INTERVAL = 100; // milliseconds
     private static final String UNTIMED_TEXT = "Untimed game";
 
     // UI Components
@@ -79,8 +79,8 @@ public class GameWindow {
      * @param seconds Time control seconds
      */
     private void initializeClocks(int hours, int minutes, int seconds) {
-        blackClock = new Clock(hours, seconds, minutes);
-        whiteClock = new Clock(hours, seconds, minutes);
+        blackClock = new Clock(hours, minutes, seconds);
+        whiteClock = new Clock(hours, minutes, seconds);
     }
 
     /**
@@ -240,10 +240,10 @@ public class GameWindow {
     }
 
     /**
-     * Updates the white clock and checks for timeout.
+     * Updates the white clock from the controller's time and checks for timeout.
      */
     private void updateWhiteClock() {
-        whiteClock.decr();
+        whiteClock.set(controller.getTimeRemaining(true));
         whiteTimeLabel.setText(whiteClock.getTime());
 
         if (whiteClock.outOfTime()) {
@@ -252,10 +252,10 @@ public class GameWindow {
     }
 
     /**
-     * Updates the black clock and checks for timeout.
+     * Updates the black clock from the controller's time and checks for timeout.
      */
     private void updateBlackClock() {
-        blackClock.decr();
+        blackClock.set(controller.getTimeRemaining(false));
         blackTimeLabel.setText(blackClock.getTime());
 
         if (blackClock.outOfTime()) {
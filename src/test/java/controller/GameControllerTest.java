@@ -4,7 +4,13 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import engine.SearchLimits;
 import model.Board;
+import model.Move;
+import model.MoveGenerator;
+import model.MoveList;
+import model.PackedMove;
+import model.Position;
 import model.Square;
 import model.State;
 import model.pieces.*;
@@ -125,4 +131,73 @@ public class GameControllerTest {
 
         assertTrue("Should be white's turn after black moves", controller.getGameState().isWhiteTurn());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testClockChargesMoveTimeAndIncrement() {
+        controller.setIncrement(2);
+        Pawn whitePawn = (Pawn) squares[6][0].getOccupyingPiece();
+        controller.movePiece(whitePawn, squares[4][0]);
+
+        // Ten minutes, less the moment the move took, plus two seconds
+        long white = controller.getGameState().getWhitePlayer().getTimeRemaining();
+        assertTrue("White should gain the increment", white > 600_000 && white <= 602_000);
+        assertEquals(white, controller.getTimeRemaining(true));
+        assertTrue("Black's clock should be running", controller.getTimeRemaining(false) <= 600_000);
+    }
+
+    @Test
+    public void testEngineMovesOnTheClock() {
+        GameController timed = new GameController("White Player", "Black Player", 0, 0, 5);
+        SearchLimits limits = timed.clockLimits(Position.WHITE);
+        assertTrue(limits.getTimeLeft() > 0 && limits.getTimeLeft() <= 5000);
+
+        assertTrue(timed.playEngineMove());
+        assertFalse(timed.getGameState().isWhiteTurn());
+        assertTrue("The engine must not flag", timed.getGameState().getWhitePlayer().getTimeRemaining() > 0);
+    }
+
+    @Test
+    public void testUntimedEngineMoveTime() {
+        GameController untimed = new GameController("White Player", "Black Player", 0, 0, 0);
+        SearchLimits limits = untimed.clockLimits(Position.BLACK);
+        assertEquals(0, limits.getTimeLeft());
+        assertEquals(GameController.UNTIMED_MOVE_TIME_MILLIS, limits.getMoveTime());
+    }
+
+    @Test
+    public void testPonderHitAnswersWithRunningSearch() {
+        GameController timed = new GameController("White Player", "Black Player", 0, 0, 3);
+        timed.setPondering(true);
+        assertTrue(timed.playEngineMove());
+
+        int expected = timed.getPonderMove();
+        assertNotEquals("The engine should ponder on the expected reply", PackedMove.NONE, expected);
+        assertTrue(timed.movePiece(Move.fromPacked(timed.getGameState().getBoard(), expected)));
+        assertEquals(1, timed.getPonderHits());
+
+        assertTrue(timed.playEngineMove());
+        assertFalse(timed.getGameState().isWhiteTurn());
+        timed.setPondering(false);
+        assertEquals(PackedMove.NONE, timed.getPonderMove());
+    }
+
+    @Test
+    public void testPonderMissCancelsSearch() {
+        GameController timed = new GameController("White Player", "Black Player", 0, 0, 3);
+        timed.setPondering(true);
+        assertTrue(timed.playEngineMove());
+        int expected = timed.getPonderMove();
+
+        // Any other legal reply is a miss
+        Position position = timed.getGameState().getBoard().getPosition();
+        MoveList moves = new MoveList();
+        new MoveGenerator().generateMoves(position, moves);
+        int other = moves.get(0) == expected ? moves.get(1) : moves.get(0);
+        assertTrue(timed.movePiece(Move.fromPacked(timed.getGameState().getBoard(), other)));
+        assertEquals(1, timed.getPonderMisses());
+        assertEquals(PackedMove.NONE, timed.getPonderMove());
+
+        assertTrue(timed.playEngineMove());
+        timed.setPondering(false);
+    }
+}
@@ -0,0 +1,156 @@
+package controller;
+
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+public class UciTest {
+    private ByteArrayOutputStream output;
+    private Uci uci;
+
+    @Before
+    public void setUp() {
+        output = new ByteArrayOutputStream();
+        uci = new Uci(new PrintStream(output, true));
+    }
+
+    @Test
+    public void testHandshake() {
+        uci.handle("uci");
+        uci.handle("isready");
+        List<String> lines = lines();
+        assertTrue(lines.get(0).startsWith("id name "));
+        assertTrue(lines.contains("option name Threads type spin default 1 min 1 max 64"));
+        assertEquals("uciok", lines.get(lines.size() - 2));
+        assertEquals("readyok", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    public void testPositionWithMoves() {
+        uci.handle("position startpos moves e2e4 e7e5 g1f3");
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2",
+                uci.getGame().getPosition().toFen());
+
+        uci.handle("position fen 4k3/8/8/8/8/8/4P3/4K3 w - - 0 1 moves e2e4");
+        assertEquals("4k3/8/8/8/4P3/8/8/4K3 b - e3 0 1", uci.getGame().getPosition().toFen());
+    }
+
+    @Test
+    public void testIllegalMoveKeepsPosition() {
+        uci.handle("position startpos moves e2e4");
+        uci.handle("position startpos moves e2e5");
+        assertEquals("info string Illegal move: e2e5", lines().get(0));
+        assertEquals(1, uci.getGame().getMoveCount());
+    }
+
+    @Test
+    public void testGoDepthStreamsInfo() throws InterruptedException {
+        uci.handle("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        uci.handle("go depth 3");
+        String bestMove = awaitBestMove(5000);
+        assertEquals("bestmove a1a8", bestMove);
+
+        List<String> lines = lines();
+        assertTrue(lines.get(0).startsWith("info depth 1 score "));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("score mate 1")));
+        assertTrue(lines.get(0).matches("info depth 1 .* hashfull \\d+ pv .*"));
+    }
+
+    @Test
+    public void testStopIsHonoredQuickly() throws InterruptedException {
+        uci.handle("position startpos");
+        uci.handle("go infinite");
+        Thread.sleep(200);
+
+        // An infinite search never ends on its own
+        assertFalse(output.toString().contains("bestmove"));
+        uci.handle("isready");
+        assertTrue(lines().contains("readyok"));
+
+        // Stops land before the search thread starts, in the first iteration and
+        // later; the first cycles only warm up the code
+        int warmUp = 10;
+        long[] nanos = new long[50];
+        for (int i = 0; i < warmUp + nanos.length; i++) {
+            if (i > 0) {
+                uci.handle("go infinite");
+                Thread.sleep(i % 3 * 5);
+            }
+            output.reset();
+            long start = System.nanoTime();
+            uci.handle("stop");
+            if (i >= warmUp) nanos[i - warmUp] = System.nanoTime() - start;
+
+            List<String> lines = lines();
+            String bestMove = lines.get(lines.size() - 1);
+            assertTrue(bestMove, bestMove.startsWith("bestmove ") && !bestMove.equals("bestmove 0000"));
+        }
+        Arrays.sort(nanos);
+        long p90 = nanos[nanos.length * 9 / 10];
+        assertTrue("Stop took " + p90 / 1000 + " us at the 90th percentile", p90 < 1_000_000);
+    }
+
+    @Test
+    public void testGoOnTheClock() throws InterruptedException {
+        uci.handle("position startpos moves e2e4");
+        long start = System.nanoTime();
+        uci.handle("go wtime 100000 btime 300 winc 0 binc 0");
+        awaitBestMove(1000);
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 300);
+    }
+
+    @Test
+    public void testPonderHit() throws InterruptedException {
+        uci.handle("position startpos");
+        uci.handle("go ponder movetime 50");
+        Thread.sleep(150);
+        assertFalse(output.toString().contains("bestmove"));
+
+        uci.handle("ponderhit");
+        assertTrue(awaitBestMove(1000).startsWith("bestmove "));
+    }
+
+    @Test
+    public void testSetOption() {
+        uci.handle("setoption name Threads value 2");
+        uci.handle("setoption name Hash value 1");
+        assertEquals(2, uci.getEngine().getThreads());
+        assertEquals(1, uci.getEngine().getTranspositionTable().getSizeMB());
+
+        uci.handle("setoption name MultiPV value 3");
+        assertEquals(3, uci.getEngine().getMultiPv());
+
+        uci.handle("setoption name Contempt value 10");
+        assertEquals("info string Unknown option: Contempt", lines().get(0));
+    }
+
+    @Test
+    public void testQuit() {
+        uci.handle("position startpos");
+        uci.handle("go infinite");
+        assertFalse(uci.handle("quit"));
+        assertTrue(output.toString().contains("bestmove"));
+    }
+
+    private List<String> lines() {
+        String text = output.toString().trim();
+        return text.isEmpty() ? Arrays.asList() : Arrays.asList(text.split("\\R"));
+    }
+
+    private String awaitBestMove(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            for (String line : lines()) {
+                if (line.startsWith("bestmove")) return line;
+            }
+            Thread.sleep(1);
+        }
+        fail("No bestmove within " + timeoutMillis + " ms");
+        return null;
+    }
+}
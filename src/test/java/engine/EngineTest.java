@@ -0,0 +1,308 @@
+package engine;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import controller.GameController;
+import model.ChessGame;
+import model.Move;
+import model.PackedMove;
+import model.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class EngineTest {
+    @Test
+    public void testFindsMateInOne() {
+        // Back-rank mate with the rook
+        SearchResult result = new Engine().search(Position.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"),
+                SearchLimits.depth(4));
+        assertEquals("a1a8", PackedMove.toString(result.getBestMove()));
+        assertTrue(result.isMate());
+        assertEquals(1, result.getMateIn());
+    }
+
+    @Test
+    public void testFindsMateInTwo() {
+        // Rook ladder: Ra7 keeps the king on the back rank, then Rb8 mates
+        SearchResult result = new Engine().search(Position.fromFen("7k/8/8/8/8/8/R7/1R4K1 w - - 0 1"),
+                SearchLimits.depth(5));
+        assertTrue(result.isMate());
+        assertEquals(2, result.getMateIn());
+        assertTrue(result.getPv().length >= 3);
+    }
+
+    @Test
+    public void testWinsHangingQueen() {
+        SearchResult result = new Engine().search(Position.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"),
+                SearchLimits.depth(3));
+        assertEquals("d2d5", PackedMove.toString(result.getBestMove()));
+        assertTrue(result.getScore() > 0);
+    }
+
+    @Test
+    public void testQuiescenceSeesRecaptures() {
+        // At depth 1 the pawn on d5 looks free, but exd5 wins the queen back
+        SearchResult result = new Engine().search(Position.fromFen("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1"),
+                SearchLimits.depth(1));
+        assertNotEquals("d1d5", PackedMove.toString(result.getBestMove()));
+        assertTrue(result.getScore() > 0);
+    }
+
+    @Test
+    public void testIterationsAreReported() {
+        List<SearchResult> iterations = new ArrayList<SearchResult>();
+        SearchResult result = new Engine().search(Position.startPosition(), SearchLimits.depth(4), iterations::add);
+
+        assertEquals(4, iterations.size());
+        for (int i = 0; i < iterations.size(); i++) {
+            assertEquals(i + 1, iterations.get(i).getDepth());
+        }
+        assertSame(result, iterations.get(3));
+        assertTrue(result.getNodes() > 0);
+        assertTrue(result.getNodesPerSecond() > 0);
+        assertEquals(4, result.getPv().length);
+    }
+
+    @Test
+    public void testPvIsLegal() {
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        SearchResult result = new Engine().search(position, SearchLimits.depth(3));
+
+        ChessGame game = new ChessGame(new Position(position));
+        for (int move : result.getPv()) {
+            assertTrue(PackedMove.toString(move), game.play(move));
+        }
+    }
+
+    @Test
+    public void testBudgetsStopTheSearch() {
+        SearchResult result = new Engine().search(Position.startPosition(), SearchLimits.nodes(5000));
+        assertNotNull(result);
+        assertTrue(result.getDepth() < Engine.MAX_PLY);
+        assertNotEquals(PackedMove.NONE, result.getBestMove());
+
+        long start = System.nanoTime();
+        result = new Engine().search(Position.startPosition(), SearchLimits.moveTime(100));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 1000);
+        assertNotEquals(PackedMove.NONE, result.getBestMove());
+    }
+
+    @Test
+    public void testHelperThreadsAgreeOnMate() {
+        Engine engine = new Engine();
+        engine.setThreads(3);
+        SearchResult result = engine.search(Position.fromFen("7k/8/8/8/8/8/R7/1R4K1 w - - 0 1"),
+                SearchLimits.depth(5));
+        assertTrue(result.isMate());
+        assertEquals(2, result.getMateIn());
+
+        // Nodes of every thread are counted, not only the reporting one
+        result = engine.search(Position.startPosition(), SearchLimits.depth(4));
+        assertNotEquals(PackedMove.NONE, result.getBestMove());
+        assertTrue(engine.getNodes() >= result.getNodes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreadCount() {
+        new Engine().setThreads(0);
+    }
+
+    @Test
+    public void testPruningSavesNodes() {
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Engine engine = new Engine();
+        engine.getOptions().setAll(false);
+        engine.search(position, SearchLimits.depth(5));
+        long unpruned = engine.getNodes();
+
+        engine.newGame();
+        engine.getOptions().setAll(true);
+        SearchResult result = engine.search(position, SearchLimits.depth(5));
+        assertTrue(engine.getNodes() < unpruned);
+        assertTrue(new ChessGame(new Position(position)).isLegal(result.getBestMove()));
+    }
+
+    @Test
+    public void testNoNullMoveWithOnlyPawns() {
+        // Zugzwang guard: with kings and pawns only, null-move pruning changes nothing
+        Position position = Position.fromFen("8/8/3k4/8/3P4/3K4/8/8 w - - 0 1");
+        Engine engine = new Engine();
+        engine.getOptions().setAll(false);
+        SearchResult plain = engine.search(position, SearchLimits.depth(6));
+        long plainNodes = engine.getNodes();
+
+        engine.newGame();
+        engine.getOptions().setNullMovePruning(true);
+        SearchResult withNullMove = engine.search(position, SearchLimits.depth(6));
+        assertEquals(plainNodes, engine.getNodes());
+        assertEquals(plain.getScore(), withNullMove.getScore());
+    }
+
+    @Test
+    public void testNoMoveWhenGameIsOver() {
+        SearchResult result = new Engine().search(Position.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"),
+                SearchLimits.depth(3));
+        assertEquals(PackedMove.NONE, result.getBestMove());
+        assertEquals(Engine.DRAW, result.getScore());
+    }
+
+    @Test
+    public void testControllerMovesForEitherSide() {
+        GameController controller = new GameController("White", "Black", 0, 1, 0);
+
+        // Black can be asked for a move while it is white's turn
+        Move reply = controller.findEngineMove(Position.BLACK, SearchLimits.depth(2));
+        assertNotNull(reply);
+        assertEquals(0, reply.getMovingPiece().getColor());
+        assertTrue(controller.getGameState().isWhiteTurn());
+
+        assertTrue(controller.playEngineMove(SearchLimits.depth(2)));
+        assertFalse(controller.getGameState().isWhiteTurn());
+        assertTrue(controller.playEngineMove(SearchLimits.depth(2)));
+        assertTrue(controller.getGameState().isWhiteTurn());
+    }
+
+    @Test
+    public void testPonderWaitsForHit() throws Exception {
+        Engine engine = new Engine();
+        SearchLimits limits = SearchLimits.depth(3);
+        limits.setPonder(true);
+        CompletableFuture<SearchResult> future = engine.searchAsync(Position.startPosition(), limits, null);
+
+        // Depth 3 takes moments, but no result may arrive before the ponder hit
+        Thread.sleep(100);
+        assertFalse(future.isDone());
+        assertTrue(engine.isPondering());
+
+        engine.ponderHit();
+        SearchResult result = future.get(5, TimeUnit.SECONDS);
+        assertEquals(3, result.getDepth());
+        assertFalse(engine.isPondering());
+    }
+
+    @Test
+    public void testPonderMissStopsQuickly() throws Exception {
+        Engine engine = new Engine();
+        SearchLimits limits = SearchLimits.moveTime(50);
+        limits.setPonder(true);
+        CompletableFuture<SearchResult> future = engine.searchAsync(Position.startPosition(), limits, null);
+
+        // The move time only starts at a ponder hit, so the search runs on
+        Thread.sleep(200);
+        assertFalse(future.isDone());
+
+        long start = System.nanoTime();
+        engine.stop();
+        SearchResult result = future.get(5, TimeUnit.SECONDS);
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 100);
+        assertNotEquals(PackedMove.NONE, result.getBestMove());
+    }
+
+    @Test
+    public void testMultiPvReportsRankedLines() {
+        Engine engine = new Engine();
+        engine.setMultiPv(3);
+        List<SearchResult> iterations = new ArrayList<SearchResult>();
+        SearchResult result = engine.search(Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+                SearchLimits.depth(4), iterations::add);
+
+        // Three lines per depth, ranked from 1
+        assertEquals(12, iterations.size());
+        for (int i = 0; i < iterations.size(); i++) {
+            assertEquals(i / 3 + 1, iterations.get(i).getDepth());
+            assertEquals(i % 3 + 1, iterations.get(i).getMultiPv());
+        }
+        assertTrue(iterations.get(0).toString().startsWith("depth 1 multipv 1 score "));
+
+        List<SearchResult> lines = engine.getLastLines();
+        assertEquals(3, lines.size());
+        assertSame(result, lines.get(0));
+        assertNotEquals(lines.get(0).getBestMove(), lines.get(1).getBestMove());
+        assertNotEquals(lines.get(0).getBestMove(), lines.get(2).getBestMove());
+        assertNotEquals(lines.get(1).getBestMove(), lines.get(2).getBestMove());
+        assertTrue(lines.get(0).getScore() >= lines.get(1).getScore());
+        assertTrue(lines.get(1).getScore() >= lines.get(2).getScore());
+    }
+
+    @Test
+    public void testMultiPvKeepsBestMove() {
+        Engine engine = new Engine();
+        engine.setMultiPv(2);
+        SearchResult result = engine.search(Position.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"), SearchLimits.depth(4));
+        assertEquals("d2d5", PackedMove.toString(result.getBestMove()));
+
+        // Any other move leaves the queen on the board
+        assertTrue(engine.getLastLines().get(1).getScore() < result.getScore() - 500);
+    }
+
+    @Test
+    public void testMultiPvIsLimitedToLegalMoves() {
+        // The king in the corner has two moves, to a7 and b7
+        Engine engine = new Engine();
+        engine.setMultiPv(5);
+        engine.search(Position.fromFen("k7/8/3Q4/8/8/8/8/6K1 b - - 0 1"), SearchLimits.depth(3));
+        assertEquals(2, engine.getLastLines().size());
+    }
+
+    @Test
+    public void testMultiPvSharesWork() {
+        Engine single = new Engine();
+        single.search(Position.startPosition(), SearchLimits.depth(7));
+        Engine multi = new Engine();
+        multi.setMultiPv(3);
+        multi.search(Position.startPosition(), SearchLimits.depth(7));
+
+        // Later lines find most of the tree in the transposition table
+        assertTrue(multi.getNodes() < 2 * single.getNodes());
+        assertEquals(1, single.getLastLines().size());
+        assertEquals(0, single.getLastResult().getMultiPv());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultiPvMustBePositive() {
+        new Engine().setMultiPv(0);
+    }
+
+    @Test
+    public void testStopEndsFirstIteration() throws Exception {
+        // Over 100 ms for the twenty root moves of the first iteration
+        Evaluator slow = position -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        };
+        Engine engine = new Engine(slow);
+        Position position = Position.startPosition();
+        CompletableFuture<SearchResult> future = engine.searchAsync(position, SearchLimits.depth(5), null);
+        assertEquals(0, engine.getCurrentResult().getDepth());
+
+        Thread.sleep(20);
+        engine.stop();
+        SearchResult result = future.get(1, TimeUnit.SECONDS);
+        assertEquals(0, result.getDepth());
+        assertSame(engine.getCurrentResult(), result);
+        assertTrue(new ChessGame().play(PackedMove.toString(result.getBestMove())));
+    }
+
+    @Test
+    public void testCurrentResultFollowsIterations() {
+        Engine engine = new Engine();
+        SearchResult result = engine.search(Position.startPosition(), SearchLimits.depth(3));
+        assertSame(result, engine.getCurrentResult());
+
+        // Checkmated: no move to fall back on while the search runs, and none found
+        CompletableFuture<SearchResult> future = engine.searchAsync(Position.fromFen("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1"),
+                SearchLimits.depth(3), null);
+        SearchResult current = engine.getCurrentResult();
+        assertTrue(current == null || current.getBestMove() == PackedMove.NONE);
+        future.join();
+        assertEquals(PackedMove.NONE, engine.getCurrentResult().getBestMove());
+    }
+}
@@ -0,0 +1,37 @@
+package engine;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import model.Position;
+
+public class EvaluatorTest {
+    @Test
+    public void testMaterialFromSideToMove() {
+        Evaluator evaluator = new MaterialEvaluator();
+        assertEquals(0, evaluator.evaluate(Position.startPosition()));
+        assertEquals(1400, evaluator.evaluate(Position.fromFen("4k3/8/8/8/8/8/8/R2QK3 w - - 0 1")));
+        assertEquals(-1400, evaluator.evaluate(Position.fromFen("4k3/8/8/8/8/8/8/R2QK3 b - - 0 1")));
+    }
+
+    @Test
+    public void testTaperedIsSymmetric() {
+        Evaluator evaluator = new TaperedEvaluator();
+        assertEquals(0, evaluator.evaluate(Position.startPosition()));
+
+        // The same position with colors swapped scores the same for the side to move
+        int white = evaluator.evaluate(Position.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3"));
+        int black = evaluator.evaluate(Position.fromFen("rnbqkb1r/pppp1ppp/5n2/4p3/4P3/2N5/PPPP1PPP/R1BQKBNR b KQkq - 2 3"));
+        assertEquals(white, black);
+    }
+
+    @Test
+    public void testTaperedBlendsByPhase() {
+        // A centralized king is bad with queens on the board and good in a pawn ending
+        Evaluator evaluator = new TaperedEvaluator();
+        int pawnEnding = evaluator.evaluate(Position.fromFen("8/8/8/3k4/8/8/3K4/8 b - - 0 1"));
+        int middlegame = evaluator.evaluate(Position.fromFen("rnbq1bnr/pppppppp/8/3k4/8/8/PPPPPPPP/RNBQKBNR b KQ - 0 1"));
+        assertTrue(pawnEnding > 0);
+        assertTrue(middlegame < 0);
+    }
+}
@@ -0,0 +1,100 @@
+package engine;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import model.MoveGenerator;
+import model.MoveList;
+import model.PackedMove;
+import model.Position;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class MovePickerTest {
+    private static final int[] NO_KILLERS = {PackedMove.NONE, PackedMove.NONE};
+
+    private static List<String> pickAll(Position position, int hashMove, int[] killers, int[] history) {
+        MoveList moves = new MoveList();
+        new MoveGenerator().generateMoves(position, moves);
+        int count = moves.size();
+
+        MovePicker picker = new MovePicker();
+        picker.init(position, moves, hashMove, killers, history);
+        List<String> picked = new ArrayList<>();
+        int move;
+        while ((move = picker.next()) != PackedMove.NONE) {
+            picked.add(PackedMove.toString(move));
+        }
+        assertEquals(count, picked.size());
+        return picked;
+    }
+
+    @Test
+    public void testEveryMoveExactlyOnce() {
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int hashMove = PackedMove.parse(position, "e2a6");
+        int[] killers = {PackedMove.parse(position, "a2a3"), PackedMove.parse(position, "e1g1")};
+
+        List<String> picked = pickAll(position, hashMove, killers, new int[64 * 64]);
+        Set<String> unique = new HashSet<>(picked);
+        assertEquals(48, unique.size());
+        assertEquals(48, picked.size());
+    }
+
+    @Test
+    public void testStageOrder() {
+        // White can take the queen with the pawn or the rook
+        Position position = Position.fromFen("4k3/8/8/2q1p3/1P6/8/3Q4/2R1K3 w - - 0 1");
+        int hashMove = PackedMove.parse(position, "e1f1");
+        int killer = PackedMove.parse(position, "d2d3");
+        int[] history = new int[64 * 64];
+        int favourite = PackedMove.parse(position, "b4b5");
+        history[PackedMove.from(favourite) * 64 + PackedMove.to(favourite)] = 500;
+
+        List<String> picked = pickAll(position, hashMove, new int[] {killer, PackedMove.NONE}, history);
+        assertEquals("e1f1", picked.get(0));
+        // Most valuable victim first, least valuable attacker breaking the tie
+        assertEquals("b4c5", picked.get(1));
+        assertEquals("c1c5", picked.get(2));
+        assertEquals("d2d3", picked.get(3));
+        assertEquals("b4b5", picked.get(4));
+    }
+
+    @Test
+    public void testPromotionsComeWithCaptures() {
+        Position position = Position.fromFen("1n2k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+        List<String> picked = pickAll(position, PackedMove.NONE, NO_KILLERS, new int[64 * 64]);
+        // Capturing the knight while promoting to a queen beats everything else
+        assertEquals("a7b8q", picked.get(0));
+        assertEquals("a7a8q", picked.get(1));
+    }
+
+    @Test
+    public void testLosingCapturesComeLast() {
+        // Qxd5 loses the queen to exd5, Nxd5 only trades the knight for a pawn
+        Position position = Position.fromFen("4k3/8/4p3/3p4/8/2N5/8/3QK3 w - - 0 1");
+        List<String> picked = pickAll(position, PackedMove.NONE, NO_KILLERS, new int[64 * 64]);
+        assertEquals("d1d5", picked.get(picked.size() - 1));
+        assertEquals("c3d5", picked.get(picked.size() - 2));
+
+        // Quiescence search skips them altogether
+        MoveList moves = new MoveList();
+        new MoveGenerator().generateMoves(position, moves);
+        MovePicker picker = new MovePicker();
+        picker.initNoisy(position, moves);
+        assertEquals(PackedMove.NONE, picker.next());
+    }
+
+    @Test
+    public void testOrderingCutsOffOnTheFirstMove() {
+        Engine engine = new Engine();
+        engine.search(Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+                SearchLimits.depth(5));
+        assertTrue(engine.getCutoffs() > 0);
+        assertTrue(engine.getFirstMoveCutoffs() <= engine.getCutoffs());
+        assertTrue(engine.getFirstMoveCutoffRate() > 0.8);
+    }
+}
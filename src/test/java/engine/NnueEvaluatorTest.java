@@ -0,0 +1,152 @@
+package engine;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import model.MoveGenerator;
+import model.MoveList;
+import model.PackedMove;
+import model.PieceSquareTables;
+import model.Position;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class NnueEvaluatorTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    public void testMatchesMidgamePieceSquareTables() {
+        Evaluator evaluator = new NnueEvaluator(NnueNetwork.fromPieceSquareTables());
+        assertEquals(0, evaluator.evaluate(Position.startPosition()));
+
+        // Weights are rounded to 5 centipawns, so each piece may be off by up to 2
+        for (String fen : new String[]{KIWIPETE, "4k3/8/8/8/8/8/8/R2QK3 b - - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"}) {
+            Position position = Position.fromFen(fen);
+            int expected = PieceSquareTables.midgame(position.getPsqtScore());
+            if (position.getSideToMove() == Position.BLACK) expected = -expected;
+            int pieces = Long.bitCount(position.occupancy());
+            assertEquals(fen, expected, evaluator.evaluate(position), 2 * pieces);
+        }
+    }
+
+    @Test
+    public void testIsSymmetric() {
+        Evaluator evaluator = new NnueEvaluator(NnueNetwork.fromPieceSquareTables());
+        int white = evaluator.evaluate(Position.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3"));
+        int black = evaluator.evaluate(Position.fromFen("rnbqkb1r/pppp1ppp/5n2/4p3/4P3/2N5/PPPP1PPP/R1BQKBNR b KQkq - 2 3"));
+        assertEquals(white, black);
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchRefresh() {
+        NnueNetwork network = randomNetwork(100, 1);
+        for (boolean vectorized : new boolean[]{false, true}) {
+            NnueEvaluator evaluator = new NnueEvaluator(network, vectorized);
+            Position position = Position.fromFen(KIWIPETE);
+            NnueAccumulator accumulator = evaluator.accumulator(position);
+
+            // Random games cover captures, castling, en passant and promotions
+            Random random = new Random(7);
+            MoveGenerator generator = new MoveGenerator();
+            MoveList moves = new MoveList();
+            int played = 0;
+            for (; played < 60; played++) {
+                moves.clear();
+                generator.generateMoves(position, moves);
+                if (moves.isEmpty()) break;
+                position.makeMove(moves.get(random.nextInt(moves.size())));
+                assertMatchesRefresh(network, vectorized, position, accumulator);
+            }
+            for (; played > 0; played--) {
+                position.unmakeMove();
+                assertMatchesRefresh(network, vectorized, position, accumulator);
+            }
+        }
+    }
+
+    @Test
+    public void testVectorMatchesScalar() {
+        // 100 neurons leave a tail for the scalar loop after the vector lanes
+        NnueNetwork network = randomNetwork(100, 2);
+        Evaluator scalar = new NnueEvaluator(network, false);
+        Evaluator vector = new NnueEvaluator(network, true);
+        for (String fen : new String[]{KIWIPETE, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"}) {
+            assertEquals(scalar.evaluate(Position.fromFen(fen)), vector.evaluate(Position.fromFen(fen)));
+        }
+    }
+
+    @Test
+    public void testWriteAndLoad() throws IOException {
+        NnueNetwork network = randomNetwork(64, 3);
+        Path file = Files.createTempFile("network", ".nnue");
+        try {
+            network.write(file);
+            NnueNetwork loaded = NnueNetwork.load(file);
+
+            assertEquals(network.getHidden(), loaded.getHidden());
+            assertEquals(network.getOutputScale(), loaded.getOutputScale());
+            assertEquals(network.getOutputBias(), loaded.getOutputBias());
+            assertArrayEquals(network.getFeatureWeights(), loaded.getFeatureWeights());
+            assertArrayEquals(network.getFeatureBias(), loaded.getFeatureBias());
+            assertArrayEquals(network.getOutputWeights(), loaded.getOutputWeights());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadRejectsOtherFiles() throws IOException {
+        Path file = Files.createTempFile("network", ".nnue");
+        try {
+            Files.write(file, "not a network file".getBytes());
+            NnueNetwork.load(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutputWeightsAreLimited() {
+        short[] outputWeights = new short[2];
+        outputWeights[0] = NnueNetwork.MAX_OUTPUT_WEIGHT + 1;
+        new NnueNetwork(1, 1024, new short[NnueNetwork.INPUTS], new short[1], outputWeights, 0);
+    }
+
+    @Test
+    public void testSearchWithNnue() {
+        Engine engine = new Engine(new NnueEvaluator(NnueNetwork.fromPieceSquareTables()));
+        engine.setThreads(2);
+        SearchResult result = engine.search(Position.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"),
+                SearchLimits.depth(4));
+        assertEquals("d2d5", PackedMove.toString(result.getBestMove()));
+    }
+
+    private static void assertMatchesRefresh(NnueNetwork network, boolean vectorized, Position position,
+                                             NnueAccumulator accumulator) {
+        NnueAccumulator fresh = new NnueAccumulator(network, vectorized);
+        fresh.refresh(position);
+        for (int perspective = Position.BLACK; perspective <= Position.WHITE; perspective++) {
+            assertArrayEquals(position.toFen(), fresh.getAccumulator(perspective), accumulator.getAccumulator(perspective));
+        }
+    }
+
+    /*
+     * Small random weights, so some neurons are clipped at each end.
+     */
+    private static NnueNetwork randomNetwork(int hidden, long seed) {
+        Random random = new Random(seed);
+        short[] featureWeights = new short[NnueNetwork.INPUTS * hidden];
+        short[] featureBias = new short[hidden];
+        short[] outputWeights = new short[2 * hidden];
+        for (int i = 0; i < featureWeights.length; i++) featureWeights[i] = (short) (random.nextInt(61) - 30);
+        for (int i = 0; i < featureBias.length; i++) featureBias[i] = (short) (random.nextInt(201) - 50);
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (short) (random.nextInt(2 * NnueNetwork.MAX_OUTPUT_WEIGHT + 1) - NnueNetwork.MAX_OUTPUT_WEIGHT);
+        }
+        return new NnueNetwork(hidden, 16, featureWeights, featureBias, outputWeights, random.nextInt(1000));
+    }
+}
@@ -0,0 +1,54 @@
+package engine;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import model.PackedMove;
+import model.Position;
+
+public class PawnHashTableTest {
+    @Test
+    public void testHitsWhileThePawnsStay() {
+        PawnHashTable table = new PawnHashTable(1);
+        Position position = Position.startPosition();
+
+        int score = table.probe(position);
+        assertEquals(PawnStructure.evaluate(position), score);
+        assertEquals(0, table.getHits());
+
+        // A knight move keeps the pawn key, a pawn move changes it
+        position.makeMove(PackedMove.parse(position, "g1f3"));
+        assertEquals(score, table.probe(position));
+        assertEquals(1, table.getHits());
+
+        position.makeMove(PackedMove.parse(position, "d7d5"));
+        assertEquals(PawnStructure.evaluate(position), table.probe(position));
+        assertEquals(3, table.getProbes());
+        assertEquals(1, table.getHits());
+        assertEquals(1.0 / 3, table.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testSizeAndClear() {
+        PawnHashTable table = new PawnHashTable(1);
+        assertEquals(1024 * 1024 / 16, table.getCapacity());
+
+        table.probe(Position.startPosition());
+        table.clear();
+        assertEquals(0, table.getProbes());
+        table.probe(Position.startPosition());
+        assertEquals(0, table.getHits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new TaperedEvaluator().setPawnHashSize(0);
+    }
+
+    @Test
+    public void testSearchHitsTheTable() {
+        TaperedEvaluator evaluator = new TaperedEvaluator();
+        new Engine(evaluator).search(Position.startPosition(), SearchLimits.depth(5));
+        assertTrue(evaluator.getPawnHashTable().getHitRate() > 0.5);
+    }
+}
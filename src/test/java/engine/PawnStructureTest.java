@@ -0,0 +1,39 @@
+package engine;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import model.Position;
+
+public class PawnStructureTest {
+    private static int score(String fen) {
+        return PawnStructure.evaluate(Position.fromFen(fen));
+    }
+
+    @Test
+    public void testSymmetricStructureIsLevel() {
+        assertEquals(0, score(Position.START_FEN));
+        assertEquals(0, score("4k3/pp3ppp/8/3p4/3P4/8/PP3PPP/4K3 w - - 0 1"));
+    }
+
+    @Test
+    public void testIsolatedPassedPawn() {
+        assertEquals(PawnStructure.ISOLATED + PawnStructure.PASSED[1], score("4k3/8/8/8/8/8/P7/4K3 w - - 0 1"));
+        // The same pawn for black, further advanced
+        assertEquals(-(PawnStructure.ISOLATED + PawnStructure.PASSED[5]), score("4k3/8/8/8/8/p7/8/4K3 w - - 0 1"));
+    }
+
+    @Test
+    public void testDoubledPawns() {
+        // Only the front pawn is passed; the rear one is doubled
+        assertEquals(2 * PawnStructure.ISOLATED + PawnStructure.DOUBLED + PawnStructure.PASSED[2],
+                score("4k3/8/8/8/8/4P3/4P3/4K3 w - - 0 1"));
+    }
+
+    @Test
+    public void testBackwardPawn() {
+        // d3 cannot be supported and e5 guards d4; c4 is passed; e5 is isolated
+        assertEquals(PawnStructure.PASSED[3] + PawnStructure.BACKWARD - PawnStructure.ISOLATED,
+                score("4k3/8/8/4p3/2P5/3P4/8/4K3 w - - 0 1"));
+    }
+}
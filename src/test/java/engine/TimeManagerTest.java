@@ -0,0 +1,73 @@
+package engine;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import model.PackedMove;
+import model.Position;
+
+public class TimeManagerTest {
+    @Test
+    public void testBudgetFromClock() {
+        TimeManager manager = new TimeManager(SearchLimits.clock(60_000, 1_000));
+        long available = 60_000 - TimeManager.MOVE_OVERHEAD_MILLIS;
+        assertEquals(available / TimeManager.DEFAULT_MOVES_TO_GO + 750, manager.getSoftLimit());
+        assertEquals(5 * manager.getSoftLimit(), manager.getHardLimit());
+    }
+
+    @Test
+    public void testHardLimitKeepsTimeInHand() {
+        // One move to the time control may use most, never all, of what is left
+        SearchLimits limits = SearchLimits.clock(1_000, 5_000);
+        limits.setMovesToGo(1);
+        TimeManager manager = new TimeManager(limits);
+        assertTrue(manager.getHardLimit() < 1_000 - TimeManager.MOVE_OVERHEAD_MILLIS);
+        assertTrue(manager.getSoftLimit() <= manager.getHardLimit());
+
+        // Almost flagging still leaves a positive budget
+        manager = new TimeManager(SearchLimits.clock(10, 0));
+        assertEquals(1, manager.getHardLimit());
+    }
+
+    @Test
+    public void testMoveTimeWithoutClock() {
+        TimeManager manager = new TimeManager(SearchLimits.moveTime(500));
+        assertEquals(500, manager.getSoftLimit());
+        assertEquals(500, manager.getHardLimit());
+
+        manager = new TimeManager(SearchLimits.depth(5));
+        assertEquals(Long.MAX_VALUE, manager.getHardLimit());
+        assertFalse(manager.stopAfterIteration(1, Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    public void testStableBestMoveStopsEarlier() {
+        long soft = new TimeManager(SearchLimits.clock(30_000, 0)).getSoftLimit();
+
+        // A best move that keeps changing may use twice the soft limit
+        TimeManager unstable = new TimeManager(SearchLimits.clock(30_000, 0));
+        for (int move = 1; move <= 5; move++) {
+            assertFalse(unstable.stopAfterIteration(move, soft));
+        }
+        assertTrue(unstable.stopAfterIteration(6, 2 * soft));
+
+        // One that settled stops well before the soft limit
+        TimeManager stable = new TimeManager(SearchLimits.clock(30_000, 0));
+        for (int i = 0; i < 4; i++) {
+            stable.stopAfterIteration(7, 0);
+        }
+        assertEquals(3, stable.getStability());
+        assertTrue(stable.stopAfterIteration(7, soft * 6 / 10));
+    }
+
+    @Test
+    public void testSearchStaysWithinClock() {
+        SearchLimits limits = SearchLimits.clock(300, 0);
+        long start = System.nanoTime();
+        SearchResult result = new Engine().search(Position.startPosition(), limits);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotEquals(PackedMove.NONE, result.getBestMove());
+        assertTrue("Used " + elapsedMillis + " ms of 300", elapsedMillis < 300);
+    }
+}
@@ -0,0 +1,125 @@
+package engine;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import model.PackedMove;
+import model.Position;
+
+public class TranspositionTableTest {
+    // Keys that differ only above the bucket bits land in the same bucket
+    private static final long BUCKET_STRIDE = 1L << 40;
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.encode(12, 28, PackedMove.DOUBLE_PUSH);
+        table.store(42L, move, -135, 17, 9, TranspositionTable.BOUND_LOWER, 3);
+
+        long data = table.probe(42L);
+        assertNotEquals(0L, data);
+        assertEquals(move, TranspositionTable.move(data));
+        assertEquals(-135, TranspositionTable.score(data, 3));
+        assertEquals(17, TranspositionTable.eval(data));
+        assertEquals(9, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(data));
+
+        assertEquals(0L, table.probe(43L));
+        assertEquals(0L, table.probe(42L + BUCKET_STRIDE));
+        assertEquals(3, table.getProbes());
+        assertEquals(1, table.getHits());
+        assertEquals(2, table.getMisses());
+    }
+
+    @Test
+    public void testMateScoresAreRelativeToTheNode() {
+        TranspositionTable table = new TranspositionTable(1);
+
+        // Mate in 3 plies from a node at ply 4 is mate in 7 plies from the root
+        table.store(7L, 0, Engine.MATE - 7, 0, 5, TranspositionTable.BOUND_EXACT, 4);
+        assertEquals(Engine.MATE - 3, TranspositionTable.score(table.probe(7L), 0));
+        assertEquals(Engine.MATE - 9, TranspositionTable.score(table.probe(7L), 6));
+
+        table.store(8L, 0, -Engine.MATE + 6, 0, 5, TranspositionTable.BOUND_EXACT, 2);
+        assertEquals(-Engine.MATE + 4, TranspositionTable.score(table.probe(8L), 0));
+    }
+
+    @Test
+    public void testSamePositionKeepsItsMove() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.encode(1, 2, PackedMove.QUIET);
+        table.store(5L, move, 10, 0, 4, TranspositionTable.BOUND_EXACT, 0);
+        table.store(5L, PackedMove.NONE, 20, 0, 6, TranspositionTable.BOUND_UPPER, 0);
+
+        long data = table.probe(5L);
+        assertEquals(move, TranspositionTable.move(data));
+        assertEquals(20, TranspositionTable.score(data, 0));
+        assertEquals(0, table.getCollisions());
+    }
+
+    @Test
+    public void testReplacementPrefersShallowAndOldEntries() {
+        TranspositionTable table = new TranspositionTable(1);
+        for (int i = 0; i < 4; i++) {
+            table.store(1L + i * BUCKET_STRIDE, 0, 0, 0, 10 + i, TranspositionTable.BOUND_EXACT, 0);
+        }
+
+        // A full bucket evicts its shallowest entry, depth 10
+        table.store(1L + 4 * BUCKET_STRIDE, 0, 0, 0, 1, TranspositionTable.BOUND_EXACT, 0);
+        assertEquals(0L, table.probe(1L));
+        assertNotEquals(0L, table.probe(1L + 3 * BUCKET_STRIDE));
+        assertEquals(1, table.getCollisions());
+
+        // A shallow entry of the current search outlives deeper ones from three searches ago
+        for (int i = 0; i < 3; i++) table.newSearch();
+        table.store(1L + 5 * BUCKET_STRIDE, 0, 0, 0, 1, TranspositionTable.BOUND_EXACT, 0);
+        table.store(1L + 6 * BUCKET_STRIDE, 0, 0, 0, 2, TranspositionTable.BOUND_EXACT, 0);
+        assertEquals(0L, table.probe(1L + BUCKET_STRIDE));
+        assertNotEquals(0L, table.probe(1L + 5 * BUCKET_STRIDE));
+        assertNotEquals(0L, table.probe(1L + 6 * BUCKET_STRIDE));
+    }
+
+    @Test
+    public void testSizeAndClear() {
+        TranspositionTable table = new TranspositionTable(2);
+        assertEquals(2 * 1024 * 1024 / 16, table.getCapacity());
+
+        table.store(9L, 0, 0, 0, 1, TranspositionTable.BOUND_EXACT, 0);
+        table.clear();
+        assertEquals(0L, table.probe(9L));
+        assertEquals(0, table.getStores());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new TranspositionTable(0);
+    }
+
+    @Test
+    public void testWarmTableSavesNodes() {
+        Engine engine = new Engine();
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+
+        SearchResult cold = engine.search(position, SearchLimits.depth(4));
+        SearchResult warm = engine.search(position, SearchLimits.depth(4));
+        assertEquals(cold.getScore(), warm.getScore());
+        assertTrue(warm.getNodes() < cold.getNodes());
+        assertTrue(engine.getTranspositionTable().getHitRate() > 0);
+    }
+
+    @Test
+    public void testHashfullCountsCurrentSearch() {
+        Engine engine = new Engine();
+        engine.setHashSize(1);
+        TranspositionTable table = engine.getTranspositionTable();
+        assertEquals(0, table.getHashfull());
+
+        engine.search(Position.startPosition(), SearchLimits.depth(6));
+        int hashfull = table.getHashfull();
+        assertTrue(hashfull > 0 && hashfull <= 1000);
+
+        // Entries of earlier searches are free to be replaced
+        table.newSearch();
+        assertEquals(0, table.getHashfull());
+    }
+}
@@ -0,0 +1,56 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class BitboardsTest {
+
+    @Test
+    public void testRookMagicsMatchRays() {
+        for (int sq = 0; sq < 64; sq++) {
+            long rays = Bitboards.rookRayAttacks(sq, 0L);
+
+            // Every blocker arrangement on the rook's rays
+            long subset = 0L;
+            do {
+                assertEquals("rook on " + Bitboards.squareName(sq),
+                        Bitboards.rookRayAttacks(sq, subset), Bitboards.rookAttacks(sq, subset));
+                subset = (subset - rays) & rays;
+            } while (subset != 0);
+        }
+    }
+
+    @Test
+    public void testBishopMagicsMatchRays() {
+        for (int sq = 0; sq < 64; sq++) {
+            long rays = Bitboards.bishopRayAttacks(sq, 0L);
+
+            long subset = 0L;
+            do {
+                assertEquals("bishop on " + Bitboards.squareName(sq),
+                        Bitboards.bishopRayAttacks(sq, subset), Bitboards.bishopAttacks(sq, subset));
+                subset = (subset - rays) & rays;
+            } while (subset != 0);
+        }
+    }
+
+    @Test
+    public void testRandomOccupancies() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            int sq = random.nextInt(64);
+
+            assertEquals(Bitboards.rookRayAttacks(sq, occupied) | Bitboards.bishopRayAttacks(sq, occupied),
+                    Bitboards.queenAttacks(sq, occupied));
+        }
+    }
+
+    @Test
+    public void testInitTimeRecorded() {
+        assertTrue(Bitboards.getInitNanos() > 0);
+    }
+}
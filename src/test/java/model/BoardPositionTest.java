@@ -0,0 +1,164 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import controller.GameController;
+import model.pieces.*;
+
+import java.util.List;
+
+public class BoardPositionTest {
+    private GameController controller;
+    private Board board;
+    private Square[][] squares;
+
+    @Before
+    public void setUp() {
+        controller = new GameController("White", "Black", 0, 1, 0);
+        board = controller.getGameState().getBoard();
+        squares = board.getSquareArray();
+    }
+
+    @Test
+    public void testInitialBoardMatchesStartPosition() {
+        assertEquals(Position.START_FEN, board.getPosition().toFen());
+    }
+
+    @Test
+    public void testMoveWritesThrough() {
+        Pawn pawn = (Pawn) squares[6][4].getOccupyingPiece();
+        pawn.move(squares[4][4]);
+
+        Position pos = board.getPosition();
+        assertEquals(Position.EMPTY, pos.typeAt(squares[6][4].getIndex()));
+        assertEquals(Position.PAWN, pos.typeAt(squares[4][4].getIndex()));
+        assertEquals(squares[5][4].getIndex(), pos.getEnPassantSquare());
+
+        Knight knight = (Knight) squares[0][6].getOccupyingPiece();
+        knight.move(squares[2][5]);
+        assertEquals(Position.NO_SQUARE, pos.getEnPassantSquare());
+    }
+
+    @Test
+    public void testCaptureWritesThrough() {
+        squares[6][3].removePiece();
+        Queen queen = (Queen) squares[7][3].getOccupyingPiece();
+        queen.move(squares[1][3]);
+
+        Position pos = board.getPosition();
+        assertEquals(Position.QUEEN, pos.typeAt(squares[1][3].getIndex()));
+        assertEquals(Position.WHITE, pos.colorAt(squares[1][3].getIndex()));
+        assertEquals(15, Long.bitCount(pos.occupancy(Position.BLACK)));
+    }
+
+    @Test
+    public void testTurnUpdatesSideToMove() {
+        controller.getGameState().toggleTurn();
+        assertEquals(Position.BLACK, board.getPosition().getSideToMove());
+
+        controller.getGameState().toggleTurn();
+        assertEquals(Position.WHITE, board.getPosition().getSideToMove());
+    }
+
+    @Test
+    public void testMovesFollowSquareEdits() {
+        Bishop bishop = (Bishop) squares[7][2].getOccupyingPiece();
+        assertTrue(bishop.getLegalMoves(board).isEmpty());
+
+        squares[6][3].removePiece();
+        List<Square> moves = bishop.getLegalMoves(board);
+        assertEquals(5, moves.size());
+        assertTrue(moves.contains(squares[2][7]));
+    }
+
+    @Test
+    public void testCastlingMovesRook() {
+        // Clear f1 and g1, then castle kingside through the controller
+        squares[7][5].removePiece();
+        squares[7][6].removePiece();
+
+        King king = (King) squares[7][4].getOccupyingPiece();
+        Rook rook = (Rook) squares[7][7].getOccupyingPiece();
+        assertTrue(controller.getLegalMoves(king).contains(squares[7][6]));
+        assertTrue(controller.movePiece(king, squares[7][6]));
+
+        assertSame(king, squares[7][6].getOccupyingPiece());
+        assertSame(rook, squares[7][5].getOccupyingPiece());
+        assertNull(squares[7][7].getOccupyingPiece());
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQ1RK1 b kq - 1 1",
+                board.getPosition().toFen());
+    }
+
+    @Test
+    public void testEnPassantCapture() {
+        // 1. e4 a6 2. e5 d5 3. exd6
+        assertTrue(controller.movePiece(squares[6][4].getOccupyingPiece(), squares[4][4]));
+        assertTrue(controller.movePiece(squares[1][0].getOccupyingPiece(), squares[2][0]));
+        assertTrue(controller.movePiece(squares[4][4].getOccupyingPiece(), squares[3][4]));
+        assertTrue(controller.movePiece(squares[1][3].getOccupyingPiece(), squares[3][3]));
+
+        Pawn pawn = (Pawn) squares[3][4].getOccupyingPiece();
+        Piece victim = squares[3][3].getOccupyingPiece();
+        assertTrue(controller.getLegalMoves(pawn).contains(squares[2][3]));
+        assertTrue(controller.movePiece(pawn, squares[2][3]));
+
+        assertSame(pawn, squares[2][3].getOccupyingPiece());
+        assertNull(squares[3][3].getOccupyingPiece());
+        assertFalse(board.Bpieces.contains(victim));
+        assertEquals(Position.EMPTY, board.getPosition().typeAt(squares[3][3].getIndex()));
+    }
+
+    @Test
+    public void testPinnedPieceHasNoLegalMoves() {
+        // 1. d3 e6 2. Nc3 Bb4: the c3 knight is pinned to the king
+        assertTrue(controller.movePiece(squares[6][3].getOccupyingPiece(), squares[5][3]));
+        assertTrue(controller.movePiece(squares[1][4].getOccupyingPiece(), squares[2][4]));
+        assertTrue(controller.movePiece(squares[7][1].getOccupyingPiece(), squares[5][2]));
+        assertTrue(controller.movePiece(squares[0][5].getOccupyingPiece(), squares[4][1]));
+
+        Piece knight = squares[5][2].getOccupyingPiece();
+        assertTrue(controller.getLegalMoves(knight).isEmpty());
+        assertFalse(controller.movePiece(knight, squares[3][3]));
+    }
+
+    @Test
+    public void testLoadPosition() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 3 12";
+        controller.loadPosition(fen);
+
+        assertEquals(fen, board.getPosition().toFen());
+        assertFalse(controller.getGameState().isWhiteTurn());
+        assertEquals(16, board.Wpieces.size());
+        assertEquals(16, board.Bpieces.size());
+        assertSame(squares[0][4].getOccupyingPiece(), controller.getGameState().getBlackKing());
+        assertTrue(squares[3][4].getOccupyingPiece() instanceof Knight);
+
+        // Black can castle both ways in the loaded position
+        List<Square> kingMoves = controller.getLegalMoves(controller.getGameState().getBlackKing());
+        assertTrue(kingMoves.contains(squares[0][6]));
+        assertTrue(kingMoves.contains(squares[0][2]));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLoadPositionStartsFreshGame() {
+        // Ng1-f3-g1 twice for both sides repeats the start position three times
+        for (int i = 0; i < 2; i++) {
+            assertTrue(controller.movePiece(squares[7][6].getOccupyingPiece(), squares[5][5]));
+            assertTrue(controller.movePiece(squares[0][6].getOccupyingPiece(), squares[2][5]));
+            assertTrue(controller.movePiece(squares[5][5].getOccupyingPiece(), squares[7][6]));
+            assertTrue(controller.movePiece(squares[2][5].getOccupyingPiece(), squares[0][6]));
+        }
+        assertTrue(board.getGame().isThreefoldRepetition());
+
+        controller.loadPosition(Position.START_FEN);
+
+        ChessGame game = board.getGame();
+        assertEquals(0, game.getMoveCount());
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(Position.START_FEN, board.getPosition().toFen());
+        // The moves played before the load cannot be taken back
+        game.undo();
+    }
+}
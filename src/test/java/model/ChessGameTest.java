@@ -0,0 +1,90 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ChessGameTest {
+    @Test
+    public void testPlayAndUndo() {
+        ChessGame game = new ChessGame();
+        assertTrue(game.play("e2e4"));
+        assertTrue(game.play("e7e5"));
+        assertEquals(2, game.getMoveCount());
+        assertEquals("e7e5", PackedMove.toString(game.getMove(1)));
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2", game.toFen());
+
+        assertEquals("e7e5", PackedMove.toString(game.undo()));
+        assertEquals("e2e4", PackedMove.toString(game.undo()));
+        assertEquals(Position.START_FEN, game.toFen());
+        assertEquals(0, game.getHistory().length);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUndoWithoutMoves() {
+        new ChessGame().undo();
+    }
+
+    @Test
+    public void testIllegalMovesAreRejected() {
+        ChessGame game = new ChessGame();
+        assertFalse(game.play("e2e5"));
+        assertFalse(game.play("e7e5"));   // black is not to move
+        assertFalse(game.play("e1e2"));   // own pawn on e2
+        assertFalse(game.play("junk"));
+        assertEquals(Position.START_FEN, game.toFen());
+        assertEquals(0, game.getMoveCount());
+    }
+
+    @Test
+    public void testLegalTargetsForEitherColor() {
+        ChessGame game = new ChessGame();
+        long targets = game.getLegalTargets(Bitboards.parseSquare("g8"));
+        assertEquals(Bitboards.bit(Bitboards.parseSquare("f6")) | Bitboards.bit(Bitboards.parseSquare("h6")), targets);
+        assertEquals(0L, game.getLegalTargets(Bitboards.parseSquare("e4")));
+
+        MoveList moves = new MoveList();
+        assertEquals(20, game.getLegalMoves(moves));
+    }
+
+    @Test
+    public void testCheckmateAndStalemate() {
+        ChessGame game = new ChessGame();
+        for (String move : new String[] {"f2f3", "e7e5", "g2g4", "d8h4"}) {
+            assertTrue(move, game.play(move));
+        }
+        assertTrue(game.isInCheck(Position.WHITE));
+        assertTrue(game.isCheckmated(Position.WHITE));
+        assertFalse(game.isCheckmated(Position.BLACK));
+        assertFalse(game.isStalemate());
+        assertTrue(game.isGameOver());
+
+        game = new ChessGame("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        assertTrue(game.isStalemate());
+        assertFalse(game.isCheckmated(Position.BLACK));
+        assertTrue(game.isGameOver());
+    }
+
+    @Test
+    public void testSpecialMovesThroughTheCore() {
+        ChessGame game = new ChessGame("r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+        assertTrue(game.play("e5d6"));
+        assertEquals(Position.EMPTY, game.getPosition().typeAt(Bitboards.parseSquare("d5")));
+        assertFalse(game.play("e8c8"));   // the b7 pawn covers c8
+        assertTrue(game.play("e8g8"));
+        assertEquals(Position.ROOK, game.getPosition().typeAt(Bitboards.parseSquare("f8")));
+        assertTrue(game.play("b7b8n"));
+        assertEquals(Position.KNIGHT, game.getPosition().typeAt(Bitboards.parseSquare("b8")));
+        assertEquals("rN3rk1/8/3P4/8/8/8/8/R3K2R b KQ - 0 2", game.toFen());
+    }
+
+    @Test
+    public void testThreefoldRepetition() {
+        ChessGame game = new ChessGame();
+        String[] shuffle = {"b1c3", "b8c6", "c3b1", "c6b8"};
+        for (String move : shuffle) assertTrue(game.play(move));
+        assertFalse(game.isThreefoldRepetition());
+        for (String move : shuffle) assertTrue(game.play(move));
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(Position.startPosition().getKey(), game.getPosition().getKey());
+    }
+}
@@ -0,0 +1,128 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import controller.GameController;
+import model.pieces.*;
+
+public class GameRulesEngineTest {
+    private Board board;
+    private Square[][] squares;
+    private GameRulesEngine engine;
+
+    @Before
+    public void setUp() {
+        GameController controller = new GameController("White", "Black", 0, 1, 0);
+        State state = controller.getGameState();
+        board = state.getBoard();
+        squares = board.getSquareArray();
+
+        engine = new GameRulesEngine(board, state.getWhiteKing(), state.getBlackKing());
+        engine.setConsistencyChecks(true);
+    }
+
+    private void move(int fromY, int fromX, int toY, int toX) {
+        assertTrue(squares[fromY][fromX].getOccupyingPiece().move(squares[toY][toX]));
+        engine.update();
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchRebuild() {
+        assertTrue(engine.isIncremental());
+
+        // 1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7
+        move(6, 4, 4, 4);
+        move(1, 4, 3, 4);
+        move(7, 5, 4, 2);
+        move(0, 1, 2, 2);
+        move(7, 3, 3, 7);
+        move(0, 6, 2, 5);
+        move(3, 7, 1, 5);
+
+        assertTrue(engine.isBlackInCheck());
+        assertFalse(engine.isWhiteInCheck());
+    }
+
+    @Test
+    public void testSquareEditsMatchRebuild() {
+        squares[6][3].removePiece();
+        engine.update();
+
+        squares[4][3].put(new Rook(0, squares[4][3], "brook.png"));
+        engine.update();
+
+        squares[1][4].removePiece();
+        squares[1][4].put(new Knight(1, squares[1][4], "wknight.png"));
+        engine.update();
+    }
+
+    @Test
+    public void testTestMoveLeavesMapsConsistent() {
+        move(6, 5, 5, 5);
+        move(1, 4, 3, 4);
+        move(6, 6, 4, 6);
+
+        // Qh4 is mate; moving the g-pawn back would not help
+        Piece queen = squares[0][3].getOccupyingPiece();
+        assertTrue(engine.testMove(queen, squares[4][7]));
+        move(0, 3, 4, 7);
+
+        assertTrue(engine.isWhiteInCheck());
+        assertTrue(engine.isWhiteCheckmated());
+    }
+
+    @Test
+    public void testTestMoveHasNoSideEffects() {
+        move(6, 4, 4, 4);
+        move(1, 3, 3, 3);
+
+        String fen = board.getPosition().toFen();
+        int blackPieces = board.Bpieces.size();
+        Piece pawn = squares[4][4].getOccupyingPiece();
+        Piece captured = squares[3][3].getOccupyingPiece();
+
+        assertTrue(engine.testMove(pawn, squares[3][3]));
+
+        assertEquals(fen, board.getPosition().toFen());
+        assertEquals(blackPieces, board.Bpieces.size());
+        assertSame(pawn, squares[4][4].getOccupyingPiece());
+        assertSame(captured, squares[3][3].getOccupyingPiece());
+
+        // The untouched d-pawn keeps its double step
+        Piece dPawn = squares[6][3].getOccupyingPiece();
+        assertTrue(engine.testMove(dPawn, squares[4][3]));
+        assertTrue(dPawn.getLegalMoves(board).contains(squares[4][3]));
+    }
+
+    @Test
+    public void testTestMoveRejectsIllegalMoves() {
+        // A knight cannot land on its own pawn, and a rook cannot jump
+        assertFalse(engine.testMove(squares[7][1].getOccupyingPiece(), squares[6][3]));
+        assertFalse(engine.testMove(squares[7][0].getOccupyingPiece(), squares[3][0]));
+    }
+
+    @Test
+    public void testFullRebuildMode() {
+        engine.setIncremental(false);
+
+        move(6, 4, 4, 4);
+        move(1, 3, 3, 3);
+        move(4, 4, 3, 3);
+
+        assertFalse(engine.isBlackInCheck());
+    }
+
+    @Test
+    public void testExchangeValue() {
+        // 1. e4 d5
+        move(6, 4, 4, 4);
+        move(1, 3, 3, 3);
+
+        // exd5 Qxd5 trades pawns; Qg4 hangs the queen to the bishop on c8
+        assertEquals(0, engine.getExchangeValue(squares[4][4].getOccupyingPiece(), squares[3][3]));
+        assertEquals(-9, engine.getExchangeValue(squares[7][3].getOccupyingPiece(), squares[4][6]));
+        assertEquals(0, engine.getExchangeValue(new Move(squares[7][6].getOccupyingPiece(), squares[7][6], squares[5][5])));
+    }
+}
@@ -0,0 +1,82 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class MoveGeneratorTest {
+    @Test
+    public void testPinnedPieceStaysOnLine() {
+        // The e2 rook is pinned by the e8 rook and the d2 bishop by the a5 bishop
+        Position pos = Position.fromFen("4r2k/8/8/b7/8/8/3BR3/4K3 w - - 0 1");
+        MoveGenerator gen = new MoveGenerator();
+        gen.analyze(pos, Position.WHITE);
+
+        int e2 = Bitboards.parseSquare("e2");
+        int d2 = Bitboards.parseSquare("d2");
+        assertEquals(Bitboards.bit(e2) | Bitboards.bit(d2), gen.getPinned());
+
+        long rookLine = Bitboards.line(Bitboards.parseSquare("e1"), e2) & ~Bitboards.bit(e2)
+                & ~Bitboards.bit(Bitboards.parseSquare("e1"));
+        assertEquals(rookLine, gen.legalTargets(e2));
+        assertEquals(Bitboards.bit(Bitboards.parseSquare("c3")) | Bitboards.bit(Bitboards.parseSquare("b4"))
+                | Bitboards.bit(Bitboards.parseSquare("a5")), gen.legalTargets(d2));
+    }
+
+    @Test
+    public void testCheckEvasions() {
+        // Knight check on f3: capture it or step away, nothing else
+        Position pos = Position.fromFen("4k3/8/8/8/8/5n2/3N4/4K3 w - - 0 1");
+        MoveGenerator gen = new MoveGenerator();
+        gen.analyze(pos, Position.WHITE);
+
+        int f3 = Bitboards.parseSquare("f3");
+        assertTrue(gen.isInCheck());
+        assertEquals(Bitboards.bit(f3), gen.getCheckers());
+        assertEquals(Bitboards.bit(f3), gen.legalTargets(Bitboards.parseSquare("d2")));
+        assertTrue(gen.hasLegalMove());
+
+        // The king cannot retreat along the line of a checking rook
+        pos = Position.fromFen("4k3/8/8/8/8/8/8/r3K3 w - - 0 1");
+        gen.analyze(pos, Position.WHITE);
+        long kingTargets = gen.legalTargets(Bitboards.parseSquare("e1"));
+        assertEquals(0L, kingTargets & Bitboards.bit(Bitboards.parseSquare("f1")));
+        assertEquals(0L, kingTargets & Bitboards.bit(Bitboards.parseSquare("d1")));
+        assertNotEquals(0L, kingTargets & Bitboards.bit(Bitboards.parseSquare("e2")));
+    }
+
+    @Test
+    public void testMateAndStalemateHaveNoMoves() {
+        MoveGenerator gen = new MoveGenerator();
+
+        gen.analyze(Position.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3"), Position.WHITE);
+        assertTrue(gen.isInCheck());
+        assertFalse(gen.hasLegalMove());
+
+        gen.analyze(Position.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"), Position.BLACK);
+        assertFalse(gen.isInCheck());
+        assertFalse(gen.hasLegalMove());
+        assertEquals(0L, gen.allTargets());
+    }
+
+    @Test
+    public void testCastlingThroughAttackIsRejected() {
+        // The f8 rook covers f1, so only queenside castling is available
+        Position pos = Position.fromFen("4kr2/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        MoveGenerator gen = new MoveGenerator();
+        gen.analyze(pos, Position.WHITE);
+
+        long kingTargets = gen.legalTargets(Bitboards.parseSquare("e1"));
+        assertEquals(0L, kingTargets & Bitboards.bit(Bitboards.parseSquare("g1")));
+        assertNotEquals(0L, kingTargets & Bitboards.bit(Bitboards.parseSquare("c1")));
+    }
+
+    @Test
+    public void testEnPassantRevealingCheckIsRejected() {
+        // Taking on d6 would empty the fifth rank between the h5 rook and the a5 king
+        Position pos = Position.fromFen("4k3/8/8/K2pP2r/8/8/8/8 w - d6 0 1");
+        MoveGenerator gen = new MoveGenerator();
+        gen.analyze(pos, Position.WHITE);
+
+        assertEquals(Bitboards.bit(Bitboards.parseSquare("e6")), gen.legalTargets(Bitboards.parseSquare("e5")));
+    }
+}
@@ -0,0 +1,121 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import controller.GameController;
+import model.pieces.*;
+
+public class PackedMoveTest {
+
+    @Test
+    public void testEncodeDecode() {
+        int e2 = Bitboards.parseSquare("e2");
+        int e4 = Bitboards.parseSquare("e4");
+        int move = PackedMove.encode(e2, e4, PackedMove.DOUBLE_PUSH);
+
+        assertEquals(e2, PackedMove.from(move));
+        assertEquals(e4, PackedMove.to(move));
+        assertEquals(PackedMove.DOUBLE_PUSH, PackedMove.flags(move));
+        assertFalse(PackedMove.isCapture(move));
+        assertEquals(Position.EMPTY, PackedMove.promotion(move));
+        assertEquals("e2e4", PackedMove.toString(move));
+        assertEquals(0, move >>> 16);
+    }
+
+    @Test
+    public void testPromotionFlags() {
+        int a7 = Bitboards.parseSquare("a7");
+        int b8 = Bitboards.parseSquare("b8");
+
+        for (int type = Position.KNIGHT; type <= Position.QUEEN; type++) {
+            int move = PackedMove.encode(a7, b8, PackedMove.promotionFlags(type, true));
+            assertTrue(PackedMove.isPromotion(move));
+            assertTrue(PackedMove.isCapture(move));
+            assertEquals(type, PackedMove.promotion(move));
+        }
+
+        assertEquals("a7b8n", PackedMove.toString(
+                PackedMove.encode(a7, b8, PackedMove.promotionFlags(Position.KNIGHT, true))));
+    }
+
+    @Test
+    public void testParseWorksOutFlags() {
+        Position pos = Position.fromFen("r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+
+        assertEquals(PackedMove.KING_CASTLE, PackedMove.flags(PackedMove.parse(pos, "e1g1")));
+        assertEquals(PackedMove.QUEEN_CASTLE, PackedMove.flags(PackedMove.parse(pos, "e1c1")));
+        assertTrue(PackedMove.isEnPassant(PackedMove.parse(pos, "e5d6")));
+        assertEquals(PackedMove.QUIET, PackedMove.flags(PackedMove.parse(pos, "e5e6")));
+        assertEquals(PackedMove.CAPTURE, PackedMove.flags(PackedMove.parse(pos, "a1a8")));
+
+        int promotion = PackedMove.parse(pos, "b7a8r");
+        assertEquals(Position.ROOK, PackedMove.promotion(promotion));
+        assertTrue(PackedMove.isCapture(promotion));
+
+        assertEquals(PackedMove.NONE, PackedMove.parse(pos, "e9e4"));
+        assertEquals(PackedMove.NONE, PackedMove.parse(pos, "b7b8x"));
+    }
+
+    @Test
+    public void testGeneratedMovesMatchPlayedMoves() {
+        Position pos = Position.fromFen("r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+        MoveList moves = new MoveList();
+        new MoveGenerator().generateMoves(pos, moves);
+
+        for (String text : new String[] {"e1g1", "e1c1", "e5d6", "b7a8q", "b7b8n"}) {
+            assertTrue(text, moves.contains(PackedMove.parse(pos, text)));
+        }
+
+        String fen = pos.toFen();
+        pos.makeMove(PackedMove.parse(pos, "e5d6"));
+        assertEquals(Position.EMPTY, pos.typeAt(Bitboards.parseSquare("d5")));
+        pos.unmakeMove();
+        assertEquals(fen, pos.toFen());
+    }
+
+    @Test
+    public void testMoveConversion() {
+        GameController controller = new GameController("White", "Black", 0, 1, 0);
+        Board board = controller.getGameState().getBoard();
+        Square[][] squares = board.getSquareArray();
+
+        Piece pawn = squares[6][4].getOccupyingPiece();
+        Move move = new Move(pawn, squares[6][4], squares[4][4]);
+        int packed = move.toPacked();
+        assertEquals("e2e4", PackedMove.toString(packed));
+        assertEquals(PackedMove.DOUBLE_PUSH, PackedMove.flags(packed));
+
+        Move back = Move.fromPacked(board, packed);
+        assertSame(pawn, back.getMovingPiece());
+        assertSame(squares[4][4], back.getToSquare());
+        assertEquals(packed, back.toPacked());
+
+        assertEquals(20, controller.getCheckmateDetector().getAllLegalMoves().size());
+        assertTrue(controller.movePiece(back));
+        assertSame(pawn, squares[4][4].getOccupyingPiece());
+    }
+
+    @Test
+    public void testUnderpromotionThroughController() {
+        GameController controller = new GameController("White", "Black", 0, 1, 0);
+        Board board = controller.getGameState().getBoard();
+        Square[][] squares = board.getSquareArray();
+
+        // Clear the a-file above the a2 pawn and walk it to a7
+        for (int y = 0; y < 6; y++) {
+            if (squares[y][0].isOccupied()) board.Bpieces.remove(squares[y][0].removePiece());
+        }
+        Pawn pawn = (Pawn) squares[6][0].getOccupyingPiece();
+        pawn.move(squares[1][0]);
+
+        int packed = PackedMove.parse(board.getPosition(), "a7a8n");
+        assertTrue(controller.movePiece(Move.fromPacked(board, packed)));
+
+        Piece promoted = squares[0][0].getOccupyingPiece();
+        assertTrue(promoted instanceof Knight);
+        assertEquals(Position.KNIGHT, board.getPosition().typeAt(squares[0][0].getIndex()));
+        assertFalse(board.Wpieces.contains(pawn));
+        assertEquals(1, board.Wpieces.stream().filter(p -> p instanceof Knight && p.getPosition() == squares[0][0]).count());
+    }
+}
@@ -0,0 +1,38 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ParallelPerftTest {
+
+    @Test
+    public void testMatchesReferenceCounts() {
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            ParallelPerft perft = new ParallelPerft(Position.fromFen(reference.getFen()), 4);
+            assertEquals(reference.getName(), reference.getNodes(3), perft.perft(3));
+
+            perft.setSplitPlies(2);
+            assertEquals(reference.getName(), reference.getNodes(4), perft.perft(4));
+        }
+    }
+
+    @Test
+    public void testDivideMatchesSingleThread() {
+        Position pos = Position.fromFen(Perft.REFERENCE_POSITIONS[1].getFen());
+        assertEquals(new Perft(pos).divide(3), new ParallelPerft(pos, 3).divide(3));
+        assertEquals(new Perft(pos).divide(1), new ParallelPerft(pos, 2).divide(1));
+    }
+
+    @Test
+    public void testShallowDepths() {
+        ParallelPerft perft = new ParallelPerft(Position.startPosition(), 2);
+        assertEquals(1, perft.perft(0));
+        assertEquals(20, perft.perft(1));
+        assertEquals(400, perft.perft(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsZeroThreads() {
+        new ParallelPerft(Position.startPosition(), 0);
+    }
+}
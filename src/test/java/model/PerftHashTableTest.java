@@ -0,0 +1,84 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class PerftHashTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        PerftHashTable table = new PerftHashTable(1);
+        long key = 0x123456789ABCDEFL;
+
+        assertEquals(-1, table.probe(key, 3));
+        table.store(key, 3, 8902);
+        assertEquals(8902, table.probe(key, 3));
+
+        // Same position at another depth is a different subtree
+        assertEquals(-1, table.probe(key, 4));
+        assertEquals(3, table.getProbes());
+        assertEquals(1, table.getHits());
+        assertEquals(1.0 / 3, table.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testDeepEntrySurvivesShallowStores() {
+        PerftHashTable table = new PerftHashTable(1);
+        long buckets = table.getCapacity() / 2;
+        long key = 42;
+
+        // Keys equal modulo the bucket count share a bucket
+        table.store(key, 5, 4865609);
+        table.store(key + buckets, 2, 400);
+        table.store(key + 2 * buckets, 2, 420);
+
+        assertEquals(4865609, table.probe(key, 5));
+        assertEquals(-1, table.probe(key + buckets, 2));
+        assertEquals(420, table.probe(key + 2 * buckets, 2));
+        assertEquals(1, table.getReplacements());
+
+        // An equally deep subtree takes over the first entry
+        table.store(key + 3 * buckets, 5, 1);
+        assertEquals(-1, table.probe(key, 5));
+        assertEquals(1, table.probe(key + 3 * buckets, 5));
+    }
+
+    @Test
+    public void testClear() {
+        PerftHashTable table = new PerftHashTable(1);
+        table.store(7, 2, 20);
+        table.clear();
+
+        assertEquals(-1, table.probe(7, 2));
+        assertEquals(0, table.getStores());
+        assertEquals(1, table.getSizeMB());
+    }
+
+    @Test
+    public void testHashedPerftMatchesReference() {
+        PerftHashTable table = new PerftHashTable(16);
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            Perft perft = new Perft(Position.fromFen(reference.getFen()));
+            perft.setHashTable(table);
+            assertEquals(reference.getName(), reference.getNodes(4), perft.perft(4));
+        }
+        assertTrue(table.getHits() > 0);
+    }
+
+    @Test
+    public void testSharedTableInParallel() {
+        PerftHashTable table = new PerftHashTable(8);
+        ParallelPerft perft = new ParallelPerft(Position.startPosition(), 4);
+        perft.setSplitPlies(2);
+        perft.setHashTable(table);
+
+        assertEquals(197281, perft.perft(4));
+        assertEquals(4865609, perft.perft(5));
+        assertTrue(table.getHitRate() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyBudget() {
+        new PerftHashTable(0);
+    }
+}
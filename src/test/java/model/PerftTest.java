@@ -0,0 +1,60 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class PerftTest {
+
+    @Test
+    public void testReferencePositions() {
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            Perft perft = new Perft(Position.fromFen(reference.getFen()));
+            for (int depth = 1; depth <= 3; depth++) {
+                assertEquals(reference.getName() + " depth " + depth,
+                        reference.getNodes(depth), perft.perft(depth));
+            }
+        }
+    }
+
+    @Test
+    public void testDeeperEndgame() {
+        Perft.Reference endgame = Perft.REFERENCE_POSITIONS[2];
+        assertEquals(endgame.getNodes(5), new Perft(Position.fromFen(endgame.getFen())).perft(5));
+    }
+
+    @Test
+    public void testDivideSumsToPerft() {
+        Perft.Reference kiwipete = Perft.REFERENCE_POSITIONS[1];
+        Perft perft = new Perft(Position.fromFen(kiwipete.getFen()));
+
+        Map<String, Long> counts = perft.divide(2);
+        assertEquals(48, counts.size());
+        assertTrue(counts.containsKey("e1g1"));
+        assertTrue(counts.containsKey("e1c1"));
+
+        long total = 0;
+        for (long nodes : counts.values()) total += nodes;
+        assertEquals(kiwipete.getNodes(2), total);
+    }
+
+    @Test
+    public void testRootPositionIsLeftUntouched() {
+        Position pos = Position.startPosition();
+        new Perft(pos).perft(3);
+        assertEquals(Position.START_FEN, pos.toFen());
+        assertEquals(1, new Perft(pos).perft(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNegativeDepth() {
+        new Perft(Position.startPosition()).perft(-1);
+    }
+
+    @Test
+    public void testNodesPerSecond() {
+        assertEquals(2000, Perft.nodesPerSecond(1000, 500_000_000L));
+        assertEquals(0, Perft.nodesPerSecond(1000, 0));
+    }
+}
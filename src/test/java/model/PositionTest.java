@@ -0,0 +1,294 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class PositionTest {
+
+    @Test
+    public void testStartPositionRoundTrip() {
+        Position pos = Position.startPosition();
+
+        assertEquals(Position.START_FEN, pos.toFen());
+        assertEquals(Position.WHITE, pos.getSideToMove());
+        assertEquals(Position.ALL_CASTLING, pos.getCastlingRights());
+        assertEquals(Position.NO_SQUARE, pos.getEnPassantSquare());
+    }
+
+    @Test
+    public void testStartPositionOccupancy() {
+        Position pos = Position.startPosition();
+
+        assertEquals(16, Long.bitCount(pos.occupancy(Position.WHITE)));
+        assertEquals(16, Long.bitCount(pos.occupancy(Position.BLACK)));
+        assertEquals(Bitboards.RANK_8 << 8, pos.pieces(Position.BLACK, Position.PAWN));
+        assertEquals(Bitboards.square(4, 7), pos.kingSquare(Position.WHITE));
+        assertEquals(Bitboards.square(4, 0), pos.kingSquare(Position.BLACK));
+        assertEquals(Position.QUEEN, pos.typeAt(Bitboards.parseSquare("d1")));
+        assertEquals(Position.WHITE, pos.colorAt(Bitboards.parseSquare("d1")));
+        assertEquals(Position.EMPTY, pos.typeAt(Bitboards.parseSquare("e4")));
+    }
+
+    @Test
+    public void testFenState() {
+        String fen = "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w Kq d6 0 3";
+        Position pos = Position.fromFen(fen);
+
+        assertEquals(fen, pos.toFen());
+        assertEquals(Bitboards.parseSquare("d6"), pos.getEnPassantSquare());
+        assertEquals(Position.WHITE_KINGSIDE | Position.BLACK_QUEENSIDE, pos.getCastlingRights());
+        assertEquals(3, pos.getFullmoveNumber());
+    }
+
+    @Test
+    public void testRemovingRookDropsCastlingRight() {
+        Position pos = Position.startPosition();
+
+        pos.remove(Bitboards.parseSquare("h1"));
+        assertEquals(Position.ALL_CASTLING & ~Position.WHITE_KINGSIDE, pos.getCastlingRights());
+
+        pos.remove(Bitboards.parseSquare("e8"));
+        assertEquals(Position.WHITE_QUEENSIDE, pos.getCastlingRights());
+    }
+
+    @Test
+    public void testAttackTables() {
+        int b1 = Bitboards.parseSquare("b1");
+        long knight = Bitboards.knightAttacks(b1);
+
+        assertEquals(3, Long.bitCount(knight));
+        assertTrue((knight & Bitboards.bit(Bitboards.parseSquare("a3"))) != 0);
+        assertTrue((knight & Bitboards.bit(Bitboards.parseSquare("c3"))) != 0);
+        assertTrue((knight & Bitboards.bit(Bitboards.parseSquare("d2"))) != 0);
+
+        int e4 = Bitboards.parseSquare("e4");
+        long whitePawn = Bitboards.pawnAttacks(Position.WHITE, e4);
+        assertEquals(Bitboards.bit(Bitboards.parseSquare("d5")) | Bitboards.bit(Bitboards.parseSquare("f5")),
+                whitePawn);
+
+        // A rook on an empty board sees its whole file and rank
+        assertEquals(14, Long.bitCount(Bitboards.rookAttacks(e4, 0L)));
+        assertEquals(13, Long.bitCount(Bitboards.bishopAttacks(e4, 0L)));
+    }
+
+    @Test
+    public void testCheckDetection() {
+        Position pos = Position.fromFen("4k3/8/5N2/8/8/8/8/4K3 b - - 0 1");
+
+        assertTrue(pos.isInCheck(Position.BLACK));
+        assertFalse(pos.isInCheck(Position.WHITE));
+
+        pos.remove(Bitboards.parseSquare("f6"));
+        pos.put(Bitboards.parseSquare("e2"), Position.WHITE, Position.ROOK);
+        assertTrue(pos.isInCheck(Position.BLACK));
+
+        pos.put(Bitboards.parseSquare("e5"), Position.BLACK, Position.PAWN);
+        assertFalse(pos.isInCheck(Position.BLACK));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        Position pos = Position.startPosition();
+        Position copy = new Position(pos);
+
+        copy.remove(Bitboards.parseSquare("e2"));
+
+        assertEquals(Position.START_FEN, pos.toFen());
+        assertNotEquals(pos.toFen(), copy.toFen());
+    }
+
+    private static int sq(String name) {
+        return Bitboards.parseSquare(name);
+    }
+
+    private static void assertMakeUnmake(String fen, String from, String to, int promotion, String expected) {
+        Position pos = Position.fromFen(fen);
+
+        pos.makeMove(sq(from), sq(to), promotion);
+        assertEquals(expected, pos.toFen());
+        assertEquals(1, pos.getPly());
+
+        pos.unmakeMove();
+        assertEquals(fen, pos.toFen());
+        assertEquals(0, pos.getPly());
+    }
+
+    @Test
+    public void testDoublePushSetsEnPassant() {
+        assertMakeUnmake(Position.START_FEN, "e2", "e4", Position.EMPTY,
+                "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+    }
+
+    @Test
+    public void testCastlingMovesRook() {
+        String fen = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 3 10";
+        assertMakeUnmake(fen, "e1", "g1", Position.EMPTY, "r3k2r/8/8/8/8/8/8/R4RK1 b kq - 4 10");
+        assertMakeUnmake(fen, "e1", "c1", Position.EMPTY, "r3k2r/8/8/8/8/8/8/2KR3R b kq - 4 10");
+
+        String black = "r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 3 10";
+        assertMakeUnmake(black, "e8", "g8", Position.EMPTY, "r4rk1/8/8/8/8/8/8/R3K2R w KQ - 4 11");
+        assertMakeUnmake(black, "e8", "c8", Position.EMPTY, "2kr3r/8/8/8/8/8/8/R3K2R w KQ - 4 11");
+    }
+
+    @Test
+    public void testRookCaptureDropsCastling() {
+        assertMakeUnmake("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", "a1", "a8", Position.EMPTY,
+                "R3k2r/8/8/8/8/8/8/4K2R b Kk - 0 1");
+    }
+
+    @Test
+    public void testEnPassantCapture() {
+        assertMakeUnmake("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2", "e5", "d6", Position.EMPTY,
+                "4k3/8/3P4/8/8/8/8/4K3 b - - 0 2");
+        assertMakeUnmake("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 2", "d4", "e3", Position.EMPTY,
+                "4k3/8/8/8/8/4p3/8/4K3 w - - 0 3");
+    }
+
+    @Test
+    public void testPromotion() {
+        assertMakeUnmake("1r2k3/P7/8/8/8/8/8/4K3 w - - 5 40", "a7", "b8", Position.KNIGHT,
+                "1N2k3/8/8/8/8/8/8/4K3 b - - 0 40");
+        assertMakeUnmake("4k3/8/8/8/8/8/p7/4K3 b - - 0 40", "a2", "a1", Position.QUEEN,
+                "4k3/8/8/8/8/8/8/q3K3 w - - 0 41");
+    }
+
+    @Test
+    public void testUnmakeSequence() {
+        Position pos = Position.startPosition();
+        String[][] moves = {{"e2", "e4"}, {"d7", "d5"}, {"e4", "d5"}, {"d8", "d5"}, {"b1", "c3"}, {"d5", "a5"}};
+
+        for (String[] m : moves) {
+            pos.makeMove(sq(m[0]), sq(m[1]), Position.EMPTY);
+        }
+        assertEquals("rnb1kbnr/ppp1pppp/8/q7/8/2N5/PPPP1PPP/R1BQKBNR w KQkq - 2 4", pos.toFen());
+
+        for (int i = 0; i < moves.length; i++) {
+            pos.unmakeMove();
+        }
+        assertEquals(Position.START_FEN, pos.toFen());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnmakeWithoutMove() {
+        Position.startPosition().unmakeMove();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFen() {
+        Position.fromFen("rnbqkbnr/pppppppp/8/8 x KQkq -");
+    }
+
+    @Test
+    public void testKeyFollowsPositionNotMoveOrder() {
+        Position a = Position.startPosition();
+        a.makeMove(PackedMove.parse(a, "g1f3"));
+        a.makeMove(PackedMove.parse(a, "g8f6"));
+        a.makeMove(PackedMove.parse(a, "b1c3"));
+
+        Position b = Position.startPosition();
+        b.makeMove(PackedMove.parse(b, "b1c3"));
+        b.makeMove(PackedMove.parse(b, "g8f6"));
+        b.makeMove(PackedMove.parse(b, "g1f3"));
+
+        assertEquals(a.getKey(), b.getKey());
+
+        b.setSideToMove(Position.WHITE);
+        assertNotEquals(a.getKey(), b.getKey());
+
+        long key = a.getKey();
+        a.setCastlingRights(Position.WHITE_KINGSIDE);
+        assertNotEquals(key, a.getKey());
+        assertEquals(a.computeKey(), a.getKey());
+    }
+
+    @Test
+    public void testIncrementalKeyMatchesRecomputed() {
+        // Walk every line to depth 3 of a position with castling, en passant and promotions
+        Position pos = Position.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertEquals(pos.computeKey(), pos.getKey());
+        checkKeys(pos, new MoveGenerator(), MoveList.perPly(3), 3);
+
+        pos = Position.fromFen("4k3/8/8/K2pP2r/8/8/8/8 w - d6 0 1");
+        assertEquals(pos.computeKey(), pos.getKey());
+        checkKeys(pos, new MoveGenerator(), MoveList.perPly(3), 3);
+    }
+
+    /*
+     * Checks the incremental keys and piece-square score after every move of every line.
+     */
+    private static void checkKeys(Position pos, MoveGenerator gen, MoveList[] lists, int depth) {
+        if (depth == 0) return;
+        long before = pos.getKey();
+        int scoreBefore = pos.getPsqtScore();
+        MoveList moves = lists[depth];
+        gen.generateMoves(pos, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            pos.makeMove(moves.get(i));
+            assertEquals(PackedMove.toString(moves.get(i)), pos.computeKey(), pos.getKey());
+            assertEquals(PackedMove.toString(moves.get(i)), pos.computePsqtScore(), pos.getPsqtScore());
+            assertEquals(PackedMove.toString(moves.get(i)), pos.computePawnKey(), pos.getPawnKey());
+            checkKeys(pos, gen, lists, depth - 1);
+            pos.unmakeMove();
+            assertEquals(before, pos.getKey());
+            assertEquals(scoreBefore, pos.getPsqtScore());
+        }
+    }
+
+    @Test
+    public void testPsqtScoreAndPhase() {
+        // The tables mirror each other, so the start position is level
+        Position pos = Position.startPosition();
+        assertEquals(0, pos.getPsqtScore());
+        assertEquals(PieceSquareTables.MAX_PHASE, pos.getPhase());
+
+        // Capturing the queen takes 4 off the phase; a promotion to a queen adds them back
+        pos = Position.fromFen("3qk3/4P3/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals(4, pos.getPhase());
+        pos.makeMove(PackedMove.parse(pos, "e7d8q"));
+        assertEquals(4, pos.getPhase());
+        assertTrue(PieceSquareTables.midgame(pos.getPsqtScore()) > 900);
+        pos.unmakeMove();
+        assertEquals(pos.computePsqtScore(), pos.getPsqtScore());
+    }
+
+    @Test
+    public void testPackedScores() {
+        int packed = PieceSquareTables.pack(-35, 120) + PieceSquareTables.pack(10, -300);
+        assertEquals(-25, PieceSquareTables.midgame(packed));
+        assertEquals(-180, PieceSquareTables.endgame(packed));
+    }
+
+    @Test
+    public void testRepetitions() {
+        Position pos = Position.startPosition();
+        assertEquals(0, pos.repetitions());
+
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (String move : shuffle) pos.makeMove(PackedMove.parse(pos, move));
+        assertEquals(1, pos.repetitions());
+        for (String move : shuffle) pos.makeMove(PackedMove.parse(pos, move));
+        assertEquals(2, pos.repetitions());
+
+        // A pawn move cannot be undone, so nothing before it repeats
+        pos.makeMove(PackedMove.parse(pos, "e2e4"));
+        pos.makeMove(PackedMove.parse(pos, "e7e5"));
+        assertEquals(0, pos.repetitions());
+    }
+
+    @Test
+    public void testNullMove() {
+        Position pos = Position.fromFen("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3");
+        String fen = pos.toFen();
+        long key = pos.getKey();
+
+        pos.makeNullMove();
+        assertEquals(Position.BLACK, pos.getSideToMove());
+        assertEquals(Position.NO_SQUARE, pos.getEnPassantSquare());
+        assertEquals(pos.computeKey(), pos.getKey());
+        assertEquals(0, pos.repetitions());
+
+        pos.unmakeMove();
+        assertEquals(fen, pos.toFen());
+        assertEquals(key, pos.getKey());
+    }
+}
@@ -0,0 +1,67 @@
+package model;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class StaticExchangeTest {
+    private static int see(String fen, String move) {
+        Position position = Position.fromFen(fen);
+        String before = position.toFen();
+        int value = StaticExchange.evaluate(position, PackedMove.parse(position, move));
+        assertEquals(before, position.toFen());
+        return value;
+    }
+
+    @Test
+    public void testSimpleCaptures() {
+        // Pawn takes a defended pawn: an even trade
+        assertEquals(0, see("4k3/8/3p4/4p3/3P4/8/8/4K3 w - - 0 1", "d4e5"));
+        // Queen takes a pawn defended by a pawn
+        assertEquals(-8, see("4k3/8/3p4/4p3/8/8/8/4QK2 w - - 0 1", "e1e5"));
+        // Rook takes an undefended knight
+        assertEquals(3, see("4k3/8/8/4n3/8/8/8/4RK2 w - - 0 1", "e1e5"));
+    }
+
+    @Test
+    public void testXrayAttackersJoinIn() {
+        // The rook behind the first one wins the exchange on e5
+        assertEquals(1, see("4r1k1/8/8/4p3/8/8/4R3/4RK2 w - - 0 1", "e2e5"));
+        assertEquals(-4, see("4r1k1/8/8/4p3/8/8/4R3/5K2 w - - 0 1", "e2e5"));
+    }
+
+    @Test
+    public void testKingOnlyRecapturesUndefendedPieces() {
+        assertEquals(-8, see("4k3/5p2/8/8/8/8/8/5QK1 w - - 0 1", "f1f7"));
+        assertEquals(1, see("4k3/5p2/8/8/2B5/8/8/5QK1 w - - 0 1", "f1f7"));
+    }
+
+    @Test
+    public void testSpecialMoves() {
+        assertEquals(8, see("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7a8q"));
+        assertEquals(-1, see("7r/P7/8/8/8/8/k7/4K3 w - - 0 1", "a7a8q"));
+        assertEquals(1, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+        assertEquals(0, see("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", "e1g1"));
+        // A quiet move onto an attacked square loses the piece
+        assertEquals(-3, see("4k3/8/8/8/3p4/8/8/1N2K3 w - - 0 1", "b1c3"));
+    }
+
+    @Test
+    public void testReusedBufferMatchesFreshOne() {
+        String[][] cases = {
+            {"4r1k1/8/8/4p3/8/8/4R3/4RK2 w - - 0 1", "e2e5"},
+            {"4k3/8/8/8/3p4/8/8/1N2K3 w - - 0 1", "b1c3"},
+            {"4k3/8/3p4/4p3/8/8/8/4QK2 w - - 0 1", "e1e5"},
+            {"4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7a8q"},
+        };
+        int[] gain = new int[StaticExchange.MAX_CAPTURES];
+        Arrays.fill(gain, 99);
+        for (String[] c : cases) {
+            Position position = Position.fromFen(c[0]);
+            int move = PackedMove.parse(position, c[1]);
+            assertEquals(StaticExchange.evaluate(position, move),
+                    StaticExchange.evaluate(position, move, gain));
+        }
+    }
+}